@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+#
+# Measures the time from launching the backend to its first successfully served request.
+#
+# Usage: scripts/startup-benchmark.sh [-n runs] [-u url] [-d json] [-t timeout-seconds] -- <command...>
+#
+#   -n  Number of runs (default 5)
+#   -u  Request to wait for (default: the login endpoint, so the first request goes through JPA)
+#   -d  JSON body to POST to the URL, empty for a GET (default: admin login)
+#   -t  Give up on a run after this many seconds (default 120)
+#
+# Examples:
+#   scripts/startup-benchmark.sh -- java -jar target/contacts-0.0.1-SNAPSHOT.jar
+#   scripts/startup-benchmark.sh -- java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+#       -Dspring.profiles.active=fast-startup -jar app/contacts-0.0.1-SNAPSHOT.jar
+#
+# The command must start the server on the port of the URL and must not already be running.
+
+set -euo pipefail
+
+runs=5
+url="http://localhost:8080/api/auth/login"
+body='{"username":"admin","password":"admin"}'
+timeout=120
+
+while getopts "n:u:d:t:" opt; do
+    case "$opt" in
+        n) runs="$OPTARG" ;;
+        u) url="$OPTARG" ;;
+        d) body="$OPTARG" ;;
+        t) timeout="$OPTARG" ;;
+        *) sed -n '4,10p' "$0"; exit 2 ;;
+    esac
+done
+shift $((OPTIND - 1))
+[ "${1:-}" = "--" ] && shift
+if [ $# -eq 0 ]; then
+    sed -n '4,10p' "$0"
+    exit 2
+fi
+
+log=$(mktemp)
+trap 'rm -f "$log"' EXIT
+
+request() {
+    if [ -n "$body" ]; then
+        curl -s -o /dev/null -w "%{http_code}" -H "Content-Type: application/json" -d "$body" "$url" || true
+    else
+        curl -s -o /dev/null -w "%{http_code}" "$url" || true
+    fi
+}
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+results=()
+for run in $(seq 1 "$runs"); do
+    if [ "$(request)" != "000" ]; then
+        echo "Something is already listening on $url" >&2
+        exit 1
+    fi
+
+    start=$(now_ms)
+    "$@" > "$log" 2>&1 &
+    pid=$!
+
+    served=""
+    while [ $(( $(now_ms) - start )) -lt $(( timeout * 1000 )) ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            break
+        fi
+        if [ "$(request)" = "200" ]; then
+            served=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.02
+    done
+
+    # Spring's own figure, up to the end of the context refresh
+    started=$(grep -o "Started [A-Za-z]* in [0-9.]* seconds" "$log" | grep -o "[0-9.]* seconds" || true)
+
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+
+    if [ -z "$served" ]; then
+        echo "Run $run: no successful response within ${timeout}s, last output:" >&2
+        tail -20 "$log" >&2
+        exit 1
+    fi
+    echo "Run $run: first request served after ${served} ms (context started in ${started:-?})"
+    results+=("$served")
+done
+
+sorted=($(printf "%s\n" "${results[@]}" | sort -n))
+count=${#sorted[@]}
+echo "Time to first served request over $count runs: min ${sorted[0]} ms, median ${sorted[$((count / 2))]} ms, max ${sorted[$((count - 1))]} ms"
@@ -0,0 +1,63 @@
+package contacts.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.time.Clock;
+
+/**
+ * Wires the audit log: the writer, the listener that records contact and user changes,
+ * the reader used by the admin endpoint, and the daily retention run.
+ * Enabled unless contacts.audit.enabled=false; while enabled, contacts.audit.directory has to be set.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "contacts.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(AuditProperties.class)
+public class AuditConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditConfig.class);
+
+    private final AuditProperties properties;
+
+    public AuditConfig(AuditProperties properties) {
+        // The log is the only copy of the history, a temporary directory would lose it
+        if (properties.getDirectory() == null) {
+            throw new IllegalStateException("contacts.audit.enabled=true requires contacts.audit.directory");
+        }
+        this.properties = properties;
+    }
+
+    @Bean(destroyMethod = "close")
+    public AuditLogWriter auditLogWriter() throws IOException {
+        return new AuditLogWriter(properties.getDirectory(), properties.getSegmentSize(), properties.isFsync(),
+                Clock.systemUTC());
+    }
+
+    @Bean
+    public AuditListener auditListener(AuditLogWriter auditLogWriter) {
+        return new AuditListener(auditLogWriter, properties.getAwaitDurable(), Clock.systemUTC());
+    }
+
+    @Bean
+    public AuditLogReader auditLogReader() {
+        return new AuditLogReader(properties.getDirectory());
+    }
+
+    /**
+     * Deletes the segments past the retention or over the size limit.
+     */
+    @Scheduled(cron = "${contacts.audit.retention-cron:0 45 3 * * *}")
+    public void enforceRetention() {
+        try {
+            auditLogWriter().enforceRetention(properties.getRetention(), properties.getMaxTotalSize());
+        } catch (IOException e) {
+            logger.warn("Audit log retention failed: {}", e.getMessage());
+        }
+    }
+}
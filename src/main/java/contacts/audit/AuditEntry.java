@@ -0,0 +1,31 @@
+package contacts.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One mutation in the audit log: who changed which contact or user, when, and which fields.
+ * Field values are not recorded, so the log never holds passwords or personal data
+ * beyond the IDs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEntry {
+
+    public static final String CONTACT = "CONTACT";
+    public static final String USER = "USER";
+
+    private long sequence;          // assigned by the log, increasing across segments
+    private Instant timestamp;
+    private String actor;           // username of the authenticated user, "system" outside requests
+    private String entityType;      // CONTACT or USER
+    private Long entityId;
+    private Long ownerUserId;       // owner of the contact, the user itself for USER entries
+    private String action;          // CREATED, UPDATED or DELETED
+    private List<String> changedFields;
+}
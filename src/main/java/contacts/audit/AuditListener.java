@@ -0,0 +1,119 @@
+package contacts.audit;
+
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.event.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Records the committed contact and user changes in the audit log. Runs after the commit on
+ * the request thread, so the actor is the authenticated user of the request, and nothing is
+ * recorded for a rolled back change. Adds no database writes.
+ */
+public class AuditListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditListener.class);
+
+    private static final List<Field> CONTACT_FIELDS = List.of(
+            new Field("firstName", ContactListDTO::getFirstName),
+            new Field("lastName", ContactListDTO::getLastName),
+            new Field("motherName", ContactListDTO::getMotherName),
+            new Field("email", ContactListDTO::getEmail),
+            new Field("birthDate", ContactListDTO::getBirthDate),
+            new Field("tajNumber", ContactListDTO::getTajNumber),
+            new Field("taxId", ContactListDTO::getTaxId),
+            new Field("phoneNumbers", ContactListDTO::getPhoneNumbers),
+            new Field("addresses", ContactListDTO::getAddresses));
+
+    private record Field(String name, Function<ContactListDTO, Object> getter) {
+    }
+
+    private final AuditLogWriter writer;
+    private final Duration awaitDurable;
+    private final Clock clock;
+
+    /**
+     * Constructor for AuditListener.
+     *
+     * @param writer The audit log
+     * @param awaitDurable How long a request waits for its entry to be on disk, zero to not wait
+     * @param clock Clock for the entry timestamps
+     */
+    public AuditListener(AuditLogWriter writer, Duration awaitDurable, Clock clock) {
+        this.writer = writer;
+        this.awaitDurable = awaitDurable;
+        this.clock = clock;
+    }
+
+    /**
+     * Records a contact change.
+     *
+     * @param event The contact change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        List<String> changedFields = new ArrayList<>();
+        if (event.getType() == ContactChangedEvent.Type.UPDATED && event.getPrevious() != null && event.getCurrent() != null) {
+            for (Field field : CONTACT_FIELDS) {
+                if (!Objects.equals(field.getter().apply(event.getPrevious()), field.getter().apply(event.getCurrent()))) {
+                    changedFields.add(field.name());
+                }
+            }
+        }
+        record(new AuditEntry(0, clock.instant(), currentActor(), AuditEntry.CONTACT, event.getContactId(),
+                event.getUserId(), event.getType().name(), changedFields));
+    }
+
+    /**
+     * Records a user change.
+     *
+     * @param event The user change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        record(new AuditEntry(0, clock.instant(), currentActor(), AuditEntry.USER, event.getUserId(),
+                event.getUserId(), event.getType().name(), event.getChangedFields()));
+    }
+
+    private void record(AuditEntry entry) {
+        CompletableFuture<Void> written = writer.append(entry);
+        if (awaitDurable.isZero()) {
+            return;
+        }
+        try {
+            written.get(awaitDurable.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Audit entry for {} {} not yet on disk after {}", entry.getEntityType(), entry.getEntityId(), awaitDurable);
+        } catch (ExecutionException e) {
+            logger.error("Audit entry for {} {} not written: {}", entry.getEntityType(), entry.getEntityId(),
+                    e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)
+                && authentication.getName() != null) {
+            return authentication.getName();
+        }
+        return "system";
+    }
+}
@@ -0,0 +1,124 @@
+package contacts.audit;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Searches the audit log. Segments are read newest first with plain buffered reads, not
+ * mapped, so the reader is safe while the writer trims or deletes segments, and a search
+ * stops as soon as it has enough matches.
+ */
+public class AuditLogReader {
+
+    private final Path directory;
+
+    /**
+     * Constructor for AuditLogReader.
+     *
+     * @param directory Directory of the log segments
+     */
+    public AuditLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Find the entries of one contact.
+     *
+     * @param contactId The ID of the contact
+     * @param limit Maximum number of entries
+     * @return The matching entries, newest first
+     * @throws IOException if the log cannot be read
+     */
+    public List<AuditEntry> findByContactId(long contactId, int limit) throws IOException {
+        return search(entry -> AuditEntry.CONTACT.equals(entry.getEntityType())
+                && Long.valueOf(contactId).equals(entry.getEntityId()), limit);
+    }
+
+    /**
+     * Find the entries concerning one user: changes of the user itself and of its contacts,
+     * and, if a username is given, every change the user made.
+     *
+     * @param userId The ID of the user
+     * @param username The username of the user, or null
+     * @param limit Maximum number of entries
+     * @return The matching entries, newest first
+     * @throws IOException if the log cannot be read
+     */
+    public List<AuditEntry> findByUser(long userId, String username, int limit) throws IOException {
+        Long id = userId;
+        return search(entry -> id.equals(entry.getOwnerUserId())
+                || (AuditEntry.USER.equals(entry.getEntityType()) && id.equals(entry.getEntityId()))
+                || (username != null && username.equals(entry.getActor())), limit);
+    }
+
+    /**
+     * Find the entries matching a filter.
+     *
+     * @param filter The filter
+     * @param limit Maximum number of entries
+     * @return The matching entries, newest first
+     * @throws IOException if the log cannot be read
+     */
+    public List<AuditEntry> search(Predicate<AuditEntry> filter, int limit) throws IOException {
+        List<AuditEntry> result = new ArrayList<>();
+        List<Path> segments = AuditSegments.list(directory);
+        for (int i = segments.size() - 1; i >= 0 && result.size() < limit; i--) {
+            List<AuditEntry> matches = new ArrayList<>();
+            try {
+                readSegment(segments.get(i), filter, matches);
+            } catch (java.nio.file.NoSuchFileException e) {
+                // Deleted by the retention while searching
+                continue;
+            }
+            Collections.reverse(matches);
+            for (AuditEntry entry : matches) {
+                if (result.size() == limit) {
+                    break;
+                }
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private static void readSegment(Path segment, Predicate<AuditEntry> filter, List<AuditEntry> matches)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length <= 0) {
+                    return;
+                }
+                byte[] payload = new byte[length];
+                try {
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    return;
+                }
+                if (checksum != AuditSegments.checksum(payload, 0, length)) {
+                    // Torn or not yet completely written
+                    return;
+                }
+                AuditEntry entry = AuditSegments.MAPPER.readValue(payload, AuditEntry.class);
+                if (filter.test(entry)) {
+                    matches.add(entry);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package contacts.audit;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Command line tool for searching the audit log without starting the application.
+ * Prints the matching entries as JSON, one per line, newest first.
+ *
+ * Usage from the packaged application:
+ * <pre>
+ * java -cp contacts.jar -Dloader.main=contacts.audit.AuditLogTool \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher &lt;directory&gt; (--contact &lt;id&gt; | --user &lt;id&gt; [--actor &lt;username&gt;]) [--limit &lt;n&gt;]
+ * </pre>
+ */
+public class AuditLogTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            usage();
+            return;
+        }
+
+        Path directory = Path.of(args[0]);
+        Long contactId = null;
+        Long userId = null;
+        String actor = null;
+        int limit = 100;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--contact" -> contactId = Long.parseLong(args[i + 1]);
+                case "--user" -> userId = Long.parseLong(args[i + 1]);
+                case "--actor" -> actor = args[i + 1];
+                case "--limit" -> limit = Integer.parseInt(args[i + 1]);
+                default -> {
+                    usage();
+                    return;
+                }
+            }
+        }
+
+        AuditLogReader reader = new AuditLogReader(directory);
+        List<AuditEntry> entries;
+        if (contactId != null) {
+            entries = reader.findByContactId(contactId, limit);
+        } else if (userId != null) {
+            entries = reader.findByUser(userId, actor, limit);
+        } else if (actor != null) {
+            String username = actor;
+            entries = reader.search(entry -> username.equals(entry.getActor()), limit);
+        } else {
+            usage();
+            return;
+        }
+        for (AuditEntry entry : entries) {
+            System.out.println(AuditSegments.MAPPER.writeValueAsString(entry));
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: AuditLogTool <directory> (--contact <id> | --user <id> | --actor <username>) [--limit <n>]");
+        System.exit(2);
+    }
+}
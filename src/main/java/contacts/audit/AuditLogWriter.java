@@ -0,0 +1,314 @@
+package contacts.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends audit entries to a segmented, memory-mapped log (see {@link AuditSegments}).
+ *
+ * Callers only enqueue their entry. A single writer thread takes every entry queued so far,
+ * copies them into the mapped segment and forces the segment to disk once for the whole group,
+ * then completes the callers' futures. Under load, many entries share one fsync (group commit),
+ * and no request thread ever touches the file. When a segment is full it is trimmed and closed,
+ * and a new one is started. After a crash, the end of the last segment is found by scanning
+ * it for the first empty or torn frame.
+ */
+public class AuditLogWriter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final int MAX_GROUP_SIZE = 4096;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final Clock clock;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Only used by the writer thread after construction; no buffer while a new segment could not be opened
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextSequence;
+    // Written by the writer thread, read by the retention run
+    private volatile Path currentSegment;
+
+    private record Pending(AuditEntry entry, CompletableFuture<Void> written) {
+    }
+
+    /**
+     * Constructor for AuditLogWriter. Opens or recovers the last segment and starts the writer thread.
+     *
+     * @param directory Directory of the log segments, created if missing
+     * @param segmentSize Size of one segment in bytes
+     * @param fsync Whether every group is forced to disk
+     * @param clock Clock for the retention of closed segments
+     * @throws IOException if the log cannot be opened
+     */
+    public AuditLogWriter(Path directory, int segmentSize, boolean fsync, Clock clock) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.clock = clock;
+        Files.createDirectories(directory);
+        recover();
+        writerThread = new Thread(this::writeLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues an entry. The sequence number is assigned when it is written.
+     *
+     * @param entry The entry to append
+     * @return Completed once the entry is written, and forced to disk if fsync is enabled
+     */
+    public CompletableFuture<Void> append(AuditEntry entry) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        if (!running) {
+            written.completeExceptionally(new IllegalStateException("The audit log is closed"));
+        } else if (!queue.offer(new Pending(entry, written))) {
+            // Never block a request on a stuck disk, but make the loss visible
+            logger.error("Audit log queue full, entry dropped: {} {} {}", entry.getEntityType(), entry.getEntityId(), entry.getAction());
+            written.completeExceptionally(new IllegalStateException("Audit log queue full"));
+        }
+        return written;
+    }
+
+    private void writeLoop() {
+        List<Pending> group = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                // Everything that arrived while the previous group was being forced
+                queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                writeGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Audit log write failed, {} entries lost", group.size(), e);
+                group.forEach(pending -> pending.written().completeExceptionally(e));
+            }
+            group.clear();
+        }
+    }
+
+    private void writeGroup(List<Pending> group) throws IOException {
+        if (buffer == null) {
+            // The previous rotation failed after closing its segment
+            openSegment(nextSequence);
+        }
+        for (Pending pending : group) {
+            AuditEntry entry = pending.entry();
+            entry.setSequence(nextSequence);
+            byte[] payload = AuditSegments.MAPPER.writeValueAsBytes(entry);
+            int frameSize = AuditSegments.HEADER_SIZE + payload.length;
+            if (frameSize > segmentSize) {
+                pending.written().completeExceptionally(new IllegalArgumentException("Audit entry too large"));
+                continue;
+            }
+            if (buffer.remaining() < frameSize) {
+                rotate();
+            }
+            buffer.putInt(payload.length);
+            buffer.putInt(AuditSegments.checksum(payload, 0, payload.length));
+            buffer.put(payload);
+            nextSequence++;
+        }
+        if (fsync) {
+            buffer.force();
+        }
+        for (Pending pending : group) {
+            pending.written().complete(null);
+        }
+    }
+
+    /**
+     * Finds the end of the last segment, or starts the first one.
+     */
+    private void recover() throws IOException {
+        List<Path> segments = AuditSegments.list(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+            return;
+        }
+
+        Path last = segments.get(segments.size() - 1);
+        long lastSize = Files.size(last);
+        if (lastSize < segmentSize) {
+            // Closed segment, trimmed on rotation or shutdown: continue in a new one
+            long lastSequence;
+            try (FileChannel readChannel = FileChannel.open(last, StandardOpenOption.READ)) {
+                lastSequence = scan(readChannel.map(FileChannel.MapMode.READ_ONLY, 0, lastSize), last);
+            }
+            if (lastSequence < 0) {
+                Files.delete(last);
+                openSegment(firstSequence(last));
+            } else {
+                openSegment(lastSequence + 1);
+            }
+            return;
+        }
+
+        channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        currentSegment = last;
+        long lastSequence = scan(buffer, last);
+        nextSequence = lastSequence >= 0 ? lastSequence + 1 : firstSequence(last);
+        // Clear what is left of a torn frame, so it is not mistaken for an entry later
+        int end = buffer.position();
+        buffer.put(new byte[Math.min(buffer.remaining(), 64 * 1024)]);
+        buffer.position(end);
+        logger.info("Audit log recovered, {} continues at entry {}", last.getFileName(), nextSequence);
+    }
+
+    /**
+     * Moves the buffer to the end of the valid frames.
+     *
+     * @return The sequence number of the last valid entry, or -1 if there is none
+     */
+    private static long scan(ByteBuffer content, Path segment) throws IOException {
+        long lastSequence = -1;
+        int end = 0;
+        while (content.remaining() >= AuditSegments.HEADER_SIZE) {
+            int length = content.getInt();
+            int checksum = content.getInt();
+            if (length <= 0 || length > content.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            content.get(payload);
+            if (checksum != AuditSegments.checksum(payload, 0, length)) {
+                logger.warn("Torn audit log entry at {} in {}, discarded", end, segment.getFileName());
+                break;
+            }
+            lastSequence = AuditSegments.MAPPER.readValue(payload, AuditEntry.class).getSequence();
+            end = content.position();
+        }
+        content.position(end);
+        return lastSequence;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.lastIndexOf('.')));
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path segment = AuditSegments.segmentPath(directory, firstSequence);
+        FileChannel newChannel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            buffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException | RuntimeException e) {
+            // Leave nothing behind, so the next attempt can create the segment again
+            newChannel.close();
+            Files.deleteIfExists(segment);
+            throw e;
+        }
+        channel = newChannel;
+        nextSequence = firstSequence;
+        currentSegment = segment;
+        logger.info("Audit log segment {} started", segment.getFileName());
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        openSegment(nextSequence);
+    }
+
+    private void closeSegment() throws IOException {
+        buffer.force();
+        // The mapping is never used again, so trimming the file under it is safe
+        channel.truncate(buffer.position());
+        channel.close();
+        buffer = null;
+    }
+
+    /**
+     * Deletes closed segments older than the retention, then the oldest closed segments
+     * while the log is larger than the maximum size. The segment being written and the newest
+     * segment are always kept, even when the writer has just rotated.
+     *
+     * @param retention Maximum age of a closed segment
+     * @param maxTotalSize Maximum size of the log in bytes
+     * @return The number of deleted segments
+     * @throws IOException if the directory cannot be listed
+     */
+    public int enforceRetention(Duration retention, long maxTotalSize) throws IOException {
+        List<Path> closed = new ArrayList<>(AuditSegments.list(directory));
+        Path current = currentSegment;
+        closed.removeIf(segment -> segment.equals(current));
+        if (!closed.isEmpty() && closed.get(closed.size() - 1).compareTo(current) > 0) {
+            closed.remove(closed.size() - 1);
+        }
+
+        long totalSize = Files.size(current);
+        for (Path segment : closed) {
+            totalSize += Files.size(segment);
+        }
+
+        Instant cutoff = clock.instant().minus(retention);
+        int deleted = 0;
+        for (Path segment : closed) {
+            long size = Files.size(segment);
+            if (Files.getLastModifiedTime(segment).toInstant().isBefore(cutoff) || totalSize > maxTotalSize) {
+                Files.deleteIfExists(segment);
+                totalSize -= size;
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Audit log retention deleted {} segments", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * @return The directory of the log segments
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Writes the queued entries, trims the current segment and stops the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (buffer != null) {
+            closeSegment();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package contacts.audit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the audit log.
+ */
+@Data
+@ConfigurationProperties(prefix = "contacts.audit")
+public class AuditProperties {
+
+    private boolean enabled = true;
+
+    /** Directory of the log segments, on durable storage; required while auditing is enabled */
+    private Path directory;
+
+    /** Size of one memory-mapped segment; a full segment is closed and a new one started */
+    private int segmentSize = 64 * 1024 * 1024;
+
+    /** Closed segments older than this are deleted */
+    private Duration retention = Duration.ofDays(400);
+
+    /** Oldest closed segments are deleted while the log is larger than this */
+    private long maxTotalSize = 10L * 1024 * 1024 * 1024;
+
+    /** Whether each group of entries is forced to disk before the writers are released */
+    private boolean fsync = true;
+
+    /** Whether a request waits until its entry is on disk, at most for this long; zero does not wait */
+    private Duration awaitDurable = Duration.ofSeconds(2);
+}
@@ -0,0 +1,65 @@
+package contacts.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk format of the audit log, shared by the writer, the reader and the command line tool.
+ *
+ * The log is a directory of segment files named after the sequence number of their first
+ * entry, so they sort in log order. A segment is a series of frames: a 4-byte payload length,
+ * a 4-byte CRC32 of the payload and the entry as UTF-8 JSON. A zero length marks the end of
+ * the written part; a frame with a bad checksum is a torn write and also ends the segment.
+ * The segment being written is preallocated to the full segment size, closed segments are
+ * trimmed to their content.
+ */
+final class AuditSegments {
+
+    static final int HEADER_SIZE = 8;
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".log";
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private AuditSegments() {
+    }
+
+    static Path segmentPath(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+    }
+
+    /**
+     * @param directory The log directory
+     * @return The segments, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditSegments::isSegment).sorted().toList();
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static int checksum(byte[] payload, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, offset, length);
+        return (int) crc.getValue();
+    }
+}
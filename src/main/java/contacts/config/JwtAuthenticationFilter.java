@@ -1,5 +1,7 @@
 package contacts.config;
 
+import contacts.monitoring.RequestTimings;
+import contacts.service.TokenRevocationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -32,9 +34,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private static final SecretKey SECRET_KEY = SecurityConstants.SECRET_KEY;
 
+    /** Request attribute holding the parsed JWT claims, for filters further down the chain */
+    public static final String CLAIMS_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".claims";
+
+    private final TokenRevocationService tokenRevocationService;
+
+    /**
+     * Constructor for JwtAuthenticationFilter.
+     *
+     * @param tokenRevocationService The service that knows the revoked tokens
+     */
+    public JwtAuthenticationFilter(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
     /**
      * Filters incoming requests and applies JWT authentication.
-     * Skips authentication for paths starting with /api/auth.
+     * Skips authentication for the login; a revoked token is rejected like an invalid one.
      *
      * @param request The HTTP request
      * @param response The HTTP response
@@ -49,13 +65,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Log the request path
         logger.debug("JWT FILTER - PATH: {}", request.getRequestURI());
 
-        // Skip filter for auth endpoints
+        // Skip filter for the login, the other auth endpoints check the token themselves
+        // but must not accept a revoked one
         String path = request.getRequestURI();
-        if (path.startsWith("/api/auth")) {
+        if (path.startsWith("/api/auth/login")) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        long authStart = System.nanoTime();
         String jwt = parseJwt(request);
 
         // Log the JWT token
@@ -68,6 +86,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                         .parseClaimsJws(jwt)
                         .getBody();
 
+                if (tokenRevocationService.isRevoked(claims)) {
+                    logger.debug("JWT FILTER - REVOKED: {}", claims.getId());
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    return;
+                }
+
                 // Log successful token decoding
                 logger.debug("JWT FILTER - USER: {}", claims.getSubject());
                 logger.debug("JWT FILTER - ROLE: {}", claims.get("role", String.class));
@@ -80,6 +104,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                 Collections.singleton(new SimpleGrantedAuthority(role))
                         );
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                request.setAttribute(CLAIMS_ATTRIBUTE, claims);
             } catch (Exception e) {
                 logger.debug("JWT FILTER - ERROR: {}", e.getMessage());
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -89,6 +114,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             logger.debug("JWT FILTER - NO TOKEN");
         }
 
+        // Record the time spent on authentication for the slow-request log
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            timings.addAuthNanos(System.nanoTime() - authStart);
+        }
+
         filterChain.doFilter(request, response);
     }
 
@@ -0,0 +1,16 @@
+package contacts.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables background jobs (@Scheduled) and asynchronous event listeners (@Async).
+ * The scheduler has a thread for every job (spring.task.scheduling.pool.size), so a long nightly
+ * run such as the duplicate scan never delays the frequent polls, e.g. of the revoked tokens.
+ */
+@Configuration
+@EnableScheduling
+@EnableAsync
+public class SchedulingConfig {
+}
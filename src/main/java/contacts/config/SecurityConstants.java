@@ -12,4 +12,10 @@ public class SecurityConstants {
             //Use a secure key management solution or environment variable
             //This is just for demonstration purposes
     );
+
+    /** Lifetime of a login token */
+    public static final long TOKEN_VALIDITY_SECONDS = 24 * 60 * 60;
+
+    /** Claim with the issue time of a token in epoch milliseconds; the standard one has whole seconds */
+    public static final String ISSUED_AT_MILLIS_CLAIM = "iatMs";
 }
@@ -0,0 +1,72 @@
+package contacts.controller;
+
+import contacts.audit.AuditEntry;
+import contacts.audit.AuditLogReader;
+import contacts.util.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * REST controller for searching the audit log. Admin only.
+ */
+@RestController
+@RequestMapping("/api/audit")
+@ConditionalOnProperty(prefix = "contacts.audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AuditController {
+
+    /** Maximum number of entries returned by one search */
+    public static final int MAX_LIMIT = 1000;
+
+    private final AuditLogReader auditLogReader;
+
+    /**
+     * Constructor for AuditController.
+     *
+     * @param auditLogReader The reader of the audit log
+     */
+    public AuditController(AuditLogReader auditLogReader) {
+        this.auditLogReader = auditLogReader;
+    }
+
+    /**
+     * Search the audit log by contact or by user, newest entries first.
+     * Exactly one of contactId and userId must be given. With userId, the changes of the user
+     * and of its contacts are returned, and with actor also every change made by that username.
+     *
+     * @param contactId The ID of a contact
+     * @param userId The ID of a user
+     * @param actor The username of the user, optional with userId
+     * @param limit Maximum number of entries
+     * @param request The HTTP request containing authentication information
+     * @return The matching entries, 400 if the parameters are invalid, or 403 if the user is not an admin
+     * @throws IOException if the audit log cannot be read
+     */
+    @GetMapping
+    public ResponseEntity<?> searchAuditLog(@RequestParam(required = false) Long contactId,
+                                            @RequestParam(required = false) Long userId,
+                                            @RequestParam(required = false) String actor,
+                                            @RequestParam(defaultValue = "100") int limit,
+                                            HttpServletRequest request) throws IOException {
+        if (!"ROLE_ADMIN".equals(JwtUtils.getRoleFromToken(request))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can read the audit log");
+        }
+        if ((contactId == null) == (userId == null) || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest()
+                    .body("Exactly one of contactId or userId is required, and limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        List<AuditEntry> entries = contactId != null
+                ? auditLogReader.findByContactId(contactId, limit)
+                : auditLogReader.findByUser(userId, actor, limit);
+        return ResponseEntity.ok(entries);
+    }
+}
@@ -5,13 +5,17 @@ import contacts.domain.User;
 import contacts.dto.UserListDTO;
 import contacts.dto.UserRequestDTO;
 import contacts.repository.UserRepository;
+import contacts.service.TokenRevocationService;
+import contacts.service.UserIdentityCache;
 import contacts.service.UserService;
 import contacts.util.JwtUtils;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -29,14 +34,19 @@ public class AuthController {
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
     private final UserService userService;
+    private final UserIdentityCache userIdentityCache;
+    private final TokenRevocationService tokenRevocationService;
 
     private final SecretKey SECRET_KEY = SecurityConstants.SECRET_KEY;
 
     @Autowired
-    public AuthController(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, UserService userService) {
+    public AuthController(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, UserService userService,
+                          UserIdentityCache userIdentityCache, TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.userService = userService;
+        this.userIdentityCache = userIdentityCache;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -59,12 +69,20 @@ public class AuthController {
                 throw new RuntimeException("Invalid credentials");
             }
 
+            // The password check needs the row anyway; keep the identity for the requests that follow
+            userIdentityCache.put(user);
+
+            // The ID lets a single token be revoked on logout, the issue time in milliseconds
+            // keeps a login right after a password change clear of the revocation watermark
+            long issuedAt = System.currentTimeMillis();
             String jwt = Jwts.builder()
+                    .setId(UUID.randomUUID().toString())
                     .setSubject(username)
                     .claim("role", user.getRole())
                     .claim("userId", user.getId())
-                    .setIssuedAt(new Date())
-                    .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // 1 day
+                    .claim(SecurityConstants.ISSUED_AT_MILLIS_CLAIM, issuedAt)
+                    .setIssuedAt(new Date(issuedAt))
+                    .setExpiration(new Date(issuedAt + SecurityConstants.TOKEN_VALIDITY_SECONDS * 1000))
                     .signWith(SignatureAlgorithm.HS256, SECRET_KEY)
                     .compact();
             Map<String, Object> result = new HashMap<>();
@@ -78,6 +96,22 @@ public class AuthController {
         }
     }
 
+    /**
+     * Revoke the token of the request, so it cannot be used again.
+     *
+     * @param request HTTP request carrying the token
+     * @return 204 No Content, or 401 without a valid token
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(HttpServletRequest request) {
+        Claims claims = JwtUtils.getClaimsFromToken(request);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        tokenRevocationService.revokeToken(claims);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Create a new user (admin only)
      * @param userDTO User data
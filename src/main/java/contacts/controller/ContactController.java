@@ -2,18 +2,36 @@ package contacts.controller;
 
 import contacts.domain.Contact;
 import contacts.dto.ContactListDTO;
+import contacts.dto.ContactListFilterDTO;
+import contacts.dto.ContactLookupRequestDTO;
+import contacts.dto.ContactLookupResponseDTO;
 import contacts.dto.ContactRequestDTO;
+import contacts.dto.ContactSyncResponseDTO;
+import contacts.dto.DuplicateCandidateDTO;
+import contacts.service.ContactBirthdayService;
+import contacts.service.ContactChangeFeedService;
+import contacts.service.ContactDeduplicationService;
+import contacts.service.ContactListQueryService;
+import contacts.service.ContactLookupService;
 import contacts.service.ContactService;
+import contacts.service.ContactStreamingService;
+import contacts.service.ContactSyncService;
 import contacts.util.JwtUtils;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
 import java.util.List;
 
 import contacts.config.SecurityConstants;
@@ -27,15 +45,46 @@ import contacts.config.SecurityConstants;
 public class ContactController {
 
     private static final Logger logger = LoggerFactory.getLogger(ContactController.class);
+
+    /** Maximum number of birthdays returned by one request */
+    static final int MAX_BIRTHDAYS = 1000;
+
     private final ContactService contactService;
+    private final ContactLookupService contactLookupService;
+    private final ContactDeduplicationService contactDeduplicationService;
+    private final ContactStreamingService contactStreamingService;
+    private final ContactChangeFeedService contactChangeFeedService;
+    private final ContactSyncService contactSyncService;
+    private final ContactBirthdayService contactBirthdayService;
+    private final ContactListQueryService contactListQueryService;
 
     /**
      * Constructor for ContactController.
      *
      * @param contactService The service for contact operations
+     * @param contactLookupService The service for identifier lookups
+     * @param contactDeduplicationService The service for duplicate detection
+     * @param contactStreamingService The service for streaming contact lists
+     * @param contactChangeFeedService The service for the contact change feed
+     * @param contactSyncService The service for delta syncs
+     * @param contactBirthdayService The service for upcoming birthdays
+     * @param contactListQueryService The service for the filtered contact list
      */
-    public ContactController(ContactService contactService) {
+    public ContactController(ContactService contactService, ContactLookupService contactLookupService,
+                             ContactDeduplicationService contactDeduplicationService,
+                             ContactStreamingService contactStreamingService,
+                             ContactChangeFeedService contactChangeFeedService,
+                             ContactSyncService contactSyncService,
+                             ContactBirthdayService contactBirthdayService,
+                             ContactListQueryService contactListQueryService) {
         this.contactService = contactService;
+        this.contactLookupService = contactLookupService;
+        this.contactDeduplicationService = contactDeduplicationService;
+        this.contactStreamingService = contactStreamingService;
+        this.contactChangeFeedService = contactChangeFeedService;
+        this.contactSyncService = contactSyncService;
+        this.contactBirthdayService = contactBirthdayService;
+        this.contactListQueryService = contactListQueryService;
     }
 
     /**
@@ -90,29 +139,48 @@ public class ContactController {
     /**
      * Get a list of contacts based on user role and ID.
      * Admin users can see all contacts, regular users see only their contacts.
+     * With any filter, sort or page parameter, one page of the matching contacts is returned
+     * instead of the whole list; combinations that no index answers are rejected with 400.
      *
+     * @param filter Optional filter, sort and page parameters
      * @param request The HTTP request containing authentication information
      * @return List of contacts as DTOs
      */
     @GetMapping("/list")
-    public List<ContactListDTO> getContactList(HttpServletRequest request) {
+    public List<ContactListDTO> getContactList(ContactListFilterDTO filter, HttpServletRequest request) {
         // Extract user ID and role from JWT token
         Long userId = getUserIdFromToken(request);
         String role = getRoleFromToken(request);
 
         logger.debug("userId = {}, role = {}", userId, role);
 
+        if (filter.hasCriteria()) {
+            if (role != null && role.equals("ROLE_ADMIN")) {
+                return contactListQueryService.findContacts(filter);
+            }
+            if (userId != null) {
+                // Regular users only filter their own contacts
+                filter.setOwnerId(userId);
+                return contactListQueryService.findContacts(filter);
+            }
+            return List.of();
+        }
+
         // If user is admin, return all contacts
         if (role != null && role.equals("ROLE_ADMIN")) {
             List<ContactListDTO> allContacts = contactService.getAllContactsAsList();
-            logger.debug("returning all contacts, count = {}", allContacts.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug("returning all contacts, count = {}", allContacts.size());
+            }
             return allContacts;
         }
 
         // If we have a userId, get contacts for that user
         if (userId != null) {
             List<ContactListDTO> userContacts = contactService.getContactListByUserId(userId);
-            logger.debug("returning user contacts, count = {}", userContacts.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug("returning user contacts, count = {}", userContacts.size());
+            }
             return userContacts;
         }
 
@@ -121,6 +189,230 @@ public class ContactController {
         return List.of();
     }
 
+    /**
+     * Stream the same contacts as /list, as newline-delimited JSON with one contact per line.
+     * The response is written on an async thread in pages, at the pace the client reads it,
+     * so arbitrarily large lists need neither a request thread nor memory for the whole list.
+     *
+     * @param request The HTTP request containing authentication information
+     * @return The contact stream
+     */
+    @GetMapping(value = "/list/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamContactList(HttpServletRequest request) {
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        String role = getRoleFromToken(request);
+
+        StreamingResponseBody body;
+        if (role != null && role.equals("ROLE_ADMIN")) {
+            body = output -> contactStreamingService.writeContacts(null, output);
+        } else if (userId != null) {
+            body = output -> contactStreamingService.writeContacts(userId, output);
+        } else {
+            body = output -> { };
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Get the contacts changed and deleted since the previous sync.
+     * Without a token, every contact is returned. Admin users sync every contact,
+     * regular users only their own.
+     *
+     * @param since The token returned by the previous sync, omitted for a full sync
+     * @param limit Maximum number of changes to return
+     * @param request The HTTP request containing authentication information
+     * @return The changes and the token for the next sync, 400 if the token is invalid,
+     *         or 410 if it is too old and a full sync is required
+     */
+    @GetMapping("/sync")
+    public ContactSyncResponseDTO syncContacts(@RequestParam(required = false) String since,
+                                               @RequestParam(defaultValue = "500") int limit,
+                                               HttpServletRequest request) {
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+
+        return contactSyncService.sync(userId, admin, since, limit);
+    }
+
+    /**
+     * Subscribe to the contact changes as Server-Sent Events.
+     * Every created, updated or deleted contact is sent as a "contact" event once its
+     * transaction has committed. Admin users receive the changes of every contact,
+     * regular users only of their own.
+     *
+     * @param request The HTTP request containing authentication information
+     * @return The event stream, or 503 if too many connections are open
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToChanges(HttpServletRequest request) {
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+        if (!admin && userId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SseEmitter emitter = contactChangeFeedService.subscribe(userId, admin);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "30").build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    }
+
+    /**
+     * Find contacts by an exact identifier.
+     * Exactly one of the identifier parameters must be given.
+     * Admin users search all contacts, regular users only their own.
+     *
+     * @param phone Phone number, in any accepted format
+     * @param email Email address, case-insensitive
+     * @param taj TAJ number
+     * @param taxId Tax ID
+     * @param request The HTTP request containing authentication information
+     * @return The matching contacts, or 400 if not exactly one identifier is given
+     */
+    @GetMapping("/lookup")
+    public ResponseEntity<?> lookupContacts(
+            @RequestParam(required = false) String phone,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String taj,
+            @RequestParam(required = false) String taxId,
+            HttpServletRequest request) {
+        int given = (phone != null ? 1 : 0) + (email != null ? 1 : 0) + (taj != null ? 1 : 0) + (taxId != null ? 1 : 0);
+        if (given != 1) {
+            return ResponseEntity.badRequest().body("Exactly one of phone, email, taj or taxId is required");
+        }
+
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+
+        if (phone != null) {
+            return ResponseEntity.ok(contactLookupService.findByPhoneNumber(phone, userId, admin));
+        }
+        if (email != null) {
+            return ResponseEntity.ok(contactLookupService.findByEmail(email, userId, admin));
+        }
+        if (taj != null) {
+            return ResponseEntity.ok(contactLookupService.findByTajNumber(taj, userId, admin));
+        }
+        return ResponseEntity.ok(contactLookupService.findByTaxId(taxId, userId, admin));
+    }
+
+    /**
+     * Resolve many identifiers to contacts in one call.
+     * Admin users search all contacts, regular users only their own.
+     *
+     * @param dto The identifiers to resolve
+     * @param request The HTTP request containing authentication information
+     * @return The matching contacts for each requested identifier
+     */
+    @PostMapping("/lookup")
+    public ContactLookupResponseDTO lookupContactsBatch(@RequestBody ContactLookupRequestDTO dto,
+                                                        HttpServletRequest request) {
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+
+        return contactLookupService.lookup(dto, userId, admin);
+    }
+
+    /**
+     * Get the detected duplicate contact pairs, most similar first.
+     * Admin users see the pairs of every user, regular users only their own.
+     *
+     * @param limit Maximum number of pairs to return
+     * @param request The HTTP request containing authentication information
+     * @return List of duplicate pairs
+     */
+    @GetMapping("/duplicates")
+    public List<DuplicateCandidateDTO> getDuplicates(@RequestParam(defaultValue = "100") int limit,
+                                                     HttpServletRequest request) {
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+
+        return contactDeduplicationService.getDuplicateCandidates(userId, admin, limit);
+    }
+
+    /**
+     * Start a full duplicate scan over all contacts in the background.
+     * Only admin users can start a scan.
+     *
+     * @param request The HTTP request containing authentication information
+     * @return 202 Accepted, or 403 if the user is not an admin
+     */
+    @PostMapping("/duplicates/scan")
+    public ResponseEntity<Void> scanDuplicates(HttpServletRequest request) {
+        if (!"ROLE_ADMIN".equals(getRoleFromToken(request))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        contactDeduplicationService.requestFullScan();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Get the contacts with a birthday in the next days, soonest first.
+     * Admin users see the birthdays of every user's contacts, regular users only their own.
+     *
+     * @param days Number of days after today to include, 0 for today only
+     * @param limit Maximum number of birthdays to return
+     * @param request The HTTP request containing authentication information
+     * @return The birthdays, or 400 if days or limit is out of range
+     */
+    @GetMapping("/birthdays")
+    public ResponseEntity<?> getUpcomingBirthdays(@RequestParam(defaultValue = "7") int days,
+                                                  @RequestParam(defaultValue = "100") int limit,
+                                                  HttpServletRequest request) {
+        if (days < 0 || days > ContactBirthdayService.MAX_DAYS || limit < 1 || limit > MAX_BIRTHDAYS) {
+            return ResponseEntity.badRequest().body("days must be between 0 and " + ContactBirthdayService.MAX_DAYS
+                    + ", limit between 1 and " + MAX_BIRTHDAYS);
+        }
+        // Extract user ID and role from JWT token
+        Long userId = getUserIdFromToken(request);
+        boolean admin = "ROLE_ADMIN".equals(getRoleFromToken(request));
+        if (!admin && userId == null) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        return ResponseEntity.ok(contactBirthdayService.getUpcomingBirthdays(admin ? null : userId, days, limit));
+    }
+
+    /**
+     * Stream the birthdays of every user's contacts in a window of days as newline-delimited JSON,
+     * ordered by owner, for the daily reminder job. A job that was interrupted can continue after
+     * the last owner it finished with afterUserId. Admin only.
+     *
+     * @param date The first day of the window, today if omitted
+     * @param days Number of days after the first day to include, 0 for that day only
+     * @param afterUserId Only the birthdays of owners with a greater ID are written
+     * @param request The HTTP request containing authentication information
+     * @return The birthday stream, 400 if days is out of range, or 403 if the user is not an admin
+     */
+    @GetMapping(value = "/birthdays/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamBirthdays(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "0") int days,
+            @RequestParam(defaultValue = "0") long afterUserId,
+            HttpServletRequest request) {
+        if (!"ROLE_ADMIN".equals(getRoleFromToken(request))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (days < 0 || days > ContactBirthdayService.MAX_DAYS) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalDate from = date != null ? date : LocalDate.now();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(output -> contactStreamingService.writeBirthdays(from, days, afterUserId, output));
+    }
+
     /**
      * Create a new contact for the authenticated user.
      *
@@ -189,9 +481,9 @@ public class ContactController {
      * @return The user ID or null if not found or token is invalid
      */
     private Long getUserIdFromToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        logger.debug("ContactController.getUserIdFromToken: authHeader = {}", 
-            (authHeader != null ? authHeader.substring(0, Math.min(20, authHeader.length())) + "..." : "null"));
+        if (logger.isDebugEnabled()) {
+            logger.debug("ContactController.getUserIdFromToken: authHeader = {}", abbreviateAuthHeader(request));
+        }
 
         Long userId = JwtUtils.getUserIdFromToken(request);
         logger.debug("ContactController.getUserIdFromToken: extracted userId = {}", userId);
@@ -205,12 +497,23 @@ public class ContactController {
      * @return The user role or null if not found or token is invalid
      */
     private String getRoleFromToken(HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        logger.debug("ContactController.getRoleFromToken: authHeader = {}", 
-            (authHeader != null ? authHeader.substring(0, Math.min(20, authHeader.length())) + "..." : "null"));
+        if (logger.isDebugEnabled()) {
+            logger.debug("ContactController.getRoleFromToken: authHeader = {}", abbreviateAuthHeader(request));
+        }
 
         String role = JwtUtils.getRoleFromToken(request);
         logger.debug("ContactController.getRoleFromToken: extracted role = {}", role);
         return role;
     }
+
+    /**
+     * Shortens the Authorization header for debug logging, so the full token is never logged.
+     *
+     * @param request The HTTP request
+     * @return The first 20 characters of the header followed by "...", or "null"
+     */
+    private static String abbreviateAuthHeader(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        return authHeader != null ? authHeader.substring(0, Math.min(20, authHeader.length())) + "..." : "null";
+    }
 }
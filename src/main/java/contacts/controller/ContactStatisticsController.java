@@ -0,0 +1,69 @@
+package contacts.controller;
+
+import contacts.dto.ContactStatisticsDTO;
+import contacts.service.ContactStatisticsService;
+import contacts.util.JwtUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the contact statistics. The counts are read from summary tables, so
+ * every request takes the same time however many contacts there are. They lag behind the
+ * contact changes by a few seconds.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class ContactStatisticsController {
+
+    private final ContactStatisticsService statisticsService;
+
+    /**
+     * Constructor for ContactStatisticsController.
+     *
+     * @param statisticsService The service for the contact statistics
+     */
+    public ContactStatisticsController(ContactStatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    /**
+     * Get the total number of contacts, the numbers per birth decade, and the users and
+     * cities with the most contacts. Admin only.
+     *
+     * @param limit The number of users and cities in the top lists
+     * @param request The HTTP request containing authentication information
+     * @return The statistics, 400 if the limit is invalid, or 403 if the user is not an admin
+     */
+    @GetMapping
+    public ResponseEntity<?> getStatistics(@RequestParam(defaultValue = "10") int limit, HttpServletRequest request) {
+        if (!"ROLE_ADMIN".equals(JwtUtils.getRoleFromToken(request))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can read the contact statistics");
+        }
+        if (limit < 1 || limit > ContactStatisticsService.MAX_TOP) {
+            return ResponseEntity.badRequest().body("limit must be between 1 and " + ContactStatisticsService.MAX_TOP);
+        }
+        return ResponseEntity.ok(statisticsService.getStatistics(limit));
+    }
+
+    /**
+     * Get the number of contacts of a user. Users can read their own count, admins any.
+     *
+     * @param userId The ID of the user
+     * @param request The HTTP request containing authentication information
+     * @return The count, or 403 if the user may not read it
+     */
+    @GetMapping("/users/{userId}")
+    public ResponseEntity<?> getUserStatistics(@PathVariable Long userId, HttpServletRequest request) {
+        if (!"ROLE_ADMIN".equals(JwtUtils.getRoleFromToken(request))
+                && !userId.equals(JwtUtils.getUserIdFromToken(request))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Users can only read their own contact statistics");
+        }
+        return ResponseEntity.ok(new ContactStatisticsDTO.UserCount(userId, statisticsService.getContactCount(userId)));
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,6 +34,13 @@ public class Contact {
 
     private String email;
 
+    // Maintained by database triggers, also when only a phone number or address changes
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+
     @ManyToOne
     @com.fasterxml.jackson.annotation.JsonBackReference
     @JoinColumn(name = "user_id")
@@ -0,0 +1,34 @@
+package contacts.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A blocking key of a contact. Contacts of the same user that share a key are in the
+ * same bucket and are compared with each other during duplicate detection.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class ContactBlockingKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long contactId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String blockingKey;
+
+    public ContactBlockingKey(Long contactId, Long userId, String blockingKey) {
+        this.contactId = contactId;
+        this.userId = userId;
+        this.blockingKey = blockingKey;
+    }
+}
@@ -0,0 +1,34 @@
+package contacts.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A contact change waiting in the outbox to be delivered to downstream systems.
+ * The payload is the change as JSON, the other columns let consumers route it without parsing.
+ */
+@Entity
+@Table(name = "contact_outbox")
+@Data
+public class ContactOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long contactId;
+
+    private Long userId;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
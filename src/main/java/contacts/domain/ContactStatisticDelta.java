@@ -0,0 +1,37 @@
+package contacts.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change to one contact count, waiting to be folded into the contact_statistic table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+public class ContactStatisticDelta {
+
+    /** What the contacts are counted by */
+    public enum Dimension { USER, CITY, BIRTH_DECADE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dimension dimension;
+
+    @Column(nullable = false)
+    private String bucket;
+
+    @Column(nullable = false)
+    private int delta;
+
+    public ContactStatisticDelta(Dimension dimension, String bucket, int delta) {
+        this.dimension = dimension;
+        this.bucket = bucket;
+        this.delta = delta;
+    }
+}
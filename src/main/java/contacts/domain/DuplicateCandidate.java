@@ -0,0 +1,34 @@
+package contacts.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pair of contacts of the same user that are probably the same person.
+ * The pair is stored once, with contactId lower than otherContactId.
+ */
+@Entity
+@Data
+public class DuplicateCandidate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long contactId;
+
+    @Column(nullable = false)
+    private Long otherContactId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(nullable = false)
+    private LocalDateTime detectedAt;
+}
@@ -18,4 +18,7 @@ public class PhoneNumber {
 
     @Column(nullable = false)
     private String phoneNumber;
+
+    // Canonical E.164 form of phoneNumber, used for lookups
+    private String normalizedNumber;
 }
@@ -0,0 +1,30 @@
+package contacts.domain;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * A revoked login token, or all tokens of a user issued before a point in time.
+ * The expiry is in epoch seconds, like the claims of the token; the watermark is in epoch milliseconds.
+ */
+@Entity
+@Data
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private String jti;             // the revoked token, or null for all tokens of the user
+
+    private Long issuedBefore;      // tokens of the user issued before this epoch millisecond are revoked
+
+    @Column(nullable = false)
+    private Long expiresAt;         // the revoked tokens have all expired by then
+
+    @Column(insertable = false, updatable = false)
+    private Long rowVersion;        // set by the database
+}
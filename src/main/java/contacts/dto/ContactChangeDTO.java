@@ -0,0 +1,18 @@
+package contacts.dto;
+
+import contacts.event.ContactChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A contact change as sent on the change feed. The contact is null for deletions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactChangeDTO {
+    private ContactChangedEvent.Type type;
+    private Long contactId;
+    private ContactListDTO contact;
+}
@@ -0,0 +1,34 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filter, sort and page of the contact list, bound from the query parameters of /api/contacts/list.
+ * The last name range includes lastNameFrom and excludes lastNameTo, so "K" to "L" are the names
+ * starting with K. The next page starts after the ID, and for a last name sort the last name, of
+ * the last contact of the previous page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactListFilterDTO {
+    private Long ownerId;
+    private String city;
+    private String zipCode;
+    private String lastNameFrom;
+    private String lastNameTo;
+    private String sort;            // "id" or "lastName", optionally followed by ",asc" or ",desc"
+    private Long afterId;
+    private String afterLastName;
+    private Integer limit;
+
+    /**
+     * @return Whether any filter, sort or page parameter is given
+     */
+    public boolean hasCriteria() {
+        return ownerId != null || city != null || zipCode != null || lastNameFrom != null || lastNameTo != null
+                || sort != null || afterId != null || afterLastName != null || limit != null;
+    }
+}
@@ -0,0 +1,17 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactLookupRequestDTO {
+    private List<String> phoneNumbers;
+    private List<String> emails;
+    private List<String> tajNumbers;
+    private List<String> taxIds;
+}
@@ -0,0 +1,23 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a batched contact lookup.
+ * Each map is keyed by the identifier exactly as it was sent in the request;
+ * identifiers without a visible match map to an empty list.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactLookupResponseDTO {
+    private Map<String, List<ContactListDTO>> phoneNumbers;
+    private Map<String, List<ContactListDTO>> emails;
+    private Map<String, List<ContactListDTO>> tajNumbers;
+    private Map<String, List<ContactListDTO>> taxIds;
+}
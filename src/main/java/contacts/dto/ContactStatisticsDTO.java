@@ -0,0 +1,38 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contact counts for the dashboards: the total, the counts per birth decade ("1980", ...,
+ * "unknown" without a birth date), and the users and cities with the most contacts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactStatisticsDTO {
+    private long totalContacts;
+    private Map<String, Long> contactsByBirthDecade;
+    private List<UserCount> topUsers;
+    private List<CityCount> topCities;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserCount {
+        private Long userId;
+        private long contactCount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CityCount {
+        private String city;
+        private long contactCount;
+    }
+}
@@ -0,0 +1,23 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a delta sync: the contacts created or updated and the IDs of the contacts
+ * deleted since the previous token. A contact can appear again in the next sync, applying
+ * a change twice is harmless. If hasMore is true, the client requests the next page with
+ * the returned token right away.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContactSyncResponseDTO {
+    private List<ContactListDTO> changed;
+    private List<Long> deleted;
+    private String token;
+    private boolean hasMore;
+}
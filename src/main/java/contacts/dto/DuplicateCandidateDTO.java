@@ -0,0 +1,20 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pair of contacts that are probably the same person, with a similarity score between 0 and 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCandidateDTO {
+    private Long contactId;
+    private Long otherContactId;
+    private double score;
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,25 @@
+package contacts.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * A contact's next birthday. Contacts born on February 29 have their birthday on
+ * February 28 in other years.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpcomingBirthdayDTO {
+    private Long contactId;
+    private Long userId;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private LocalDate birthDate;
+    private LocalDate nextBirthday;
+    private int age;             // age on the next birthday
+}
@@ -0,0 +1,23 @@
+package contacts.event;
+
+import contacts.dto.ContactListDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published by ContactService whenever a contact is created, updated or deleted.
+ * Carries detached DTO snapshots, so listeners can use them outside the
+ * transaction that made the change.
+ */
+@Data
+@AllArgsConstructor
+public class ContactChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private Type type;
+    private Long contactId;
+    private Long userId;            // owner of the contact, may be null
+    private ContactListDTO previous; // null for CREATED
+    private ContactListDTO current;  // null for DELETED
+}
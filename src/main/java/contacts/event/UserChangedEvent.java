@@ -0,0 +1,23 @@
+package contacts.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Published by UserService whenever a user is created, updated or deleted.
+ * Never carries the password, only whether it was changed.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private Type type;
+    private Long userId;
+    private String username;
+    private String role;
+    private List<String> changedFields; // e.g. "username", "password", "role"; empty for CREATED and DELETED
+}
@@ -0,0 +1,30 @@
+package contacts.exception;
+
+/**
+ * Thrown when a contact would get a TAJ number or tax ID that another contact already has.
+ */
+public class DuplicateContactException extends RuntimeException {
+
+    private final String field;
+    private final String value;
+
+    /**
+     * Constructor for DuplicateContactException.
+     *
+     * @param field The name of the conflicting field, e.g. "taxId"
+     * @param value The conflicting value
+     */
+    public DuplicateContactException(String field, String value) {
+        super("A contact with this " + field + " already exists");
+        this.field = field;
+        this.value = value;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -64,6 +65,64 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    /**
+     * Handles a TAJ number or tax ID that is already used by another contact.
+     * This is an expected outcome during imports, so it is logged without a stack trace.
+     *
+     * @param ex The exception thrown by the uniqueness check
+     * @param request The web request during which the exception was thrown
+     * @return 409 Conflict with the message and the conflicting field
+     */
+    @ExceptionHandler(DuplicateContactException.class)
+    public ResponseEntity<Object> handleDuplicateContactException(DuplicateContactException ex, WebRequest request) {
+        logger.warn("Duplicate contact rejected: {} {}", ex.getField(), ex.getValue());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", ex.getMessage());
+        body.put("error", "Conflict");
+        body.put("field", ex.getField());
+        body.put("value", ex.getValue());
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handles a sync token that is too old to compute a delta from.
+     *
+     * @param ex The exception thrown by the sync service
+     * @param request The web request during which the exception was thrown
+     * @return 410 Gone, the client has to sync again without a token
+     */
+    @ExceptionHandler(SyncTokenExpiredException.class)
+    public ResponseEntity<Object> handleSyncTokenExpiredException(SyncTokenExpiredException ex, WebRequest request) {
+        logger.info("Expired sync token rejected");
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", ex.getMessage());
+        body.put("error", "Gone");
+
+        return new ResponseEntity<>(body, HttpStatus.GONE);
+    }
+
+    /**
+     * Handles writes rejected by a database constraint, e.g. a unique index hit by
+     * concurrent inserts that both passed the uniqueness check.
+     *
+     * @param ex The exception thrown by the database
+     * @param request The web request during which the exception was thrown
+     * @return 409 Conflict
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException ex, WebRequest request) {
+        logger.warn("Data integrity violation: {}", ex.getMostSpecificCause().getMessage());
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "The request conflicts with existing data");
+        body.put("error", "Conflict");
+
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles RuntimeException and its subclasses.
      * 
@@ -0,0 +1,15 @@
+package contacts.exception;
+
+/**
+ * Thrown when a sync token is older than the tombstone retention, so the deletions since the
+ * token may already be forgotten. The client has to start over with a full sync.
+ */
+public class SyncTokenExpiredException extends RuntimeException {
+
+    /**
+     * Constructor for SyncTokenExpiredException.
+     */
+    public SyncTokenExpiredException() {
+        super("The sync token has expired, a full sync is required");
+    }
+}
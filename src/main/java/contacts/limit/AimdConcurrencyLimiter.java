@@ -0,0 +1,87 @@
+package contacts.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limiter whose limit adapts with additive increase / multiplicative decrease (AIMD).
+ *
+ * A request is admitted while fewer than limit requests are in flight, otherwise it is
+ * rejected at once instead of queueing. Every completed request adjusts the limit: a request
+ * that was slower than the latency threshold, or failed with a server error, shrinks the limit
+ * by the backoff ratio; a fast request grows it by one while at least half of the limit is in
+ * use. The limit therefore settles near the concurrency the backend can serve within the threshold.
+ */
+public class AimdConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor for AimdConcurrencyLimiter.
+     *
+     * @param initialLimit The limit to start with
+     * @param minLimit The limit never drops below this
+     * @param maxLimit The limit never grows above this
+     * @param latencyThresholdMillis Requests slower than this count as a sign of overload
+     */
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000L;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    /**
+     * Try to admit a request.
+     *
+     * @return true if the request may proceed; it must then call {@link #release(long, boolean)} exactly once
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request and adjust the limit.
+     *
+     * @param latencyNanos How long the request took
+     * @param failed Whether the request failed in a way that indicates overload
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            limit.updateAndGet(current -> Math.max(minLimit, (int) (current * BACKOFF_RATIO)));
+        } else {
+            // Only grow when the limit is actually being used
+            limit.updateAndGet(current -> inFlightBefore * 2 >= current ? Math.min(maxLimit, current + 1) : current);
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,139 @@
+package contacts.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Filter that limits the number of concurrent requests per {@link EndpointClass}.
+ * Requests over the limit are rejected with 503 and a Retry-After header before they reach
+ * the security filter chain or the database pool. The limits adapt to the observed latency,
+ * see {@link AimdConcurrencyLimiter}.
+ *
+ * Exposes the metrics contacts.concurrency.limit, contacts.concurrency.in-flight and
+ * contacts.concurrency.rejected, tagged with the endpoint class.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(prefix = "contacts.limit.concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private static final String REJECTED_BODY =
+            "{\"message\":\"The server is busy, please retry later\",\"error\":\"Service Unavailable\"}";
+
+    private final Map<EndpointClass, AimdConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejectedCounters = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Constructor for ConcurrencyLimitFilter.
+     *
+     * @param meterRegistry Registry for the limit metrics
+     */
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(endpointClass.getInitialLimit(),
+                    endpointClass.getMinLimit(), endpointClass.getMaxLimit(), endpointClass.getLatencyThresholdMillis());
+            String tag = endpointClass.name().toLowerCase();
+            limiters.put(endpointClass, limiter);
+            Gauge.builder("contacts.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                    .tag("class", tag).register(meterRegistry);
+            Gauge.builder("contacts.concurrency.in-flight", limiter, AimdConcurrencyLimiter::getInFlight)
+                    .tag("class", tag).register(meterRegistry);
+            rejectedCounters.put(endpointClass, Counter.builder("contacts.concurrency.rejected")
+                    .tag("class", tag).register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Health checks must answer even when the application is saturated, and the change
+        // feed holds its connection open for minutes without using the database
+        String uri = request.getRequestURI();
+        return uri.startsWith("/actuator") || uri.equals("/api/contacts/changes");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = EndpointClass.of(request);
+        AimdConcurrencyLimiter limiter = limiters.get(endpointClass);
+        if (!limiter.tryAcquire()) {
+            rejectedCounters.get(endpointClass).increment();
+            logger.debug("{} request rejected, limit = {}", endpointClass, limiter.getLimit());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean released = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streaming responses keep their permit until the response is complete
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limiter, start, response));
+                released = true;
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            limiter.release(System.nanoTime() - start, true);
+            released = true;
+            throw e;
+        } finally {
+            if (!released) {
+                limiter.release(System.nanoTime() - start, response.getStatus() >= 500);
+            }
+        }
+    }
+
+    /**
+     * @param endpointClass The endpoint class
+     * @return The limiter of the endpoint class
+     */
+    AimdConcurrencyLimiter getLimiter(EndpointClass endpointClass) {
+        return limiters.get(endpointClass);
+    }
+
+    private record ReleaseOnComplete(AimdConcurrencyLimiter limiter, long start, HttpServletResponse response)
+            implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release(System.nanoTime() - start, response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
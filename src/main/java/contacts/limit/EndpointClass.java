@@ -0,0 +1,79 @@
+package contacts.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Groups of endpoints that get separate concurrency limits, so a flood of one kind of
+ * request cannot use up the capacity that the others need.
+ * Each class starts at its initial limit and adapts between its minimum and maximum.
+ */
+public enum EndpointClass {
+
+    /** Whole-table reads like /api/contacts/list, /api/contacts/birthdays/stream or /api/auth/users */
+    BULK_READ(4, 1, 16, 2_000),
+    /** Single-contact reads and lookups */
+    INTERACTIVE_READ(32, 4, 128, 250),
+    /** Creates, updates and deletes */
+    WRITE(16, 2, 64, 500),
+    /** Login, which spends most of its time in BCrypt */
+    LOGIN(8, 2, 32, 1_000);
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdMillis;
+
+    EndpointClass(int initialLimit, int minLimit, int maxLimit, long latencyThresholdMillis) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdMillis = latencyThresholdMillis;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public long getLatencyThresholdMillis() {
+        return latencyThresholdMillis;
+    }
+
+    /**
+     * Determine the class of a request from its method and path.
+     *
+     * @param request The HTTP request
+     * @return The endpoint class
+     */
+    public static EndpointClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+
+        if (path.equals("/api/auth/login")) {
+            return LOGIN;
+        }
+        if (path.equals("/api/contacts/lookup") && "POST".equals(method)) {
+            // Batched lookups only read, but can resolve a thousand identifiers at once
+            return BULK_READ;
+        }
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        if (path.equals("/api/contacts") || path.startsWith("/api/contacts/list")
+                || path.equals("/api/contacts/duplicates") || path.equals("/api/auth/users")) {
+            return BULK_READ;
+        }
+        if (path.equals("/api/contacts/birthdays/stream")) {
+            // The reminder export of every user's birthdays keeps its permit until the stream is complete
+            return BULK_READ;
+        }
+        return INTERACTIVE_READ;
+    }
+}
@@ -0,0 +1,67 @@
+package contacts.limit;
+
+import contacts.config.JwtAuthenticationFilter;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter that applies the per-user rate limit to authenticated requests.
+ * Added to the security filter chain right after {@link JwtAuthenticationFilter},
+ * whose parsed claims it reuses. Sets the X-RateLimit-Limit, X-RateLimit-Remaining and
+ * X-RateLimit-Reset headers on every limited request, and answers 429 with Retry-After
+ * when the user's quota is used up.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_BODY =
+            "{\"message\":\"Too many requests, please retry later\",\"error\":\"Too Many Requests\"}";
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final Counter rejectedCounter;
+
+    /**
+     * Constructor for RateLimitFilter.
+     *
+     * @param rateLimiter The per-user rate limiter
+     * @param meterRegistry Registry for the rejection counter
+     */
+    public RateLimitFilter(TokenBucketRateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.rejectedCounter = Counter.builder("contacts.rate-limit.rejected").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Claims claims = (Claims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        Number userId = claims != null ? claims.get("userId", Number.class) : null;
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TokenBucketRateLimiter.Decision decision =
+                rateLimiter.tryConsume(userId.longValue(), claims.get("role", String.class));
+        response.setHeader("X-RateLimit-Limit", Integer.toString(decision.limit()));
+        response.setHeader("X-RateLimit-Remaining", Integer.toString(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", Long.toString(decision.resetSeconds()));
+        if (!decision.allowed()) {
+            rejectedCounter.increment();
+            response.setStatus(429);
+            response.setHeader("Retry-After", Long.toString(decision.retryAfterSeconds()));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,41 @@
+package contacts.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-role request quotas for {@link TokenBucketRateLimiter}.
+ * Roles without an entry in quotas get the default quota.
+ */
+@Data
+@ConfigurationProperties(prefix = "contacts.limit.rate")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Maximum number of tracked users; idle users are evicted first */
+    private int maxTrackedUsers = 100_000;
+
+    private Quota defaultQuota = new Quota(20, 40);
+
+    private Map<String, Quota> quotas = new HashMap<>(Map.of("ROLE_ADMIN", new Quota(50, 100)));
+
+    @Data
+    public static class Quota {
+        /** Sustained requests per second */
+        private double ratePerSecond;
+        /** Requests that may be made at once after a quiet period */
+        private int burst;
+
+        public Quota() {
+        }
+
+        public Quota(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package contacts.limit;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user token bucket rate limiter.
+ *
+ * Each bucket is a single AtomicLong holding the "theoretical arrival time" of the generic
+ * cell rate algorithm, which behaves exactly like a token bucket but needs no separate token
+ * count or refill timestamp: a request is allowed when the bucket's time is not further ahead
+ * of now than the burst allows, and takes one emission interval. Checking a request is one map
+ * lookup and one compare-and-set, without locks or allocation for known users.
+ *
+ * A bucket whose time has passed is full again and equivalent to a new one, so such buckets are
+ * evicted periodically, and right away when the map reaches its maximum size.
+ */
+@Component
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class TokenBucketRateLimiter {
+
+    private final RateLimitProperties properties;
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+    // Shared by all users that do not fit into the map, so they are still limited together
+    private final AtomicLong overflowBucket = new AtomicLong();
+
+    /**
+     * Constructor for TokenBucketRateLimiter.
+     *
+     * @param properties The per-role quotas
+     */
+    public TokenBucketRateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * The outcome of a rate limit check, with the values for the rate limit response headers.
+     *
+     * @param allowed Whether the request may proceed
+     * @param limit The burst size of the quota
+     * @param remaining Requests left right now
+     * @param resetSeconds Seconds until the bucket is full again
+     * @param retryAfterSeconds Seconds until the next request would be allowed, 0 if allowed
+     */
+    public record Decision(boolean allowed, int limit, int remaining, long resetSeconds, long retryAfterSeconds) {
+    }
+
+    /**
+     * Take one request from the user's bucket.
+     *
+     * @param userId The ID of the user
+     * @param role The role of the user, selects the quota
+     * @return The decision
+     */
+    public Decision tryConsume(Long userId, String role) {
+        return tryConsume(userId, role, System.nanoTime());
+    }
+
+    Decision tryConsume(Long userId, String role, long now) {
+        RateLimitProperties.Quota quota = role != null
+                ? properties.getQuotas().getOrDefault(role, properties.getDefaultQuota())
+                : properties.getDefaultQuota();
+        long interval = (long) (1_000_000_000L / quota.getRatePerSecond());
+        long tolerance = interval * (quota.getBurst() - 1L);
+
+        AtomicLong bucket = bucketFor(userId, now);
+        while (true) {
+            long arrival = bucket.get();
+            long start = Math.max(arrival, now);
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                long retryAfter = ahead - tolerance;
+                return new Decision(false, quota.getBurst(), 0, toSeconds(ahead), toSeconds(retryAfter));
+            }
+            long next = start + interval;
+            if (bucket.compareAndSet(arrival, next)) {
+                int remaining = (int) ((tolerance - (next - now - interval)) / interval);
+                return new Decision(true, quota.getBurst(), Math.max(0, remaining), toSeconds(next - now), 0);
+            }
+        }
+    }
+
+    /**
+     * Remove the buckets that have refilled completely.
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void evictIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    private AtomicLong bucketFor(Long userId, long now) {
+        AtomicLong bucket = buckets.get(userId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= properties.getMaxTrackedUsers()) {
+            evictIdle(now);
+            if (buckets.size() >= properties.getMaxTrackedUsers()) {
+                return overflowBucket;
+            }
+        }
+        return buckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + 999_999_999L) / 1_000_000_000L;
+    }
+}
@@ -0,0 +1,114 @@
+package contacts.monitoring;
+
+/**
+ * Per-request timing accumulator.
+ * Collects the time spent in authentication, database access and response serialization
+ * for the request currently handled by the calling thread.
+ */
+public class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String uri;
+    private final long startNanos;
+    private String route;
+    private long authNanos;
+    private long dbNanos;
+    private int statementCount;
+    private long serializationStartNanos;
+
+    private RequestTimings(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts collecting timings for a request on the calling thread.
+     *
+     * @param method The HTTP method
+     * @param uri The request URI
+     * @return The new timing accumulator
+     */
+    public static RequestTimings start(String method, String uri) {
+        RequestTimings timings = new RequestTimings(method, uri);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Returns the timings of the request handled by the calling thread.
+     *
+     * @return The current timings or null if the thread is not handling a request
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops collecting timings on the calling thread.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Describes the endpoint handled by the calling thread, for log lines.
+     *
+     * @return "METHOD /route" or the thread name outside of a request
+     */
+    public static String currentEndpoint() {
+        RequestTimings timings = CURRENT.get();
+        return timings != null ? timings.getEndpoint() : "[" + Thread.currentThread().getName() + "]";
+    }
+
+    public void addAuthNanos(long nanos) {
+        authNanos += nanos;
+    }
+
+    public void addStatement(long nanos) {
+        dbNanos += nanos;
+        statementCount++;
+    }
+
+    public void markSerializationStart() {
+        if (serializationStartNanos == 0) {
+            serializationStartNanos = System.nanoTime();
+        }
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    public String getEndpoint() {
+        return method + " " + (route != null ? route : uri);
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getAuthNanos() {
+        return authNanos;
+    }
+
+    public long getDbNanos() {
+        return dbNanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * Time spent writing the response body, measured up to the given end time.
+     *
+     * @param endNanos The end of the request
+     * @return Serialization time in nanoseconds, 0 if no body was written
+     */
+    public long getSerializationNanos(long endNanos) {
+        return serializationStartNanos == 0 ? 0 : endNanos - serializationStartNanos;
+    }
+}
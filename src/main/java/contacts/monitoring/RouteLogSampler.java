@@ -0,0 +1,54 @@
+package contacts.monitoring;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter for log lines, keyed by route.
+ * Allows at most a fixed number of entries per route and second, so that a slow
+ * high-volume route cannot flood the log. Suppressed entries are counted and
+ * reported with the next entry that gets through.
+ */
+public class RouteLogSampler {
+
+    private final int permitsPerSecond;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for RouteLogSampler.
+     *
+     * @param permitsPerSecond Maximum number of log entries per route and second
+     */
+    public RouteLogSampler(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Tries to take a log permit for the given route.
+     *
+     * @param route The route key
+     * @param nowMillis The current time in milliseconds
+     * @return The number of entries suppressed since the last permit, or -1 if this entry should be suppressed
+     */
+    public long tryAcquire(String route, long nowMillis) {
+        Window window = windows.computeIfAbsent(route, key -> new Window());
+        long second = nowMillis / 1000;
+        long current = window.second.get();
+        if (current != second && window.second.compareAndSet(current, second)) {
+            window.count.set(0);
+        }
+        if (window.count.incrementAndGet() > permitsPerSecond) {
+            window.suppressed.incrementAndGet();
+            return -1;
+        }
+        return window.suppressed.getAndSet(0);
+    }
+
+    private static class Window {
+        private final AtomicLong second = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicLong suppressed = new AtomicLong();
+    }
+}
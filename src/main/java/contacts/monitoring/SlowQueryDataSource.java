@@ -0,0 +1,135 @@
+package contacts.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource wrapper that times every executed JDBC statement.
+ * Statement durations are added to the {@link RequestTimings} of the current request,
+ * and statements slower than the configured threshold are written to the slow-query log
+ * together with their bind count and the calling endpoint.
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("contacts.slow-query");
+
+    private final long thresholdNanos;
+
+    /**
+     * Constructor for SlowQueryDataSource.
+     *
+     * @param target The data source to wrap
+     * @param thresholdMillis Statements running at least this long are logged
+     */
+    public SlowQueryDataSource(DataSource target, long thresholdMillis) {
+        super(target);
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            String name = method.getName();
+            if (result instanceof CallableStatement) {
+                return wrapStatement(result, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement && name.equals("prepareStatement")) {
+                return wrapStatement(result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement && name.equals("createStatement")) {
+                return wrapStatement(result, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Object statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Object target;
+        private final String preparedSql;
+        private int bindCount;
+
+        StatementHandler(Object target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && preparedSql != null) {
+                bindCount++;
+            } else if (name.equals("clearParameters")) {
+                bindCount = 0;
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                RequestTimings timings = RequestTimings.current();
+                if (timings != null) {
+                    timings.addStatement(elapsed);
+                }
+                if (elapsed >= thresholdNanos) {
+                    String sql = preparedSql != null ? preparedSql
+                            : (args != null && args.length > 0 && args[0] instanceof String s ? s : "<batch>");
+                    slowQueryLog.warn("slow query: {} ms, binds = {}, endpoint = {}, sql = {}",
+                            elapsed / 1_000_000L, bindCount, RequestTimings.currentEndpoint(), sql);
+                }
+            }
+        }
+    }
+}
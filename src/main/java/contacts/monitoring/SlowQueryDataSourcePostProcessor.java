@@ -0,0 +1,34 @@
+package contacts.monitoring;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's DataSource bean in a {@link SlowQueryDataSource}.
+ * Only the bean named "dataSource" is wrapped; with replica routing enabled the
+ * pools behind it are beans as well and must keep their own types.
+ */
+@Component
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    private final long thresholdMillis;
+
+    public SlowQueryDataSourcePostProcessor(
+            @Value("${contacts.monitoring.slow-query-threshold-ms:200}") long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN_NAME.equals(beanName) && bean instanceof DataSource dataSource
+                && !(bean instanceof SlowQueryDataSource)) {
+            return new SlowQueryDataSource(dataSource, thresholdMillis);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,73 @@
+package contacts.monitoring;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Filter that writes a breakdown of slow requests to the slow-request log.
+ * Runs before every other filter, so the total includes the security filter chain.
+ * Entries are sampled per route to keep high-volume routes from flooding the log.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SlowRequestLoggingFilter extends OncePerRequestFilter {
+
+    private static final Logger slowRequestLog = LoggerFactory.getLogger("contacts.slow-request");
+
+    private final long thresholdNanos;
+    private final RouteLogSampler sampler;
+
+    /**
+     * Constructor for SlowRequestLoggingFilter.
+     *
+     * @param thresholdMillis Requests taking at least this long are logged
+     * @param samplesPerSecond Maximum number of logged requests per route and second
+     */
+    public SlowRequestLoggingFilter(
+            @Value("${contacts.monitoring.slow-request-threshold-ms:500}") long thresholdMillis,
+            @Value("${contacts.monitoring.slow-request-samples-per-second:5}") int samplesPerSecond) {
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.sampler = new RouteLogSampler(samplesPerSecond);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.start(request.getMethod(), request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.clear();
+            long end = System.nanoTime();
+            long total = end - timings.getStartNanos();
+            if (total >= thresholdNanos) {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (pattern != null) {
+                    timings.setRoute(pattern.toString());
+                }
+                String endpoint = timings.getEndpoint();
+                long suppressed = sampler.tryAcquire(endpoint, System.currentTimeMillis());
+                if (suppressed >= 0) {
+                    slowRequestLog.warn("slow request: {} -> {} in {} ms (auth = {} ms, db = {} ms in {} statements, "
+                                    + "serialization = {} ms), {} similar entries suppressed",
+                            endpoint, response.getStatus(), total / 1_000_000L,
+                            timings.getAuthNanos() / 1_000_000L, timings.getDbNanos() / 1_000_000L,
+                            timings.getStatementCount(), timings.getSerializationNanos(end) / 1_000_000L,
+                            suppressed);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package contacts.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import contacts.domain.ContactOutboxEvent;
+import contacts.dto.ContactChangeDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactOutboxEventRepository;
+import org.springframework.context.event.EventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes every contact change to the outbox table. The listener is synchronous, so the row is
+ * inserted in the transaction of the change itself: it commits or rolls back with the change,
+ * and the write only pays for one more insert, while delivery happens in {@link OutboxRelay}.
+ */
+public class ContactOutboxWriter {
+
+    private final ContactOutboxEventRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for ContactOutboxWriter.
+     *
+     * @param outboxRepository Repository for the outbox table
+     * @param objectMapper Mapper used to serialize the changes
+     */
+    public ContactOutboxWriter(ContactOutboxEventRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Adds a contact change to the outbox.
+     *
+     * @param event The contact change
+     * @throws IllegalStateException if the change cannot be serialized, rolling back the change
+     */
+    @EventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        ContactOutboxEvent outboxEvent = new ContactOutboxEvent();
+        outboxEvent.setContactId(event.getContactId());
+        outboxEvent.setUserId(event.getUserId());
+        outboxEvent.setEventType(event.getType().name());
+        outboxEvent.setCreatedAt(LocalDateTime.now());
+        try {
+            outboxEvent.setPayload(objectMapper.writeValueAsString(
+                    new ContactChangeDTO(event.getType(), event.getContactId(), event.getCurrent())));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change of contact " + event.getContactId(), e);
+        }
+        outboxRepository.save(outboxEvent);
+    }
+}
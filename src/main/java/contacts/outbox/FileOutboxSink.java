@@ -0,0 +1,65 @@
+package contacts.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import contacts.domain.ContactOutboxEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sink that appends the events to a local file as newline-delimited JSON, for testing and
+ * for feeding file-based integrations. Each batch is written with one write and flushed to
+ * disk before it counts as delivered.
+ */
+public class FileOutboxSink implements OutboxSink {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for FileOutboxSink.
+     *
+     * @param path The file to append to, created with its directories if missing
+     * @param objectMapper Mapper used to write the events
+     */
+    public FileOutboxSink(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<ContactOutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (ContactOutboxEvent event : events) {
+            ObjectNode line = objectMapper.createObjectNode();
+            line.put("id", event.getId());
+            line.put("contactId", event.getContactId());
+            line.put("userId", event.getUserId());
+            line.put("type", event.getEventType());
+            line.put("createdAt", event.getCreatedAt().toString());
+            // The payload is already JSON, embed it instead of quoting it
+            line.set("payload", objectMapper.readTree(event.getPayload()));
+            lines.append(objectMapper.writeValueAsString(line)).append('\n');
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+}
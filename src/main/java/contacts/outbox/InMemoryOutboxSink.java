@@ -0,0 +1,56 @@
+package contacts.outbox;
+
+import contacts.domain.ContactOutboxEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sink that keeps the most recently delivered events in memory, for tests and local development.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private static final int DEFAULT_CAPACITY = 10_000;
+
+    private final int capacity;
+    private final Deque<ContactOutboxEvent> events = new ArrayDeque<>();
+
+    public InMemoryOutboxSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for InMemoryOutboxSink.
+     *
+     * @param capacity Number of events kept, the oldest ones are dropped beyond it
+     */
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<ContactOutboxEvent> batch) {
+        for (ContactOutboxEvent event : batch) {
+            if (events.size() == capacity) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+    }
+
+    /**
+     * @return A copy of the events delivered so far
+     */
+    public synchronized List<ContactOutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    /**
+     * Forget the events delivered so far.
+     */
+    public synchronized void clear() {
+        events.clear();
+    }
+}
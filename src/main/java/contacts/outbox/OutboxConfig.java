@@ -0,0 +1,74 @@
+package contacts.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import contacts.repository.ContactOutboxEventRepository;
+import contacts.routing.ShardRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Wires the transactional outbox for contact changes: the writer that records every change
+ * in the outbox table and the relay that delivers them to the {@link OutboxSink}.
+ * Enabled unless contacts.outbox.enabled=false. Define an OutboxSink bean to deliver to a real
+ * downstream system, otherwise contacts.outbox.sink selects the built-in file sink, which needs an
+ * explicit contacts.outbox.file-path, or in the dev and test profiles the memory sink. With no sink
+ * at all the events are kept in the outbox table and nothing is relayed.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "contacts.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxConfig.class);
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    @ConditionalOnProperty(prefix = "contacts.outbox", name = "sink")
+    public OutboxSink outboxSink(OutboxProperties properties, ObjectMapper objectMapper, Environment environment) {
+        return switch (properties.getSink()) {
+            case "file" -> {
+                // Events count as delivered once written, so they must not end up in a temporary directory
+                if (properties.getFilePath() == null) {
+                    throw new IllegalStateException("contacts.outbox.sink=file requires contacts.outbox.file-path");
+                }
+                yield new FileOutboxSink(properties.getFilePath(), objectMapper);
+            }
+            case "memory" -> {
+                // Events delivered to memory are lost, which is only acceptable while developing
+                if (!environment.acceptsProfiles(Profiles.of("dev", "test"))) {
+                    throw new IllegalStateException("contacts.outbox.sink=memory is only allowed in the dev and test profiles");
+                }
+                yield new InMemoryOutboxSink(properties.getMemoryCapacity());
+            }
+            default -> throw new IllegalArgumentException("Unknown outbox sink: " + properties.getSink());
+        };
+    }
+
+    @Bean
+    public ContactOutboxWriter contactOutboxWriter(ContactOutboxEventRepository outboxRepository,
+                                                   ObjectMapper objectMapper) {
+        return new ContactOutboxWriter(outboxRepository, objectMapper);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(ContactOutboxEventRepository outboxRepository, ObjectProvider<OutboxSink> outboxSinks,
+                                   PlatformTransactionManager transactionManager, ShardRouting shardRouting,
+                                   MeterRegistry meterRegistry, OutboxProperties properties) {
+        OutboxSink outboxSink = outboxSinks.getIfAvailable();
+        if (outboxSink == null) {
+            logger.warn("No outbox sink configured, contact changes stay in the outbox until one is set");
+        }
+        return new OutboxRelay(outboxRepository, outboxSink, transactionManager, shardRouting, meterRegistry,
+                properties.getBatchSize(), properties.getMaxBatchesPerPoll());
+    }
+}
@@ -0,0 +1,34 @@
+package contacts.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for the contact change outbox and its relay.
+ */
+@Data
+@ConfigurationProperties(prefix = "contacts.outbox")
+public class OutboxProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Built-in sink used when no other {@link OutboxSink} bean is defined: "file", or "memory" in the
+     * dev and test profiles. Unset, the events stay in the outbox table until a sink is configured.
+     */
+    private String sink;
+
+    /** Number of most recent events the "memory" sink keeps */
+    private int memoryCapacity = 10_000;
+
+    /** File the "file" sink appends to, one JSON event per line; required by that sink */
+    private Path filePath;
+
+    /** Number of events locked, delivered and deleted in one transaction */
+    private int batchSize = 200;
+
+    /** Maximum number of batches relayed per poll, so one poll cannot run forever */
+    private int maxBatchesPerPoll = 50;
+}
@@ -0,0 +1,143 @@
+package contacts.outbox;
+
+import contacts.domain.ContactOutboxEvent;
+import contacts.repository.ContactOutboxEventRepository;
+import contacts.routing.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox into the {@link OutboxSink} in batches. Each batch is locked, delivered
+ * and deleted in one transaction, so a failure leaves it in the outbox to be retried on the
+ * next poll (at-least-once delivery). The rows are locked with SKIP LOCKED, so several
+ * application instances can relay in parallel without delivering the same batch twice.
+ * Without a sink nothing is delivered: the events stay in the outbox and only the lag is measured.
+ *
+ * Exposes the metrics contacts.outbox.published, contacts.outbox.failures,
+ * contacts.outbox.batch (delivery time per batch) and contacts.outbox.lag (age of the
+ * oldest undelivered event, in seconds).
+ */
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final ContactOutboxEventRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouting shardRouting;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    /**
+     * Constructor for OutboxRelay.
+     *
+     * @param outboxRepository Repository for the outbox table
+     * @param sink The destination of the events, or null when none is configured
+     * @param transactionManager Transaction manager, used to relay each batch in its own transaction
+     * @param shardRouting Routing of the polls, every shard has its own outbox
+     * @param meterRegistry Registry for the relay metrics
+     * @param batchSize Number of events delivered per batch
+     * @param maxBatchesPerPoll Maximum number of batches per poll
+     */
+    public OutboxRelay(ContactOutboxEventRepository outboxRepository, OutboxSink sink,
+                       PlatformTransactionManager transactionManager, ShardRouting shardRouting,
+                       MeterRegistry meterRegistry, int batchSize, int maxBatchesPerPoll) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouting = shardRouting;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.publishedCounter = Counter.builder("contacts.outbox.published").register(meterRegistry);
+        this.failureCounter = Counter.builder("contacts.outbox.failures").register(meterRegistry);
+        this.batchTimer = Timer.builder("contacts.outbox.batch").register(meterRegistry);
+        Gauge.builder("contacts.outbox.lag", lagSeconds, AtomicLong::get).baseUnit("seconds").register(meterRegistry);
+    }
+
+    /**
+     * Relays batches until the outbox is empty, a batch fails or the per-poll maximum is reached,
+     * on every shard.
+     */
+    @Scheduled(fixedDelayString = "${contacts.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        long[] lag = new long[1];
+        shardRouting.forEachShard(() -> {
+            if (sink != null) {
+                relayShard();
+            }
+            lag[0] = Math.max(lag[0], readLagSeconds());
+        });
+        lagSeconds.set(lag[0]);
+    }
+
+    private void relayShard() {
+        int total = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                Integer relayed = transactionTemplate.execute(status -> relayBatch());
+                total += relayed != null ? relayed : 0;
+                if (relayed == null || relayed < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            logger.warn("Outbox relay failed, the batch will be retried: {}", e.getMessage());
+        }
+        if (total > 0) {
+            logger.debug("Relayed {} outbox events", total);
+        }
+    }
+
+    private int relayBatch() {
+        List<ContactOutboxEvent> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            sink.publish(batch);
+        } catch (Exception e) {
+            throw new IllegalStateException("Outbox sink failed: " + e.getMessage(), e);
+        }
+        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        outboxRepository.deleteAllByIdInBatch(batch.stream().map(ContactOutboxEvent::getId).toList());
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private long readLagSeconds() {
+        try {
+            List<LocalDateTime> oldest = outboxRepository.findOldestCreatedAt(PageRequest.of(0, 1));
+            return oldest.isEmpty() ? 0 : Math.max(0, Duration.between(oldest.get(0), LocalDateTime.now()).toSeconds());
+        } catch (RuntimeException e) {
+            logger.debug("Could not read the outbox lag: {}", e.getMessage());
+            return lagSeconds.get();
+        }
+    }
+
+    /**
+     * @return The age of the oldest undelivered event at the end of the last poll, in seconds
+     */
+    public long getLagSeconds() {
+        return lagSeconds.get();
+    }
+}
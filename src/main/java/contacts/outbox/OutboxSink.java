@@ -0,0 +1,22 @@
+package contacts.outbox;
+
+import contacts.domain.ContactOutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the relayed contact change events, e.g. a message broker or a downstream API.
+ * Delivery is at least once: a batch is delivered again if the relay fails before the events
+ * are deleted, so consumers deduplicate by event ID.
+ */
+public interface OutboxSink {
+
+    /**
+     * Deliver a batch of events, in outbox order. The events count as delivered only when
+     * this method returns; an exception leaves the whole batch in the outbox.
+     *
+     * @param events The events to deliver
+     * @throws Exception if the batch could not be delivered
+     */
+    void publish(List<ContactOutboxEvent> events) throws Exception;
+}
@@ -0,0 +1,31 @@
+package contacts.repository;
+
+import contacts.domain.ContactBlockingKey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ContactBlockingKeyRepository extends JpaRepository<ContactBlockingKey, Long> {
+
+    // Uses the (user_id, blocking_key) index, the page limits how much of a large bucket is read
+    @Query("select distinct k.contactId from ContactBlockingKey k " +
+            "where k.userId = :userId and k.blockingKey in :keys and k.contactId <> :contactId " +
+            "order by k.contactId desc")
+    List<Long> findBucketMembers(@Param("userId") Long userId, @Param("keys") Collection<String> keys,
+                                 @Param("contactId") Long contactId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from ContactBlockingKey k where k.contactId = :contactId")
+    void deleteByContactId(@Param("contactId") Long contactId);
+
+    @Modifying
+    @Query("delete from ContactBlockingKey k where k.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
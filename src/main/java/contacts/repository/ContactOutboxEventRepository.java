@@ -0,0 +1,22 @@
+package contacts.repository;
+
+import contacts.domain.ContactOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ContactOutboxEventRepository extends JpaRepository<ContactOutboxEvent, Long> {
+
+    // Oldest events first; rows locked by another relay instance are skipped, not waited for
+    @Query(value = "select * from contact_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<ContactOutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    @Query("select e.createdAt from ContactOutboxEvent e order by e.id")
+    List<LocalDateTime> findOldestCreatedAt(Pageable pageable);
+}
@@ -1,9 +1,133 @@
 package contacts.repository;
 
 import contacts.domain.Contact;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ContactRepository extends JpaRepository<Contact, Long> {
+public interface ContactRepository extends JpaRepository<Contact, Long>, JpaSpecificationExecutor<Contact> {
+
+    List<Contact> findByUserId(Long userId);
+
+    List<Contact> findAllByOrderById();
+
+    List<Contact> findByTajNumberIn(Collection<String> tajNumbers);
+
+    List<Contact> findByTaxIdIn(Collection<String> taxIds);
+
+    // Locks the row until the end of the transaction and returns its latest committed state
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Contact c where c.id = :id")
+    Optional<Contact> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("select c.id from Contact c where c.tajNumber = :tajNumber")
+    List<Long> findIdsByTajNumber(@Param("tajNumber") String tajNumber);
+
+    @Query("select c.id from Contact c where c.taxId = :taxId")
+    List<Long> findIdsByTaxId(@Param("taxId") String taxId);
+
+    @Query("select c.tajNumber from Contact c where c.tajNumber is not null")
+    Stream<String> streamAllTajNumbers();
+
+    @Query("select c.taxId from Contact c where c.taxId is not null")
+    Stream<String> streamAllTaxIds();
+
+    // Keyset pages in primary key order, for streaming large contact lists
+    @Query("select c from Contact c where c.id > :afterId order by c.id")
+    List<Contact> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select c from Contact c where c.user.id = :userId and c.id > :afterId order by c.id")
+    List<Contact> findPageByUserIdAfter(@Param("userId") Long userId, @Param("afterId") long afterId, Pageable pageable);
+
+    // Keyset pages of an ID range, so that several ranges can be loaded in parallel
+    @Query("select c from Contact c where c.id > :afterId and c.id <= :toId order by c.id")
+    List<Contact> findPageBetween(@Param("afterId") long afterId, @Param("toId") long toId, Pageable pageable);
+
+    @Query("select coalesce(max(c.id), 0) from Contact c")
+    long findMaxId();
+
+    // Birthdays between two birthday keys (month * 100 + day), in key order; read from the birthday indexes
+    @Query("select c from Contact c where c.user.id = :userId " +
+            "and function('birthday_key', c.birthDate) between :fromKey and :toKey " +
+            "order by function('birthday_key', c.birthDate), c.id")
+    List<Contact> findBirthdaysByUserId(@Param("userId") Long userId, @Param("fromKey") int fromKey,
+                                        @Param("toKey") int toKey, Pageable pageable);
+
+    @Query("select c from Contact c where function('birthday_key', c.birthDate) between :fromKey and :toKey " +
+            "order by function('birthday_key', c.birthDate), c.id")
+    List<Contact> findBirthdays(@Param("fromKey") int fromKey, @Param("toKey") int toKey, Pageable pageable);
+
+    // Keyset pages by owner of the birthdays in up to two key ranges, for the reminder job
+    @Query("select c from Contact c where (function('birthday_key', c.birthDate) between :fromKey and :toKey " +
+            "or function('birthday_key', c.birthDate) between :wrapFromKey and :wrapToKey) " +
+            "and c.user.id >= :afterUserId and (c.user.id > :afterUserId or (c.user.id = :afterUserId and c.id > :afterId)) " +
+            "order by c.user.id, c.id")
+    List<Contact> findBirthdayPageByOwner(@Param("fromKey") int fromKey, @Param("toKey") int toKey,
+                                          @Param("wrapFromKey") int wrapFromKey, @Param("wrapToKey") int wrapToKey,
+                                          @Param("afterUserId") long afterUserId, @Param("afterId") long afterId,
+                                          Pageable pageable);
+
+    /**
+     * A changed or deleted contact, in (rowVersion, id) order.
+     */
+    interface ChangeRow {
+        Long getId();
+
+        Long getRowVersion();
+
+        boolean isDeleted();
+    }
+
+    // Oldest transaction still running: every change with a lower row_version is committed
+    @Query(value = "select txid_snapshot_xmin(txid_current_snapshot())", nativeQuery = true)
+    long currentSnapshotXmin();
+
+    // Keyset pages of changes after (afterVersion, afterId), each branch reads its own index
+    @Query(value = """
+            (select c.id as id, c.row_version as rowVersion, false as deleted from contact c
+             where c.user_id = :userId and (c.row_version, c.id) > (:afterVersion, :afterId)
+             order by c.row_version, c.id limit :limit)
+            union all
+            (select t.contact_id, t.row_version, true from contact_tombstone t
+             where :includeDeleted and t.user_id = :userId and (t.row_version, t.contact_id) > (:afterVersion, :afterId)
+             order by t.row_version, t.contact_id limit :limit)
+            order by rowVersion, id limit :limit""", nativeQuery = true)
+    List<ChangeRow> findChangesByUserIdAfter(@Param("userId") Long userId, @Param("afterVersion") long afterVersion,
+                                             @Param("afterId") long afterId, @Param("includeDeleted") boolean includeDeleted,
+                                             @Param("limit") int limit);
+
+    @Query(value = """
+            (select c.id as id, c.row_version as rowVersion, false as deleted from contact c
+             where (c.row_version, c.id) > (:afterVersion, :afterId)
+             order by c.row_version, c.id limit :limit)
+            union all
+            (select t.contact_id, t.row_version, true from contact_tombstone t
+             where :includeDeleted and (t.row_version, t.contact_id) > (:afterVersion, :afterId)
+             order by t.row_version, t.contact_id limit :limit)
+            order by rowVersion, id limit :limit""", nativeQuery = true)
+    List<ChangeRow> findChangesAfter(@Param("afterVersion") long afterVersion, @Param("afterId") long afterId,
+                                     @Param("includeDeleted") boolean includeDeleted, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from contact_tombstone where deleted_at < :cutoff", nativeQuery = true)
+    int deleteTombstonesBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Matches the lower(email) expression index
+    @Query("select c from Contact c where lower(c.email) in :emails")
+    List<Contact> findByLowerCaseEmailIn(@Param("emails") Collection<String> emails);
 }
@@ -0,0 +1,77 @@
+package contacts.repository;
+
+import contacts.domain.Address;
+import contacts.domain.Contact;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicates of the filtered contact list. Each one matches an index of V15, see ContactListQueryService
+ * for the combinations that are accepted.
+ */
+public final class ContactSpecifications {
+
+    private ContactSpecifications() {
+    }
+
+    public static Specification<Contact> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    /**
+     * Contacts with an address in the given city and/or zip code. A semi-join, so a contact with
+     * several matching addresses is returned once.
+     */
+    public static Specification<Contact> hasAddress(String city, String zipCode) {
+        return (root, query, cb) -> {
+            Subquery<Long> addresses = query.subquery(Long.class);
+            Root<Address> address = addresses.from(Address.class);
+            List<Predicate> conditions = new ArrayList<>();
+            if (city != null) {
+                conditions.add(cb.equal(address.get("city"), city));
+            }
+            if (zipCode != null) {
+                conditions.add(cb.equal(address.get("zipCode"), zipCode));
+            }
+            addresses.select(address.get("contact").get("id")).where(conditions.toArray(Predicate[]::new));
+            return root.get("id").in(addresses);
+        };
+    }
+
+    public static Specification<Contact> lastNameFrom(String lastName) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastName"), lastName);
+    }
+
+    public static Specification<Contact> lastNameBefore(String lastName) {
+        return (root, query, cb) -> cb.lessThan(root.get("lastName"), lastName);
+    }
+
+    /**
+     * Contacts after the given ID in ID order.
+     */
+    public static Specification<Contact> afterId(long afterId, boolean descending) {
+        return (root, query, cb) -> descending
+                ? cb.lessThan(root.get("id"), afterId)
+                : cb.greaterThan(root.get("id"), afterId);
+    }
+
+    /**
+     * Contacts after the given last name and ID in (last name, ID) order.
+     */
+    public static Specification<Contact> afterLastName(String lastName, long afterId, boolean descending) {
+        return (root, query, cb) -> {
+            // The first condition alone bounds the index range, the rest skips the ties already read
+            if (descending) {
+                return cb.and(cb.lessThanOrEqualTo(root.get("lastName"), lastName),
+                        cb.or(cb.lessThan(root.get("lastName"), lastName), cb.lessThan(root.get("id"), afterId)));
+            }
+            return cb.and(cb.greaterThanOrEqualTo(root.get("lastName"), lastName),
+                    cb.or(cb.greaterThan(root.get("lastName"), lastName), cb.greaterThan(root.get("id"), afterId)));
+        };
+    }
+}
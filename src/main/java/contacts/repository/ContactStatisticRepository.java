@@ -0,0 +1,98 @@
+package contacts.repository;
+
+import contacts.domain.ContactStatisticDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for the contact statistics: the pending deltas, and the counts in contact_statistic.
+ */
+@Repository
+public interface ContactStatisticRepository extends JpaRepository<ContactStatisticDelta, Long> {
+
+    /**
+     * A count of contact_statistic.
+     */
+    interface CountRow {
+        String getBucket();
+
+        long getContactCount();
+    }
+
+    // Primary key lookup
+    @Query(value = "select contact_count from contact_statistic where dimension = :dimension and bucket = :bucket",
+            nativeQuery = true)
+    Long findCount(@Param("dimension") String dimension, @Param("bucket") String bucket);
+
+    @Query(value = """
+            select bucket as bucket, contact_count as contactCount from contact_statistic
+            where dimension = :dimension and contact_count > 0 order by bucket""", nativeQuery = true)
+    List<CountRow> findCounts(@Param("dimension") String dimension);
+
+    // Reads the first entries of the (dimension, contact_count desc) index
+    @Query(value = """
+            select bucket as bucket, contact_count as contactCount from contact_statistic
+            where dimension = :dimension and contact_count > 0 order by contact_count desc limit :limit""",
+            nativeQuery = true)
+    List<CountRow> findTopCounts(@Param("dimension") String dimension, @Param("limit") int limit);
+
+    // Folding and the reconciliation replace counts; they must not run at the same time
+    @Modifying
+    @Query(value = "lock table contact_statistic in share row exclusive mode", nativeQuery = true)
+    void lockCounts();
+
+    // Adds the oldest deltas to the counts and deletes them, in one statement
+    @Modifying
+    @Query(value = """
+            with folded as (
+                delete from contact_statistic_delta
+                where id in (select id from contact_statistic_delta order by id limit :limit)
+                returning dimension, bucket, delta)
+            insert into contact_statistic (dimension, bucket, contact_count)
+            select dimension, bucket, sum(delta) from folded group by dimension, bucket
+            on conflict (dimension, bucket)
+            do update set contact_count = contact_statistic.contact_count + excluded.contact_count""", nativeQuery = true)
+    int foldDeltas(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "delete from contact_statistic_delta", nativeQuery = true)
+    void deleteAllDeltas();
+
+    @Modifying
+    @Query(value = "delete from contact_statistic", nativeQuery = true)
+    void deleteAllCounts();
+
+    // Same query as the V13 migration
+    @Modifying
+    @Query(value = """
+            insert into contact_statistic (dimension, bucket, contact_count)
+            select 'USER', user_id::text, count(*) from contact where user_id is not null group by user_id
+            union all
+            select 'BIRTH_DECADE', coalesce((extract(year from birth_date)::int / 10 * 10)::text, 'unknown'), count(*)
+            from contact group by 2
+            union all
+            select 'CITY', city, count(distinct contact_id)
+            from (select contact_id, trim(city) as city from address) a where city <> '' group by city""",
+            nativeQuery = true)
+    void insertCountsFromContacts();
+
+    // Removes the user's contacts from the counts, before the user and its contacts are deleted
+    @Modifying
+    @Query(value = """
+            insert into contact_statistic_delta (dimension, bucket, delta)
+            select 'USER', user_id::text, -count(*) from contact where user_id = :userId group by user_id
+            union all
+            select 'BIRTH_DECADE', coalesce((extract(year from birth_date)::int / 10 * 10)::text, 'unknown'), -count(*)
+            from contact where user_id = :userId group by 2
+            union all
+            select 'CITY', city, -count(distinct contact_id)
+            from (select a.contact_id, trim(a.city) as city from address a join contact c on c.id = a.contact_id
+                  where c.user_id = :userId) a
+            where city <> '' group by city""", nativeQuery = true)
+    void insertUserRemovalDeltas(@Param("userId") Long userId);
+}
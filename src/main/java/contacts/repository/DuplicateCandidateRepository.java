@@ -0,0 +1,37 @@
+package contacts.repository;
+
+import contacts.domain.DuplicateCandidate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DuplicateCandidateRepository extends JpaRepository<DuplicateCandidate, Long> {
+
+    List<DuplicateCandidate> findByUserIdOrderByScoreDesc(Long userId, Pageable pageable);
+
+    List<DuplicateCandidate> findAllByOrderByScoreDesc(Pageable pageable);
+
+    @Modifying
+    @Query("delete from DuplicateCandidate d where d.contactId = :contactId or d.otherContactId = :contactId")
+    void deleteByContact(@Param("contactId") Long contactId);
+
+    // A pair found concurrently by the other contact of the pair or by the full scan is kept as it is
+    @Modifying
+    @Query(value = "insert into duplicate_candidate (user_id, contact_id, other_contact_id, score, detected_at) " +
+            "values (:userId, :contactId, :otherContactId, :score, :detectedAt) " +
+            "on conflict on constraint uq_duplicate_candidate_pair do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("contactId") Long contactId,
+                       @Param("otherContactId") Long otherContactId, @Param("score") double score,
+                       @Param("detectedAt") LocalDateTime detectedAt);
+
+    @Modifying
+    @Query("delete from DuplicateCandidate d where d.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
@@ -2,8 +2,16 @@ package contacts.repository;
 
 import contacts.domain.PhoneNumber;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, Long> {
+
+    @Query("select p from PhoneNumber p join fetch p.contact where p.normalizedNumber in :numbers")
+    List<PhoneNumber> findWithContactByNormalizedNumberIn(@Param("numbers") Collection<String> numbers);
 }
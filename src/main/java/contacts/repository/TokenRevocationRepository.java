@@ -0,0 +1,32 @@
+package contacts.repository;
+
+import contacts.domain.TokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    // Oldest transaction still running: every revocation with a lower row_version is committed
+    @Query(value = "select txid_snapshot_xmin(txid_current_snapshot())", nativeQuery = true)
+    long currentSnapshotXmin();
+
+    @Query("select r from TokenRevocation r where r.rowVersion >= :sinceVersion and r.expiresAt > :now order by r.rowVersion, r.id")
+    List<TokenRevocation> findAddedSince(@Param("sinceVersion") long sinceVersion, @Param("now") long now);
+
+    @Query("select count(r) > 0 from TokenRevocation r where r.expiresAt > :now " +
+            "and (r.jti = :jti or (r.userId = :userId and r.issuedBefore > :issuedAt))")
+    boolean existsRevocation(@Param("jti") String jti, @Param("userId") Long userId,
+                             @Param("issuedAt") long issuedAt, @Param("now") long now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from TokenRevocation r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -2,11 +2,16 @@ package contacts.repository;
 
 import contacts.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @Query("select u.id from User u order by u.id")
+    List<Long> findAllIds();
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package contacts.routing;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently, so their reads can be kept on the primary
+ * until the replicas have caught up with their own changes.
+ */
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    /**
+     * Constructor for ReadYourWritesTracker.
+     *
+     * @param window How long reads stay on the primary after a write
+     */
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Set the user the current thread works for, or null to clear it.
+     *
+     * @param username The username
+     */
+    public static void setCurrentUser(String username) {
+        if (username == null) {
+            CURRENT_USER.remove();
+        } else {
+            CURRENT_USER.set(username);
+        }
+    }
+
+    /**
+     * @return The user the current thread works for, or null
+     */
+    public static String getCurrentUser() {
+        return CURRENT_USER.get();
+    }
+
+    /**
+     * Record that a user has just written.
+     *
+     * @param username The username
+     */
+    public void recordWrite(String username) {
+        if (username != null) {
+            lastWriteNanos.put(username, System.nanoTime());
+        }
+    }
+
+    /**
+     * @return Whether the current thread's user wrote within the window
+     */
+    public boolean currentUserWroteRecently() {
+        String username = CURRENT_USER.get();
+        if (username == null) {
+            return false;
+        }
+        Long last = lastWriteNanos.get(username);
+        return last != null && System.nanoTime() - last < windowNanos;
+    }
+
+    /**
+     * Forget users whose window has passed, so the map does not grow with every user ever seen.
+     */
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(last -> now - last >= windowNanos);
+    }
+}
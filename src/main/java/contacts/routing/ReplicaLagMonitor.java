@@ -0,0 +1,72 @@
+package contacts.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Periodically measures the replication lag of each replica and takes replicas that lag
+ * too much, or cannot be reached, out of rotation until they catch up.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // Zero when the replica has replayed everything it received, or is not a standby at all
+    private static final String LAG_QUERY =
+            "select case when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000, 0) end";
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long maxLagMillis;
+
+    /**
+     * Constructor for ReplicaLagMonitor.
+     *
+     * @param routingDataSource The routing DataSource whose replicas are checked
+     * @param readYourWritesTracker Tracker whose expired entries are purged on each check
+     * @param maxLag The largest acceptable lag
+     */
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, ReadYourWritesTracker readYourWritesTracker,
+                             Duration maxLag) {
+        this.routingDataSource = routingDataSource;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    /**
+     * Checks every replica and updates the rotation.
+     */
+    @Scheduled(fixedDelayString = "${contacts.datasource.routing.lag-check-interval-ms:1000}")
+    public void checkReplicas() {
+        List<DataSource> replicas = routingDataSource.getReplicas();
+        for (int i = 0; i < replicas.size(); i++) {
+            routingDataSource.setHealthy(i, measureLagMillis(i, replicas.get(i)) <= maxLagMillis);
+        }
+        readYourWritesTracker.purgeExpired();
+    }
+
+    private long measureLagMillis(int index, DataSource replica) {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            try (ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+                resultSet.next();
+                long lag = (long) resultSet.getDouble(1);
+                logger.debug("replica {} lag = {} ms", index, lag);
+                return lag;
+            }
+        } catch (Exception e) {
+            logger.warn("replica {} lag check failed: {}", index, e.getMessage());
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package contacts.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource that sends read-only transactions to a healthy replica and everything else to the primary.
+ * Reads also go to the primary when the current user wrote recently or no replica is healthy.
+ * Replicas start out of rotation until the lag monitor has checked them, and a replica that
+ * refuses a connection is taken out of rotation at once, the read falling back to the primary.
+ *
+ * The lookup happens when a connection is requested, so it must be wrapped in a
+ * LazyConnectionDataSourceProxy: the transaction's read-only flag is only set after
+ * the transaction manager has asked for its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicBoolean[] healthy;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for ReplicaRoutingDataSource.
+     *
+     * @param primary The primary database, used for writes
+     * @param replicas The replica databases, used for read-only transactions
+     * @param readYourWritesTracker Tracker of users who wrote recently
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWritesTracker readYourWritesTracker) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.healthy = new AtomicBoolean[replicas.size()];
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+            healthy[i] = new AtomicBoolean(false);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * @return {@link #PRIMARY}, or the index of the replica to read from
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || readYourWritesTracker.currentUserWroteRecently()) {
+            return PRIMARY;
+        }
+        // Round robin over the healthy replicas
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (healthy[index].get()) {
+                return index;
+            }
+        }
+        return PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (!(key instanceof Integer index)) {
+            return primary.getConnection();
+        }
+        try {
+            return replicas.get(index).getConnection();
+        } catch (SQLException e) {
+            logger.warn("replica {} refused a connection, reading from the primary: {}", index, e.getMessage());
+            setHealthy(index, false);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * @return The replica databases, in configuration order
+     */
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Take a replica into or out of rotation.
+     *
+     * @param index The index of the replica
+     * @param isHealthy Whether the replica may serve reads
+     */
+    public void setHealthy(int index, boolean isHealthy) {
+        if (healthy[index].getAndSet(isHealthy) != isHealthy) {
+            logger.warn("replica {} is now {}", index, isHealthy ? "in rotation" : "out of rotation");
+        }
+    }
+
+    /**
+     * @param index The index of the replica
+     * @return Whether the replica may serve reads
+     */
+    public boolean isHealthy(int index) {
+        return healthy[index].get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas) {
+            closeIfPossible(replica);
+        }
+        closeIfPossible(primary);
+    }
+
+    private static void closeIfPossible(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package contacts.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for routing read-only transactions to replica databases.
+ * Replica credentials default to the primary's spring.datasource credentials.
+ */
+@Data
+@ConfigurationProperties(prefix = "contacts.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** How long a user's reads stay on the primary after the user wrote something */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    /** Replicas lagging more than this are taken out of rotation */
+    private Duration maxLag = Duration.ofSeconds(2);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        // Kept short, a replica that cannot be reached falls back to the primary
+        private Duration connectionTimeout = Duration.ofSeconds(1);
+    }
+}
@@ -0,0 +1,263 @@
+package contacts.routing;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Decides which database shard holds a user's or a contact's data, and runs work on other shards.
+ *
+ * Users are spread over the shards by a hash of their ID; a user's contacts live on the same
+ * shard. Each shard hands out contact IDs with the shard index as the remainder modulo the
+ * number of shards, so the shard of a contact follows from its ID. User rows are copied to
+ * every shard, so logins and the user checks of the services work on any of them.
+ *
+ * The current thread's shard is used by {@link ShardRoutingDataSource} when a transaction
+ * needs its connection; a transaction always stays on one shard. With a single database
+ * (sharding disabled) there is one shard and everything runs on the calling thread.
+ */
+@Component
+public class ShardRouting {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for ShardRouting.
+     *
+     * @param shardRoutingDataSource The routing DataSource, only available when sharding is enabled
+     * @param transactionManager Transaction manager, used for the reads on each shard
+     */
+    @Autowired
+    public ShardRouting(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource,
+                        PlatformTransactionManager transactionManager) {
+        this(shardCount(shardRoutingDataSource.getIfAvailable()), transactionManager);
+    }
+
+    /**
+     * Constructor for ShardRouting.
+     *
+     * @param shardCount Number of shards, 1 for a single database
+     * @param transactionManager Transaction manager, used for the reads on each shard
+     */
+    public ShardRouting(int shardCount, PlatformTransactionManager transactionManager) {
+        this.shardCount = shardCount;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        if (shardCount > 1) {
+            // A worker thread never has an open EntityManager, so its transactions always get a connection to their shard
+            AtomicInteger threads = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(shardCount * 2, runnable -> {
+                Thread thread = new Thread(runnable, "shard-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * @return The shard of the current thread, 0 when none was selected
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT_SHARD.get();
+        return shard != null ? shard : 0;
+    }
+
+    /**
+     * Select the shard of the current thread.
+     *
+     * @param shard The index of the shard, or null to return to shard 0
+     */
+    public static void setCurrentShard(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+
+    /**
+     * @return Number of shards, 1 for a single database
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param userId The ID of the user, may be null
+     * @return The shard holding the user's contacts; shard 0 for null
+     */
+    public int shardForUser(Long userId) {
+        if (userId == null || shardCount == 1) {
+            return 0;
+        }
+        // Fibonacci hashing spreads consecutive IDs evenly. It must never change: it decides where existing data is.
+        long hash = (userId * 0x9E3779B97F4A7C15L) >>> 32;
+        return (int) ((hash * shardCount) >>> 32);
+    }
+
+    /**
+     * @param contactId The ID of the contact
+     * @return The shard that created the contact, and still holds it
+     */
+    public int shardForContact(Long contactId) {
+        return contactId == null ? 0 : (int) Math.floorMod(contactId, (long) shardCount);
+    }
+
+    /**
+     * Run work on the current thread with the given shard selected. The thread must not be in a
+     * transaction or hold an EntityManager yet; the work starts its own transactions.
+     *
+     * @param shard The index of the shard
+     * @param work The work to run
+     */
+    public void onShard(int shard, Runnable work) {
+        Integer previous = CURRENT_SHARD.get();
+        setCurrentShard(shard);
+        try {
+            work.run();
+        } finally {
+            setCurrentShard(previous);
+        }
+    }
+
+    /**
+     * Run work on the current thread once for every shard, one shard after the other.
+     * Used by the background jobs, which start their own transactions.
+     *
+     * @param work The work to run
+     */
+    public void forEachShard(Runnable work) {
+        for (int shard = 0; shard < shardCount; shard++) {
+            onShard(shard, work);
+        }
+    }
+
+    /**
+     * Run a query in a read-only transaction on one shard. The result must not depend on lazy
+     * loading afterwards, the transaction may run on another thread.
+     *
+     * @param shard The index of the shard
+     * @param query The query
+     * @return The query's result
+     */
+    public <T> T query(int shard, Supplier<T> query) {
+        if (executor == null) {
+            return readOnlyTransaction.execute(status -> query.get());
+        }
+        return await(executor.submit(() -> readOnShard(shard, query)));
+    }
+
+    /**
+     * Run a query on every shard in parallel, each in a read-only transaction, and merge the results.
+     *
+     * @param query The query; its results must be sorted in the given order
+     * @param order The order of the results
+     * @param limit The maximum number of merged results
+     * @return The first results of all shards, in the given order
+     */
+    public <T> List<T> scatterGather(Supplier<List<T>> query, Comparator<? super T> order, int limit) {
+        if (executor == null) {
+            List<T> result = readOnlyTransaction.execute(status -> query.get());
+            return merge(List.of(result), order, limit);
+        }
+        List<Future<List<T>>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> readOnShard(target, query)));
+        }
+        List<List<T>> results = new ArrayList<>(shardCount);
+        for (Future<List<T>> future : futures) {
+            results.add(await(future));
+        }
+        return merge(results, order, limit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Merge sorted lists into one sorted list.
+     *
+     * @param sorted The lists, each sorted in the given order
+     * @param order The order
+     * @param limit The maximum size of the result
+     * @return The first elements of all lists, in order
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        if (sorted.size() == 1 && sorted.get(0).size() <= limit) {
+            return sorted.get(0);
+        }
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sorted.size()),
+                (a, b) -> order.compare(a.value, b.value));
+        for (List<T> list : sorted) {
+            Iterator<T> iterator = list.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Head<T> head = heads.poll();
+            merged.add(head.value);
+            if (head.rest.hasNext()) {
+                heads.add(new Head<>(head.rest.next(), head.rest));
+            }
+        }
+        return merged;
+    }
+
+    private <T> T readOnShard(int shard, Supplier<T> query) {
+        setCurrentShard(shard);
+        try {
+            return readOnlyTransaction.execute(status -> query.get());
+        } finally {
+            setCurrentShard(null);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shard", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard query failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static int shardCount(ShardRoutingDataSource shardRoutingDataSource) {
+        return shardRoutingDataSource != null ? shardRoutingDataSource.getShards().size() : 1;
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+}
@@ -0,0 +1,128 @@
+package contacts.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.Location;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single DataSource with one that routes each transaction to the shard of the user
+ * it works for. Enabled with contacts.datasource.sharding.enabled=true; shard 0 is configured with
+ * the spring.datasource properties, the other shards with contacts.datasource.sharding.shards.
+ * Cannot be combined with the replica routing.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "contacts.datasource.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({ShardRoutingProperties.class, DataSourceProperties.class})
+public class ShardRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource firstShardDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource(HikariDataSource firstShardDataSource,
+                                                         DataSourceProperties dataSourceProperties,
+                                                         ShardRoutingProperties properties) {
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(firstShardDataSource);
+        for (ShardRoutingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shards.size());
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername() != null ? shard.getUsername() : dataSourceProperties.getUsername());
+            pool.setPassword(shard.getPassword() != null ? shard.getPassword() : dataSourceProperties.getPassword());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pool.setConnectionTimeout(shard.getConnectionTimeout().toMillis());
+            shards.add(pool);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    /**
+     * The DataSource used by JPA and everything else.
+     * The lazy proxy delays the routing decision until the first statement of a transaction.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * Migrates every shard, not only shard 0. The callbacks in db/sharding make each shard
+     * hand out contact and user IDs that no other shard uses.
+     */
+    @Bean
+    public FlywayMigrationStrategy shardMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+        return flyway -> {
+            List<DataSource> shards = shardRoutingDataSource.getShards();
+            List<Location> locations = new ArrayList<>(Arrays.asList(flyway.getConfiguration().getLocations()));
+            locations.add(new Location("classpath:db/sharding"));
+            for (int i = 0; i < shards.size(); i++) {
+                Map<String, String> placeholders = new HashMap<>(flyway.getConfiguration().getPlaceholders());
+                placeholders.put("shardIndex", String.valueOf(i));
+                placeholders.put("shardCount", String.valueOf(shards.size()));
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(shards.get(i))
+                        .locations(locations.toArray(new Location[0]))
+                        .placeholders(placeholders)
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+
+    @Bean
+    public ShardUserReplicator shardUserReplicator(ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardUserReplicator(shardRoutingDataSource.getShards());
+    }
+
+    /**
+     * Runs the asynchronous event listeners on the shard of the request that published the event.
+     */
+    @Bean
+    public TaskDecorator shardTaskDecorator() {
+        return task -> {
+            int shard = ShardRouting.currentShard();
+            return () -> {
+                ShardRouting.setCurrentShard(shard);
+                try {
+                    task.run();
+                } finally {
+                    ShardRouting.setCurrentShard(null);
+                }
+            };
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ShardRoutingFilter> shardRoutingFilter(ShardRouting shardRouting) {
+        FilterRegistrationBean<ShardRoutingFilter> registration =
+                new FilterRegistrationBean<>(new ShardRoutingFilter(shardRouting));
+        // Right after the Spring Security filter chain, so the JWT claims are known
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,64 @@
+package contacts.routing;
+
+import contacts.config.JwtAuthenticationFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the shard for the whole request, before the first transaction starts:
+ * the shard of the contact or user addressed by the URL, otherwise the shard of the requesting user.
+ * Runs after the Spring Security filter chain, so the JWT claims are known.
+ */
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern CONTACT_PATH = Pattern.compile("^/api/contacts/(\\d{1,18})$");
+    private static final Pattern USER_PATH = Pattern.compile("^/api/auth/users/(\\d{1,18})$");
+
+    private final ShardRouting shardRouting;
+
+    public ShardRoutingFilter(ShardRouting shardRouting) {
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ShardRouting.setCurrentShard(shardFor(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ShardRouting.setCurrentShard(null);
+        }
+    }
+
+    int shardFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Matcher contact = CONTACT_PATH.matcher(path);
+        if (contact.matches()) {
+            return shardRouting.shardForContact(Long.parseLong(contact.group(1)));
+        }
+        Matcher user = USER_PATH.matcher(path);
+        if (user.matches()) {
+            return shardRouting.shardForUser(Long.parseLong(user.group(1)));
+        }
+        return shardRouting.shardForUser(currentUserId(request));
+    }
+
+    private static Long currentUserId(HttpServletRequest request) {
+        // Set by the JWT filter for every authenticated request; the login has no user yet
+        Claims claims = (Claims) request.getAttribute(JwtAuthenticationFilter.CLAIMS_ATTRIBUTE);
+        if (claims == null) {
+            return null;
+        }
+        Number userId = claims.get("userId", Number.class);
+        return userId != null ? userId.longValue() : null;
+    }
+}
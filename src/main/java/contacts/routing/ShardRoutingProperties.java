@@ -0,0 +1,31 @@
+package contacts.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for spreading users and their contacts over several databases.
+ * Shard 0 is the spring.datasource database, the shards listed here are shard 1, 2 and so on.
+ * Their credentials default to the spring.datasource credentials.
+ */
+@Data
+@ConfigurationProperties(prefix = "contacts.datasource.sharding")
+public class ShardRoutingProperties {
+
+    private boolean enabled;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        private Duration connectionTimeout = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,72 @@
+package contacts.routing;
+
+import contacts.event.UserChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copies every committed user change from the shard it was made on to all other shards,
+ * so each shard has the user rows its contacts reference and every shard can log users in.
+ *
+ * The copy is made after the commit and is not atomic: a shard that cannot be reached misses
+ * the change, which is logged, and gets it with the user's next change.
+ */
+public class ShardUserReplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardUserReplicator.class);
+
+    private final List<JdbcTemplate> shards;
+
+    /**
+     * Constructor for ShardUserReplicator.
+     *
+     * @param shards The shard databases, shard 0 first
+     */
+    public ShardUserReplicator(List<DataSource> shards) {
+        this.shards = shards.stream().map(JdbcTemplate::new).toList();
+    }
+
+    /**
+     * Copies a user change to the other shards once the change is committed.
+     *
+     * @param event The user change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        int source = ShardRouting.currentShard();
+        Map<String, Object> user = null;
+        if (event.getType() != UserChangedEvent.Type.DELETED) {
+            List<Map<String, Object>> rows = shards.get(source).queryForList(
+                    "select id, username, password, role from \"user\" where id = ?", event.getUserId());
+            if (rows.isEmpty()) {
+                return;
+            }
+            user = rows.get(0);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (shard == source) {
+                continue;
+            }
+            try {
+                if (user == null) {
+                    // Deleting the user deletes its contacts as well, if the shard has any
+                    shards.get(shard).update("delete from \"user\" where id = ?", event.getUserId());
+                } else {
+                    shards.get(shard).update("""
+                            insert into "user" (id, username, password, role) values (?, ?, ?, ?)
+                            on conflict (id) do update
+                            set username = excluded.username, password = excluded.password, role = excluded.role""",
+                            user.get("id"), user.get("username"), user.get("password"), user.get("role"));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not copy the change of user {} to shard {}: {}", event.getUserId(), shard, e.getMessage());
+            }
+        }
+    }
+}
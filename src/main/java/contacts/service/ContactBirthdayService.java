@@ -0,0 +1,182 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.UpcomingBirthdayDTO;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Service for upcoming birthdays, used by the birthday reminders.
+ *
+ * A birthday is searched by its key, month * 100 + day, which the birthday indexes of the
+ * contact table are built on, so a window of days is one or two index ranges whatever the
+ * years of birth. A window that crosses the end of the year is split in two ranges, the rest
+ * of this year and the start of the next. Contacts born on February 29 have their birthday
+ * on February 28 in other years.
+ */
+@Service
+public class ContactBirthdayService {
+
+    /** Largest window of days; a window of a year covers every birthday */
+    public static final int MAX_DAYS = 365;
+
+    private final ContactRepository contactRepository;
+    private final ShardRouting shardRouting;
+    private final Clock clock;
+
+    /**
+     * Constructor for ContactBirthdayService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param shardRouting Routing of the reads over the shards
+     */
+    @Autowired
+    public ContactBirthdayService(ContactRepository contactRepository, ShardRouting shardRouting) {
+        this(contactRepository, shardRouting, Clock.systemDefaultZone());
+    }
+
+    ContactBirthdayService(ContactRepository contactRepository, ShardRouting shardRouting, Clock clock) {
+        this.contactRepository = contactRepository;
+        this.shardRouting = shardRouting;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the contacts with a birthday from today to the given number of days from now,
+     * soonest first.
+     *
+     * @param userId The ID of the user whose contacts are searched, or null for all contacts
+     * @param days Number of days after today to include, 0 for today only
+     * @param limit Maximum number of birthdays to return
+     * @return The birthdays, in order of the next birthday
+     */
+    public List<UpcomingBirthdayDTO> getUpcomingBirthdays(Long userId, int days, int limit) {
+        BirthdayWindow window = BirthdayWindow.of(LocalDate.now(clock), days);
+        if (userId != null) {
+            return shardRouting.query(shardRouting.shardForUser(userId), () -> findUpcoming(window, limit,
+                    (fromKey, toKey, page) -> contactRepository.findBirthdaysByUserId(userId, fromKey, toKey, page)));
+        }
+        return shardRouting.scatterGather(() -> findUpcoming(window, limit, contactRepository::findBirthdays),
+                Comparator.comparing(UpcomingBirthdayDTO::getNextBirthday).thenComparing(UpcomingBirthdayDTO::getContactId),
+                limit);
+    }
+
+    /**
+     * Get one page of the birthdays of all users in a window of days, ordered by owner and
+     * contact ID, so the reminders of a user can be collected page by page.
+     *
+     * @param from The first day of the window
+     * @param days Number of days after the first day to include
+     * @param afterUserId Only birthdays after this owner and contact are returned; 0 for the first page
+     * @param afterId The contact ID of the last birthday of the previous page, 0 for the first page
+     * @param size The maximum number of birthdays to return
+     * @return The page of birthdays
+     */
+    public List<UpcomingBirthdayDTO> getBirthdayPageByOwner(LocalDate from, int days, long afterUserId,
+                                                            long afterId, int size) {
+        BirthdayWindow window = BirthdayWindow.of(from, days);
+        List<KeyRange> ranges = window.ranges();
+        KeyRange range = ranges.get(0);
+        KeyRange wrap = ranges.size() > 1 ? ranges.get(1) : KeyRange.EMPTY;
+        return shardRouting.scatterGather(() ->
+                        contactRepository.findBirthdayPageByOwner(range.from(), range.to(), wrap.from(), wrap.to(),
+                                        afterUserId, afterId, PageRequest.of(0, size)).stream()
+                                .map(contact -> convertToUpcomingBirthdayDTO(contact, window.from()))
+                                .toList(),
+                Comparator.comparing(UpcomingBirthdayDTO::getUserId).thenComparing(UpcomingBirthdayDTO::getContactId),
+                size);
+    }
+
+    /**
+     * Reads the birthdays of each key range in turn, until the limit is reached.
+     */
+    private List<UpcomingBirthdayDTO> findUpcoming(BirthdayWindow window, int limit, BirthdayQuery query) {
+        List<UpcomingBirthdayDTO> birthdays = new ArrayList<>();
+        for (KeyRange range : window.ranges()) {
+            if (birthdays.size() >= limit) {
+                break;
+            }
+            for (Contact contact : query.find(range.from(), range.to(), PageRequest.of(0, limit - birthdays.size()))) {
+                birthdays.add(convertToUpcomingBirthdayDTO(contact, window.from()));
+            }
+        }
+        return birthdays;
+    }
+
+    static UpcomingBirthdayDTO convertToUpcomingBirthdayDTO(Contact contact, LocalDate from) {
+        LocalDate next = nextBirthday(contact.getBirthDate(), from);
+        return new UpcomingBirthdayDTO(contact.getId(),
+                contact.getUser() != null ? contact.getUser().getId() : null,
+                contact.getFirstName(), contact.getLastName(), contact.getEmail(),
+                contact.getBirthDate(), next, next.getYear() - contact.getBirthDate().getYear());
+    }
+
+    /**
+     * @param birthDate The date of birth
+     * @param from The first day to consider
+     * @return The first birthday on or after the given day
+     */
+    static LocalDate nextBirthday(LocalDate birthDate, LocalDate from) {
+        // atYear moves February 29 to February 28 in other years
+        MonthDay birthday = MonthDay.from(birthDate);
+        LocalDate next = birthday.atYear(from.getYear());
+        return next.isBefore(from) ? birthday.atYear(from.getYear() + 1) : next;
+    }
+
+    /**
+     * @return The birthday key of a date, the same as the birthday_key database function
+     */
+    static int birthdayKey(LocalDate date) {
+        return date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    /**
+     * The days from one day to another, both included.
+     */
+    record BirthdayWindow(LocalDate from, LocalDate to) {
+
+        static BirthdayWindow of(LocalDate from, int days) {
+            return new BirthdayWindow(from, from.plusDays(Math.min(Math.max(days, 0), MAX_DAYS)));
+        }
+
+        /**
+         * @return The key ranges of the window, two if it crosses the end of the year
+         */
+        List<KeyRange> ranges() {
+            int fromKey = birthdayKey(from);
+            int toKey = birthdayKey(to);
+            if (!to.isLeapYear() && toKey == 228) {
+                // The birthday of those born on February 29
+                toKey = 229;
+            }
+            if (to.getYear() == from.getYear()) {
+                return List.of(new KeyRange(fromKey, toKey));
+            }
+            // A year or more: the second range stops before the first one starts
+            return List.of(new KeyRange(fromKey, 1231), new KeyRange(101, Math.min(toKey, fromKey - 1)));
+        }
+    }
+
+    /**
+     * Birthday keys from one key to another, both included.
+     */
+    record KeyRange(int from, int to) {
+        static final KeyRange EMPTY = new KeyRange(1, 0);
+    }
+
+    @FunctionalInterface
+    private interface BirthdayQuery {
+        List<Contact> find(int fromKey, int toKey, Pageable page);
+    }
+}
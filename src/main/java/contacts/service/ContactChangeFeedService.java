@@ -0,0 +1,381 @@
+package contacts.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import contacts.dto.ContactChangeDTO;
+import contacts.event.ContactChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that pushes committed contact changes to Server-Sent Events subscribers.
+ *
+ * Subscribers are indexed by the user whose contacts they may see, and admins are kept in a
+ * separate set, so a change is only offered to the owner's and the admins' connections.
+ * Each change is serialized once, whatever the number of recipients. An idle connection
+ * holds no thread: every subscriber has a small bounded queue, drained by a shared
+ * dispatcher pool only while it has events. A subscriber whose queue is full is too slow
+ * to keep up and is disconnected. A write that blocks for longer than the write timeout
+ * disconnects its subscriber as well, and the pool gets a replacement thread until the
+ * blocked write returns, so a stalled client can neither grow the heap nor delay the others.
+ * Disconnected clients reconnect and catch up with a regular list request.
+ *
+ * Exposes the metrics contacts.changes.subscribers and contacts.changes.evicted.
+ */
+@Service
+public class ContactChangeFeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactChangeFeedService.class);
+
+    /** Queue entry for a heartbeat comment, which keeps proxies from closing idle connections */
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final ObjectMapper objectMapper;
+    private final Executor dispatcher;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long writeTimeoutNanos;
+
+    private final Map<Long, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> adminSubscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private Counter evictedCounter;
+
+    /**
+     * Constructor for ContactChangeFeedService.
+     *
+     * @param objectMapper Mapper used to serialize the changes
+     * @param dispatcherThreads Number of threads writing events to the connections
+     * @param bufferSize Maximum number of undelivered events per subscriber
+     * @param maxSubscribers Maximum number of open connections
+     * @param timeout Time after which a connection is closed and the client has to reconnect
+     * @param writeTimeout Time after which a blocked write disconnects its subscriber
+     */
+    @Autowired
+    public ContactChangeFeedService(ObjectMapper objectMapper,
+                                    @Value("${contacts.changes.dispatcher-threads:4}") int dispatcherThreads,
+                                    @Value("${contacts.changes.buffer-size:64}") int bufferSize,
+                                    @Value("${contacts.changes.max-subscribers:10000}") int maxSubscribers,
+                                    @Value("${contacts.changes.timeout:30m}") Duration timeout,
+                                    @Value("${contacts.changes.write-timeout:10s}") Duration writeTimeout) {
+        this(objectMapper, newDispatcher(dispatcherThreads), bufferSize, maxSubscribers, timeout.toMillis(),
+                writeTimeout.toMillis());
+    }
+
+    ContactChangeFeedService(ObjectMapper objectMapper, Executor dispatcher, int bufferSize,
+                             int maxSubscribers, long timeoutMillis, long writeTimeoutMillis) {
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutNanos = writeTimeoutMillis * 1_000_000;
+    }
+
+    /**
+     * Registers the metrics of the change feed.
+     *
+     * @param meterRegistry Registry for the metrics
+     */
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("contacts.changes.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        evictedCounter = Counter.builder("contacts.changes.evicted").register(meterRegistry);
+    }
+
+    private static ExecutorService newDispatcher(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens a change feed connection.
+     *
+     * @param userId The ID of the subscribing user
+     * @param admin Whether the subscribing user is an admin and sees every change
+     * @return The emitter of the connection, or null if the maximum number of connections is reached
+     */
+    public SseEmitter subscribe(Long userId, boolean admin) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        return register(emitter, userId, admin) ? emitter : null;
+    }
+
+    /**
+     * Registers an emitter to receive the changes visible to the given user.
+     *
+     * @param emitter The emitter of the connection
+     * @param userId The ID of the subscribing user
+     * @param admin Whether the subscribing user is an admin
+     * @return false if the maximum number of connections is reached
+     */
+    boolean register(SseEmitter emitter, Long userId, boolean admin) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            logger.warn("Change feed subscription of user {} rejected, {} connections open", userId, maxSubscribers);
+            return false;
+        }
+
+        Subscriber subscriber = new Subscriber(emitter, userId, admin, bufferSize);
+        if (admin) {
+            adminSubscribers.add(subscriber);
+        } else {
+            subscribersByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        emitter.onCompletion(() -> unregister(subscriber));
+        emitter.onTimeout(() -> unregister(subscriber));
+        emitter.onError(e -> unregister(subscriber));
+        logger.debug("Change feed subscribed: user {}, admin {}", userId, admin);
+        return true;
+    }
+
+    private void unregister(Subscriber subscriber) {
+        boolean removed;
+        if (subscriber.admin) {
+            removed = adminSubscribers.remove(subscriber);
+        } else {
+            Set<Subscriber> subscribers = subscribersByUser.get(subscriber.userId);
+            removed = subscribers != null && subscribers.remove(subscriber);
+            if (subscribers != null && subscribers.isEmpty()) {
+                subscribersByUser.remove(subscriber.userId, subscribers);
+            }
+        }
+        if (removed) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends a contact change to the owner's and the admins' connections once the
+     * transaction that made it has committed, so rolled back changes are never announced.
+     *
+     * @param event The contact change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        Set<Subscriber> owners = event.getUserId() != null ? subscribersByUser.get(event.getUserId()) : null;
+        if ((owners == null || owners.isEmpty()) && adminSubscribers.isEmpty()) {
+            return;
+        }
+
+        Set<ResponseBodyEmitter.DataWithMediaType> message;
+        try {
+            ContactChangeDTO change = new ContactChangeDTO(event.getType(), event.getContactId(), event.getCurrent());
+            message = SseEmitter.event()
+                    .id(Long.toString(eventIds.incrementAndGet()))
+                    .name("contact")
+                    .data(objectMapper.writeValueAsString(change), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize change of contact {}", event.getContactId(), e);
+            return;
+        }
+
+        if (owners != null) {
+            for (Subscriber subscriber : owners) {
+                subscriber.offer(message);
+            }
+        }
+        for (Subscriber subscriber : adminSubscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment to every connection. Besides keeping proxies from closing
+     * idle connections, this detects clients that went away without closing the connection.
+     */
+    @Scheduled(fixedDelayString = "${contacts.changes.heartbeat-interval-ms:25000}")
+    public void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : subscribersByUser.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+        for (Subscriber subscriber : adminSubscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose write has been blocked for longer than the write timeout.
+     * Their dispatcher thread stays blocked until the write fails, so the pool gets another one meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${contacts.changes.write-check-interval-ms:1000}")
+    public void checkWriteDeadlines() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subscribers : subscribersByUser.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.checkWriteDeadline(now);
+            }
+        }
+        for (Subscriber subscriber : adminSubscribers) {
+            subscriber.checkWriteDeadline(now);
+        }
+    }
+
+    private void resizeDispatcher(int delta) {
+        if (dispatcher instanceof ThreadPoolExecutor pool) {
+            synchronized (pool) {
+                // The core size may not exceed the maximum, so the maximum grows first and shrinks last
+                if (delta > 0) {
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                } else {
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of open connections
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * One connection. Only the dispatcher thread that holds the scheduled flag writes to
+     * the emitter, so a blocked write never blocks the thread that publishes a change.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean admin;
+        private final ArrayBlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean evicted;
+        // Start of the write in progress, 0 when not writing
+        private volatile long writeStartedNanos;
+        // Whether the dispatcher pool has an extra thread for the blocked write of this subscriber
+        private boolean stalled;
+
+        private Subscriber(SseEmitter emitter, Long userId, boolean admin, int bufferSize) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.admin = admin;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> message) {
+            if (evicted) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                // Slow consumer: drop its backlog and let the dispatcher close the connection
+                evict();
+                logger.info("Change feed subscriber of user {} evicted, {} events undelivered", userId, bufferSize);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                if (evicted) {
+                    emitter.complete();
+                    return;
+                }
+                Set<ResponseBodyEmitter.DataWithMediaType> message = queue.poll();
+                if (message == null) {
+                    scheduled.set(false);
+                    // An event offered after the poll but before the flag was cleared
+                    if ((queue.isEmpty() && !evicted) || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                writeStartedNanos = System.nanoTime();
+                try {
+                    emitter.send(message);
+                } catch (Exception e) {
+                    // The client is gone, the emitter callbacks unregister the subscriber
+                    logger.debug("Change feed send to user {} failed: {}", userId, e.getMessage());
+                    evicted = true;
+                    queue.clear();
+                    unregister(this);
+                    scheduled.set(false);
+                    return;
+                } finally {
+                    writeFinished();
+                }
+            }
+        }
+
+        void checkWriteDeadline(long now) {
+            synchronized (this) {
+                long started = writeStartedNanos;
+                if (stalled || started == 0 || now - started < writeTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+            }
+            // The emitter's lock is held by the blocked write, so the connection is completed once it returns
+            evict();
+            resizeDispatcher(1);
+            logger.info("Change feed subscriber of user {} evicted, write blocked for more than {} ms",
+                    userId, writeTimeoutNanos / 1_000_000);
+        }
+
+        private void writeFinished() {
+            synchronized (this) {
+                writeStartedNanos = 0;
+                if (!stalled) {
+                    return;
+                }
+                stalled = false;
+            }
+            resizeDispatcher(-1);
+        }
+
+        private void evict() {
+            evicted = true;
+            queue.clear();
+            unregister(this);
+            if (evictedCounter != null) {
+                evictedCounter.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.domain.ContactBlockingKey;
+import contacts.domain.DuplicateCandidate;
+import contacts.dto.ContactListDTO;
+import contacts.dto.DuplicateCandidateDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactBlockingKeyRepository;
+import contacts.repository.ContactRepository;
+import contacts.repository.DuplicateCandidateRepository;
+import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
+import contacts.util.PhoneNumberUtils;
+import contacts.util.SoundexUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Service for finding contacts of the same user that are probably the same person.
+ *
+ * Contacts are never compared all against all. Every contact gets a few blocking keys
+ * (normalized phone numbers, email, tax ID, TAJ number and a sound-alike name key), and only
+ * contacts that share a key are scored. A contact is indexed incrementally after every
+ * create and update, and a nightly full scan rebuilds the index user by user, comparing each
+ * contact with a fixed window of neighbours in each of its buckets, so the work grows
+ * linearly with the number of contacts even when a bucket is very large.
+ */
+@Service
+public class ContactDeduplicationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactDeduplicationService.class);
+
+    /** Pairs scoring below this are not reported */
+    public static final double MIN_SCORE = 0.5;
+
+    /** Maximum number of bucket members a changed contact is compared with */
+    static final int MAX_INCREMENTAL_CANDIDATES = 200;
+
+    /** Number of following bucket members each contact is compared with during a full scan */
+    static final int SCAN_WINDOW = 20;
+
+    private static final int MAX_KEY_LENGTH = 120;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ContactRepository contactRepository;
+    private final UserRepository userRepository;
+    private final ContactBlockingKeyRepository blockingKeyRepository;
+    private final DuplicateCandidateRepository duplicateCandidateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouting shardRouting;
+    private final AtomicBoolean scanRunning = new AtomicBoolean();
+
+    /**
+     * Constructor for ContactDeduplicationService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param userRepository Repository for user operations
+     * @param blockingKeyRepository Repository for the blocking key index
+     * @param duplicateCandidateRepository Repository for detected duplicate pairs
+     * @param transactionManager Transaction manager, used to scan each user in its own transaction
+     * @param shardRouting Routing of the full scan, each user is scanned on its own shard
+     */
+    public ContactDeduplicationService(ContactRepository contactRepository,
+                                       UserRepository userRepository,
+                                       ContactBlockingKeyRepository blockingKeyRepository,
+                                       DuplicateCandidateRepository duplicateCandidateRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       ShardRouting shardRouting) {
+        this.contactRepository = contactRepository;
+        this.userRepository = userRepository;
+        this.blockingKeyRepository = blockingKeyRepository;
+        this.duplicateCandidateRepository = duplicateCandidateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouting = shardRouting;
+    }
+
+    /**
+     * Re-indexes a contact after the transaction that changed it has committed.
+     * Runs on a background thread, so saving a contact does not wait for the comparison.
+     * Deleted contacts need no work, their keys and pairs are removed by the database.
+     * The contact row is locked and read again, so when changes of the same contact are indexed
+     * concurrently or out of order, they run one after the other and each indexes the latest state.
+     *
+     * @param event The contact change
+     */
+    @Async
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onContactChanged(ContactChangedEvent event) {
+        if (event.getType() == ContactChangedEvent.Type.DELETED || event.getUserId() == null) {
+            return;
+        }
+        contactRepository.findByIdForUpdate(event.getContactId())
+                .ifPresent(contact -> indexContact(event.getUserId(), ContactService.convertToContactListDTO(contact)));
+    }
+
+    /**
+     * Replaces the blocking keys and duplicate pairs of one contact.
+     *
+     * @param userId The ID of the user who owns the contact
+     * @param contact The contact
+     */
+    void indexContact(Long userId, ContactListDTO contact) {
+        Long contactId = contact.getId();
+        blockingKeyRepository.deleteByContactId(contactId);
+        duplicateCandidateRepository.deleteByContact(contactId);
+
+        Set<String> keys = blockingKeys(contact);
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<ContactBlockingKey> rows = new ArrayList<>();
+        for (String key : keys) {
+            rows.add(new ContactBlockingKey(contactId, userId, key));
+        }
+        blockingKeyRepository.saveAll(rows);
+
+        // Only the newest members of the shared buckets are compared
+        List<Long> memberIds = blockingKeyRepository.findBucketMembers(userId, keys, contactId,
+                PageRequest.of(0, MAX_INCREMENTAL_CANDIDATES));
+        if (memberIds.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DuplicateCandidate> candidates = new ArrayList<>();
+        for (Contact other : contactRepository.findAllById(memberIds)) {
+            double score = score(contact, ContactService.convertToContactListDTO(other));
+            if (score >= MIN_SCORE) {
+                candidates.add(createCandidate(userId, contactId, other.getId(), score, now));
+            }
+        }
+        saveCandidates(candidates);
+        logger.debug("contact {} indexed with {} keys, {} duplicate candidates", contactId, keys.size(), candidates.size());
+    }
+
+    /**
+     * Rebuilds the blocking keys and duplicate pairs of every user.
+     * Each user is processed in its own transaction; a scan that is already running is not started again.
+     */
+    @Scheduled(cron = "${contacts.dedup.scan-cron:0 30 2 * * *}")
+    public void scanAll() {
+        if (!scanRunning.compareAndSet(false, true)) {
+            logger.info("duplicate scan already running, skipping");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> userIds = userRepository.findAllIds();
+            for (Long userId : userIds) {
+                shardRouting.onShard(shardRouting.shardForUser(userId),
+                        () -> transactionTemplate.executeWithoutResult(status -> scanUser(userId)));
+            }
+            logger.info("duplicate scan finished for {} users in {} ms", userIds.size(), System.currentTimeMillis() - start);
+        } finally {
+            scanRunning.set(false);
+        }
+    }
+
+    /**
+     * Starts a full scan on a background thread.
+     */
+    @Async
+    public void requestFullScan() {
+        scanAll();
+    }
+
+    /**
+     * Rebuilds the blocking keys and duplicate pairs of one user.
+     *
+     * @param userId The ID of the user
+     */
+    void scanUser(Long userId) {
+        List<ContactListDTO> contacts = contactRepository.findByUserId(userId).stream()
+                .map(ContactService::convertToContactListDTO)
+                .toList();
+
+        // Group the contacts into buckets
+        Map<String, List<ContactListDTO>> buckets = new HashMap<>();
+        List<ContactBlockingKey> rows = new ArrayList<>();
+        for (ContactListDTO contact : contacts) {
+            for (String key : blockingKeys(contact)) {
+                buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(contact);
+                rows.add(new ContactBlockingKey(contact.getId(), userId, key));
+            }
+        }
+
+        // Score each contact against the next SCAN_WINDOW members of each of its buckets
+        Map<ContactPair, Double> scores = new HashMap<>();
+        for (List<ContactListDTO> bucket : buckets.values()) {
+            bucket.sort(Comparator.comparing(ContactListDTO::getId));
+            for (int i = 0; i < bucket.size(); i++) {
+                int end = Math.min(bucket.size(), i + 1 + SCAN_WINDOW);
+                for (int j = i + 1; j < end; j++) {
+                    ContactListDTO a = bucket.get(i);
+                    ContactListDTO b = bucket.get(j);
+                    scores.computeIfAbsent(new ContactPair(a.getId(), b.getId()), pair -> score(a, b));
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DuplicateCandidate> candidates = new ArrayList<>();
+        scores.forEach((pair, score) -> {
+            if (score >= MIN_SCORE) {
+                candidates.add(createCandidate(userId, pair.low(), pair.high(), score, now));
+            }
+        });
+
+        blockingKeyRepository.deleteByUserId(userId);
+        duplicateCandidateRepository.deleteByUserId(userId);
+        blockingKeyRepository.saveAll(rows);
+        saveCandidates(candidates);
+        logger.debug("user {}: {} contacts, {} buckets, {} comparisons, {} duplicate candidates",
+                userId, contacts.size(), buckets.size(), scores.size(), candidates.size());
+    }
+
+    /**
+     * Get the detected duplicate pairs, most similar first.
+     * Admin users see the pairs of every user, other users only their own.
+     *
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @param limit Maximum number of pairs to return
+     * @return The duplicate pairs
+     */
+    @Transactional(readOnly = true)
+    public List<DuplicateCandidateDTO> getDuplicateCandidates(Long userId, boolean admin, int limit) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<DuplicateCandidate> candidates;
+        if (admin) {
+            candidates = duplicateCandidateRepository.findAllByOrderByScoreDesc(page);
+        } else if (userId != null) {
+            candidates = duplicateCandidateRepository.findByUserIdOrderByScoreDesc(userId, page);
+        } else {
+            return List.of();
+        }
+        return candidates.stream()
+                .map(c -> new DuplicateCandidateDTO(c.getContactId(), c.getOtherContactId(), c.getScore(), c.getDetectedAt()))
+                .toList();
+    }
+
+    /**
+     * Computes the blocking keys of a contact. Each key is prefixed with its type,
+     * so equal values of different fields never share a bucket.
+     *
+     * @param contact The contact
+     * @return The blocking keys, possibly empty
+     */
+    public static Set<String> blockingKeys(ContactListDTO contact) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (contact.getPhoneNumbers() != null) {
+            for (ContactListDTO.PhoneNumberDTO phoneNumber : contact.getPhoneNumbers()) {
+                addKey(keys, "P:", PhoneNumberUtils.normalize(phoneNumber.getPhoneNumber()));
+            }
+        }
+        addKey(keys, "E:", lowerCase(contact.getEmail()));
+        addKey(keys, "T:", trim(contact.getTaxId()));
+        addKey(keys, "J:", trim(contact.getTajNumber()));
+
+        // The two name codes are sorted, so swapped first and last names share the key
+        String first = SoundexUtils.soundex(contact.getFirstName());
+        String last = SoundexUtils.soundex(contact.getLastName());
+        if (first != null && last != null) {
+            addKey(keys, "N:", first.compareTo(last) <= 0 ? first + last : last + first);
+        }
+        return keys;
+    }
+
+    /**
+     * Computes how likely it is that two contacts are the same person.
+     * Equal tax IDs or TAJ numbers are decisive; otherwise shared phone numbers, email,
+     * names, birth date and mother's name add up, and a differing birth date counts against.
+     *
+     * @param a The first contact
+     * @param b The second contact
+     * @return A score between 0 and 1
+     */
+    public static double score(ContactListDTO a, ContactListDTO b) {
+        if (equalValues(trim(a.getTaxId()), trim(b.getTaxId()))
+                || equalValues(trim(a.getTajNumber()), trim(b.getTajNumber()))) {
+            return 1.0;
+        }
+
+        double score = 0;
+        if (sharePhoneNumber(a, b)) {
+            score += 0.5;
+        }
+        if (equalValues(lowerCase(a.getEmail()), lowerCase(b.getEmail()))) {
+            score += 0.5;
+        }
+
+        String nameA = fullName(a.getFirstName(), a.getLastName());
+        if (nameA != null && (nameA.equals(fullName(b.getFirstName(), b.getLastName()))
+                || nameA.equals(fullName(b.getLastName(), b.getFirstName())))) {
+            score += 0.4;
+        } else if (soundsAlike(a, b)) {
+            score += 0.25;
+        }
+
+        if (a.getBirthDate() != null && b.getBirthDate() != null) {
+            score += a.getBirthDate().equals(b.getBirthDate()) ? 0.3 : -0.3;
+        }
+        if (equalValues(lowerCase(a.getMotherName()), lowerCase(b.getMotherName()))) {
+            score += 0.1;
+        }
+        return Math.max(0, Math.min(1, score));
+    }
+
+    private static boolean sharePhoneNumber(ContactListDTO a, ContactListDTO b) {
+        if (a.getPhoneNumbers() == null || b.getPhoneNumbers() == null) {
+            return false;
+        }
+        for (ContactListDTO.PhoneNumberDTO phoneA : a.getPhoneNumbers()) {
+            String normalized = PhoneNumberUtils.normalize(phoneA.getPhoneNumber());
+            if (normalized == null) {
+                continue;
+            }
+            for (ContactListDTO.PhoneNumberDTO phoneB : b.getPhoneNumbers()) {
+                if (normalized.equals(PhoneNumberUtils.normalize(phoneB.getPhoneNumber()))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean soundsAlike(ContactListDTO a, ContactListDTO b) {
+        String firstA = SoundexUtils.soundex(a.getFirstName());
+        String lastA = SoundexUtils.soundex(a.getLastName());
+        String firstB = SoundexUtils.soundex(b.getFirstName());
+        String lastB = SoundexUtils.soundex(b.getLastName());
+        if (firstA == null || lastA == null) {
+            return false;
+        }
+        return (firstA.equals(firstB) && lastA.equals(lastB)) || (firstA.equals(lastB) && lastA.equals(firstB));
+    }
+
+    private static DuplicateCandidate createCandidate(Long userId, Long contactId, Long otherContactId,
+                                                      double score, LocalDateTime detectedAt) {
+        DuplicateCandidate candidate = new DuplicateCandidate();
+        candidate.setUserId(userId);
+        candidate.setContactId(Math.min(contactId, otherContactId));
+        candidate.setOtherContactId(Math.max(contactId, otherContactId));
+        candidate.setScore(score);
+        candidate.setDetectedAt(detectedAt);
+        return candidate;
+    }
+
+    private void saveCandidates(List<DuplicateCandidate> candidates) {
+        for (DuplicateCandidate candidate : candidates) {
+            duplicateCandidateRepository.insertIfAbsent(candidate.getUserId(), candidate.getContactId(),
+                    candidate.getOtherContactId(), candidate.getScore(), candidate.getDetectedAt());
+        }
+    }
+
+    private static void addKey(Set<String> keys, String prefix, String value) {
+        if (value != null && !value.isEmpty()) {
+            String key = prefix + value;
+            keys.add(key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key);
+        }
+    }
+
+    private static String fullName(String first, String second) {
+        if (first == null || second == null) {
+            return null;
+        }
+        return (first.trim() + " " + second.trim()).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean equalValues(String a, String b) {
+        return a != null && !a.isEmpty() && Objects.equals(a, b);
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : null;
+    }
+
+    private static String lowerCase(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * An unordered pair of contact IDs.
+     */
+    private record ContactPair(long low, long high) {
+        ContactPair {
+            if (low > high) {
+                long swap = low;
+                low = high;
+                high = swap;
+            }
+        }
+    }
+}
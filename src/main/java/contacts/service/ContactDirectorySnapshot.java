@@ -0,0 +1,491 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of every contact as a DTO, in ID order, which serves the admin's list of all
+ * contacts without reading the database.
+ *
+ * The copy is loaded once the application has started, in ID ranges read in parallel. It is
+ * never modified: a change builds a new sorted array, and readers keep the array they got.
+ * Contacts changed on this instance are queued when their transaction commits and merged by
+ * the next read, so a burst of writes costs one copy, and an admin sees their own change at
+ * once. Changes made by other instances, or directly in the database, are read by a poll of
+ * the row versions and tombstones since the previous one (see ContactSyncService), so they
+ * show up within the poll interval. If no poll succeeded for longer than the maximum
+ * staleness, the copy is not used until one does.
+ *
+ * The size of the copy is estimated from its strings and lists. A copy larger than the memory
+ * budget is dropped, and the feature stays off until the application is restarted.
+ *
+ * Exposes the metrics contacts.directory.contacts, contacts.directory.bytes and contacts.directory.age.
+ */
+@Service
+public class ContactDirectorySnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactDirectorySnapshot.class);
+
+    /** Number of contacts read by one query while loading and polling */
+    private static final int PAGE_SIZE = 1000;
+
+    private final ContactRepository contactRepository;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int buildThreads;
+    private final long maxBytes;
+    private final long maxStalenessMillis;
+    private final Clock clock;
+
+    private volatile Directory directory;
+    private volatile boolean disabled;
+    private volatile long lastPollMillis;
+    // Per shard, the oldest transaction running when the previous poll started; the next poll starts there
+    private final long[] horizons;
+
+    // Contacts changed on this instance and not merged yet, by ID; a deletion has no contact
+    private final Map<Long, Change> pending = new ConcurrentHashMap<>();
+    // Sequence of the last local change of each contact, so that a poll does not undo a newer one
+    private final Map<Long, Long> localChanges = new ConcurrentHashMap<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    /**
+     * Constructor for ContactDirectorySnapshot.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param shardRouting Routing of the reads, the copy holds the contacts of every shard
+     * @param enabled Whether the copy is loaded at all
+     * @param buildThreads Number of ID ranges of each shard loaded in parallel
+     * @param maxMemory Memory budget of the copy, above which it is dropped
+     * @param maxStaleness Time without a successful poll after which the copy is not used
+     */
+    @Autowired
+    public ContactDirectorySnapshot(ContactRepository contactRepository, ShardRouting shardRouting,
+                                    @Value("${contacts.directory.enabled:true}") boolean enabled,
+                                    @Value("${contacts.directory.build-threads:4}") int buildThreads,
+                                    @Value("${contacts.directory.max-memory:256MB}") DataSize maxMemory,
+                                    @Value("${contacts.directory.max-staleness:10s}") Duration maxStaleness) {
+        this(contactRepository, shardRouting, enabled, buildThreads, maxMemory.toBytes(), maxStaleness.toMillis(),
+                Clock.systemUTC());
+    }
+
+    ContactDirectorySnapshot(ContactRepository contactRepository, ShardRouting shardRouting, boolean enabled,
+                             int buildThreads, long maxBytes, long maxStalenessMillis, Clock clock) {
+        this.contactRepository = contactRepository;
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.buildThreads = Math.max(1, buildThreads);
+        this.maxBytes = maxBytes;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.clock = clock;
+        this.horizons = new long[shardRouting.getShardCount()];
+    }
+
+    /**
+     * Registers the metrics of the copy.
+     *
+     * @param meterRegistry Registry for the metrics
+     */
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        Gauge.builder("contacts.directory.contacts", this, ContactDirectorySnapshot::size)
+                .register(meterRegistry);
+        Gauge.builder("contacts.directory.bytes", this, snapshot -> snapshot.directory != null ? snapshot.directory.bytes : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("contacts.directory.age", this, snapshot -> snapshot.directory != null
+                        ? (snapshot.clock.millis() - snapshot.lastPollMillis) / 1000.0 : 0)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get every contact, with the changes committed on this instance and those read by the last poll.
+     *
+     * @return Unmodifiable list of all contact DTOs in ID order, shared with the other readers;
+     *         empty if the copy is not loaded, is turned off, or no poll succeeded for too long
+     */
+    public Optional<List<ContactListDTO>> getContacts() {
+        Directory current = directory;
+        if (current == null || clock.millis() - lastPollMillis > maxStalenessMillis) {
+            return Optional.empty();
+        }
+        if (!pending.isEmpty()) {
+            current = mergePending();
+            if (current == null) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(current.view);
+    }
+
+    /**
+     * Queues a committed change of this instance for the next read.
+     *
+     * @param event The contact change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        if (directory == null) {
+            // Not loaded yet: the first poll after loading reads the change
+            return;
+        }
+        long sequence = changeSequence.incrementAndGet();
+        localChanges.put(event.getContactId(), sequence);
+        pending.put(event.getContactId(), new Change(event.getCurrent(), sequence));
+    }
+
+    /**
+     * Loads the copy in the background once the application has started.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            build();
+        }
+    }
+
+    /**
+     * Reads the contacts changed and deleted on any instance since the previous poll.
+     */
+    @Scheduled(fixedDelayString = "${contacts.directory.poll-interval-ms:1000}")
+    public void poll() {
+        if (directory == null) {
+            return;
+        }
+        long sequence = changeSequence.get();
+        Map<Long, ContactListDTO> changes = new HashMap<>();
+        long[] next = horizons.clone();
+        try {
+            for (int shard = 0; shard < horizons.length; shard++) {
+                int current = shard;
+                shardRouting.query(shard, () -> {
+                    // Read first: rows of transactions still running at that point are read by the next poll
+                    next[current] = contactRepository.currentSnapshotXmin();
+                    readChanges(horizons[current], changes);
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Polling contact changes for the directory snapshot failed: {}", e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            if (directory == null) {
+                return;
+            }
+            System.arraycopy(next, 0, horizons, 0, horizons.length);
+            // A local change committed after the poll started is newer than what the poll read
+            changes.keySet().removeIf(id -> localChanges.getOrDefault(id, 0L) > sequence);
+            localChanges.values().removeIf(changed -> changed <= sequence);
+            // The queued local changes from before the poll are merged first, so that the rows it
+            // read, which may be newer changes of another instance, win over them
+            Map<Long, ContactListDTO> merged = new HashMap<>();
+            for (Map.Entry<Long, Change> entry : new ArrayList<>(pending.entrySet())) {
+                if (entry.getValue().sequence() <= sequence && pending.remove(entry.getKey(), entry.getValue())) {
+                    merged.put(entry.getKey(), entry.getValue().contact());
+                }
+            }
+            merged.putAll(changes);
+            if (!merged.isEmpty()) {
+                apply(merged);
+            }
+            lastPollMillis = clock.millis();
+        }
+    }
+
+    /**
+     * @return Whether the copy is loaded and in use
+     */
+    public boolean isLoaded() {
+        return directory != null;
+    }
+
+    int size() {
+        Directory current = directory;
+        return current != null ? current.ids.length : 0;
+    }
+
+    /**
+     * Loads every contact in parallel, then reads the changes committed while loading.
+     */
+    synchronized void build() {
+        if (directory != null || disabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Range> ranges = new ArrayList<>();
+        for (int shard = 0; shard < horizons.length; shard++) {
+            int current = shard;
+            long maxId = shardRouting.query(shard, () -> {
+                horizons[current] = contactRepository.currentSnapshotXmin();
+                return contactRepository.findMaxId();
+            });
+            long step = Math.max(1, (maxId + buildThreads - 1) / buildThreads);
+            for (long from = 0; from < maxId; from += step) {
+                ranges.add(new Range(shard, from, Math.min(maxId, from + step)));
+            }
+        }
+
+        AtomicLong bytes = new AtomicLong();
+        AtomicBoolean overBudget = new AtomicBoolean();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(buildThreads, runnable -> {
+            Thread thread = new Thread(runnable, "directory-load-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<ContactListDTO> contacts = new ArrayList<>();
+        try {
+            List<Future<List<ContactListDTO>>> futures = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+                futures.add(executor.submit(() -> load(range, bytes, overBudget)));
+            }
+            for (Future<List<ContactListDTO>> future : futures) {
+                contacts.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            logger.warn("Loading the directory snapshot failed, contacts are listed from the database: {}",
+                    e.getCause().getMessage());
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+        if (overBudget.get()) {
+            disable();
+            return;
+        }
+
+        // The shards' IDs interleave
+        contacts.sort(Comparator.comparing(ContactListDTO::getId));
+        directory = Directory.of(contacts, bytes.get());
+        lastPollMillis = clock.millis();
+        logger.info("Directory snapshot loaded {} contacts in {} ms, about {} MB", contacts.size(),
+                System.currentTimeMillis() - start, bytes.get() >> 20);
+        poll();
+    }
+
+    private List<ContactListDTO> load(Range range, AtomicLong bytes, AtomicBoolean overBudget) {
+        List<ContactListDTO> contacts = new ArrayList<>();
+        long afterId = range.fromId();
+        while (!overBudget.get()) {
+            long after = afterId;
+            List<ContactListDTO> page = shardRouting.query(range.shard(), () ->
+                    contactRepository.findPageBetween(after, range.toId(), PageRequest.of(0, PAGE_SIZE)).stream()
+                            .map(ContactService::convertToContactListDTO)
+                            .collect(Collectors.toList()));
+            for (ContactListDTO contact : page) {
+                if (bytes.addAndGet(estimateBytes(contact)) > maxBytes) {
+                    overBudget.set(true);
+                }
+            }
+            contacts.addAll(page);
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        return contacts;
+    }
+
+    private void readChanges(long horizon, Map<Long, ContactListDTO> changes) {
+        // Everything from the previous horizon on, as it may have committed after the previous poll
+        long afterVersion = horizon - 1;
+        long afterId = Long.MAX_VALUE;
+        List<ContactRepository.ChangeRow> rows;
+        do {
+            rows = contactRepository.findChangesAfter(afterVersion, afterId, true, PAGE_SIZE);
+            List<Long> changedIds = new ArrayList<>();
+            for (ContactRepository.ChangeRow row : rows) {
+                changes.put(row.getId(), null);
+                if (!row.isDeleted()) {
+                    changedIds.add(row.getId());
+                }
+            }
+            // A contact deleted since its change was listed stays a deletion
+            for (Contact contact : contactRepository.findAllById(changedIds)) {
+                changes.put(contact.getId(), ContactService.convertToContactListDTO(contact));
+            }
+            if (!rows.isEmpty()) {
+                ContactRepository.ChangeRow last = rows.get(rows.size() - 1);
+                afterVersion = last.getRowVersion();
+                afterId = last.getId();
+            }
+        } while (rows.size() == PAGE_SIZE);
+    }
+
+    private synchronized Directory mergePending() {
+        if (directory != null && !pending.isEmpty()) {
+            Map<Long, ContactListDTO> changes = new HashMap<>();
+            for (Long id : new ArrayList<>(pending.keySet())) {
+                Change change = pending.remove(id);
+                if (change != null) {
+                    changes.put(id, change.contact());
+                }
+            }
+            apply(changes);
+        }
+        return directory;
+    }
+
+    /**
+     * Replaces the copy with one that has the given contacts changed; a null contact is deleted.
+     */
+    private void apply(Map<Long, ContactListDTO> changes) {
+        Directory current = directory;
+        TreeMap<Long, ContactListDTO> sorted = new TreeMap<>(changes);
+        int size = current.ids.length;
+        long[] ids = new long[size + sorted.size()];
+        ContactListDTO[] contacts = new ContactListDTO[ids.length];
+        long bytes = current.bytes;
+        int read = 0;
+        int written = 0;
+        for (Map.Entry<Long, ContactListDTO> change : sorted.entrySet()) {
+            long id = change.getKey();
+            while (read < size && current.ids[read] < id) {
+                ids[written] = current.ids[read];
+                contacts[written++] = current.contacts[read++];
+            }
+            if (read < size && current.ids[read] == id) {
+                bytes -= estimateBytes(current.contacts[read++]);
+            }
+            if (change.getValue() != null) {
+                bytes += estimateBytes(change.getValue());
+                ids[written] = id;
+                contacts[written++] = change.getValue();
+            }
+        }
+        int rest = size - read;
+        System.arraycopy(current.ids, read, ids, written, rest);
+        System.arraycopy(current.contacts, read, contacts, written, rest);
+        written += rest;
+        if (bytes > maxBytes) {
+            disable();
+            return;
+        }
+        directory = new Directory(Arrays.copyOf(ids, written), Arrays.copyOf(contacts, written), bytes);
+    }
+
+    private void disable() {
+        disabled = true;
+        directory = null;
+        pending.clear();
+        localChanges.clear();
+        logger.warn("Directory snapshot turned off: the contacts exceed contacts.directory.max-memory of {} MB, "
+                + "they are listed from the database", maxBytes >> 20);
+    }
+
+    /**
+     * Rough size of a DTO on a 64-bit JVM with compressed references: the object and its array
+     * slots, its strings at one byte per character, the date, and the lists with their elements.
+     *
+     * @param contact The contact DTO
+     * @return The estimated number of bytes it holds
+     */
+    static long estimateBytes(ContactListDTO contact) {
+        long bytes = 56 + 12 + 24;
+        bytes += stringBytes(contact.getFirstName()) + stringBytes(contact.getLastName())
+                + stringBytes(contact.getEmail()) + stringBytes(contact.getMotherName())
+                + stringBytes(contact.getTajNumber()) + stringBytes(contact.getTaxId());
+        if (contact.getPhoneNumbers() != null) {
+            bytes += 40 + 4L * contact.getPhoneNumbers().size();
+            for (ContactListDTO.PhoneNumberDTO phoneNumber : contact.getPhoneNumbers()) {
+                bytes += 16 + stringBytes(phoneNumber.getPhoneNumber());
+            }
+        }
+        if (contact.getAddresses() != null) {
+            bytes += 40 + 4L * contact.getAddresses().size();
+            for (ContactListDTO.AddressDTO address : contact.getAddresses()) {
+                bytes += 24 + stringBytes(address.getStreet()) + stringBytes(address.getCity())
+                        + stringBytes(address.getZipCode());
+            }
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value != null ? 40 + value.length() : 0;
+    }
+
+    /**
+     * @param contact The changed contact, or null if it was deleted
+     * @param sequence The sequence of the local change
+     */
+    private record Change(ContactListDTO contact, long sequence) {
+    }
+
+    /**
+     * IDs (fromId, toId] of one shard, loaded by one thread.
+     */
+    private record Range(int shard, long fromId, long toId) {
+    }
+
+    /**
+     * One immutable version of the copy: the IDs in ascending order, which the merges compare
+     * without touching the DTOs, and the contacts in the same order.
+     */
+    private static final class Directory {
+
+        private final long[] ids;
+        private final ContactListDTO[] contacts;
+        private final List<ContactListDTO> view;
+        private final long bytes;
+
+        private Directory(long[] ids, ContactListDTO[] contacts, long bytes) {
+            this.ids = ids;
+            this.contacts = contacts;
+            this.view = Collections.unmodifiableList(Arrays.asList(contacts));
+            this.bytes = bytes;
+        }
+
+        private static Directory of(List<ContactListDTO> contacts, long bytes) {
+            long[] ids = new long[contacts.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = contacts.get(i).getId();
+            }
+            return new Directory(ids, contacts.toArray(new ContactListDTO[0]), bytes);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactListFilterDTO;
+import contacts.repository.ContactRepository;
+import contacts.repository.ContactSpecifications;
+import contacts.routing.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the filtered and sorted contact list.
+ *
+ * The filters are compiled into indexed predicates, but only the combinations that one of the
+ * indexes can answer are accepted, so no request falls back to reading every contact:
+ * <ul>
+ *   <li>city and/or zip code: the address indexes find the contacts, which are then sorted</li>
+ *   <li>owner: (user_id, id), or (user_id, last_name, id) with a last name range or sort</li>
+ *   <li>last name range of all users: (last_name, id), sorted by last name only</li>
+ *   <li>no filter: the primary key, or (last_name, id) for a last name sort</li>
+ * </ul>
+ * Any other combination is rejected with an IllegalArgumentException. Pages are read by keyset,
+ * after the last contact of the previous page.
+ */
+@Service
+public class ContactListQueryService {
+
+    /** Number of contacts returned when no limit is given */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /** Maximum number of contacts returned by one request */
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactListQueryService.class);
+
+    private final ContactRepository contactRepository;
+    private final ShardRouting shardRouting;
+
+    /**
+     * Constructor for ContactListQueryService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param shardRouting Routing of the reads over the shards
+     */
+    public ContactListQueryService(ContactRepository contactRepository, ShardRouting shardRouting) {
+        this.contactRepository = contactRepository;
+        this.shardRouting = shardRouting;
+    }
+
+    /**
+     * Get one page of the contacts matching a filter, in the requested order.
+     *
+     * @param filter The filter, sort and page; the owner is required for regular users
+     * @return The page of contact DTOs
+     * @throws IllegalArgumentException if a parameter is invalid or no index answers the combination
+     */
+    public List<ContactListDTO> findContacts(ContactListFilterDTO filter) {
+        SortOrder order = SortOrder.parse(filter.getSort());
+        int limit = filter.getLimit() != null ? filter.getLimit() : DEFAULT_LIMIT;
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        ListIndex index = indexFor(filter, order.field());
+        if (index == null) {
+            throw new IllegalArgumentException("A last name range of all users can only be sorted by lastName");
+        }
+        logger.debug("filter = {}, index = {}", filter, index);
+
+        Specification<Contact> specification = toSpecification(filter, order);
+        Sort sort = order.toSort();
+        Supplier<List<ContactListDTO>> read = () ->
+                contactRepository.findBy(specification, query -> query.sortBy(sort).limit(limit).all()).stream()
+                        .map(ContactService::convertToContactListDTO)
+                        .collect(Collectors.toList());
+
+        if (filter.getOwnerId() != null) {
+            return shardRouting.query(shardRouting.shardForUser(filter.getOwnerId()), read);
+        }
+        return shardRouting.scatterGather(read, order.comparator(), limit);
+    }
+
+    /**
+     * @return The index that answers a filter and sort, or null if the combination is not accepted
+     */
+    static ListIndex indexFor(ContactListFilterDTO filter, SortField sort) {
+        if (StringUtils.hasText(filter.getCity())) {
+            return ListIndex.ADDRESS_CITY;
+        }
+        if (StringUtils.hasText(filter.getZipCode())) {
+            return ListIndex.ADDRESS_ZIP_CODE;
+        }
+        boolean lastNameRange = StringUtils.hasText(filter.getLastNameFrom()) || StringUtils.hasText(filter.getLastNameTo());
+        if (filter.getOwnerId() != null) {
+            return lastNameRange || sort == SortField.LAST_NAME ? ListIndex.OWNER_LAST_NAME : ListIndex.OWNER;
+        }
+        if (sort == SortField.LAST_NAME) {
+            return ListIndex.LAST_NAME;
+        }
+        // Sorting a range of all users' last names by ID would read and sort the whole range
+        return lastNameRange ? null : ListIndex.PRIMARY_KEY;
+    }
+
+    private static Specification<Contact> toSpecification(ContactListFilterDTO filter, SortOrder order) {
+        List<Specification<Contact>> specifications = new ArrayList<>();
+        if (filter.getOwnerId() != null) {
+            specifications.add(ContactSpecifications.ownedBy(filter.getOwnerId()));
+        }
+        if (StringUtils.hasText(filter.getCity()) || StringUtils.hasText(filter.getZipCode())) {
+            specifications.add(ContactSpecifications.hasAddress(textOrNull(filter.getCity()), textOrNull(filter.getZipCode())));
+        }
+        if (StringUtils.hasText(filter.getLastNameFrom())) {
+            specifications.add(ContactSpecifications.lastNameFrom(filter.getLastNameFrom()));
+        }
+        if (StringUtils.hasText(filter.getLastNameTo())) {
+            specifications.add(ContactSpecifications.lastNameBefore(filter.getLastNameTo()));
+        }
+
+        boolean afterLastName = filter.getAfterLastName() != null;
+        if (order.field() == SortField.LAST_NAME) {
+            if (afterLastName != (filter.getAfterId() != null)) {
+                throw new IllegalArgumentException("afterLastName and afterId are both required to page a lastName sort");
+            }
+            if (afterLastName) {
+                specifications.add(ContactSpecifications.afterLastName(filter.getAfterLastName(), filter.getAfterId(),
+                        order.descending()));
+            }
+        } else {
+            if (afterLastName) {
+                throw new IllegalArgumentException("afterLastName only pages a lastName sort");
+            }
+            if (filter.getAfterId() != null) {
+                specifications.add(ContactSpecifications.afterId(filter.getAfterId(), order.descending()));
+            }
+        }
+        return Specification.allOf(specifications);
+    }
+
+    private static String textOrNull(String value) {
+        return StringUtils.hasText(value) ? value : null;
+    }
+
+    /**
+     * The fields the list can be sorted by; every sort ends with the ID.
+     */
+    enum SortField {
+        ID("id"),
+        LAST_NAME("lastName");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+    }
+
+    /**
+     * A sort field and direction, parsed from "field" or "field,asc|desc".
+     */
+    record SortOrder(SortField field, boolean descending) {
+
+        static SortOrder parse(String sort) {
+            if (!StringUtils.hasText(sort)) {
+                return new SortOrder(SortField.ID, false);
+            }
+            String[] parts = sort.split(",", 2);
+            SortField field = null;
+            for (SortField candidate : SortField.values()) {
+                if (candidate.property.equals(parts[0].trim())) {
+                    field = candidate;
+                }
+            }
+            String direction = parts.length > 1 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+            if (field == null || !(direction.equals("asc") || direction.equals("desc"))) {
+                throw new IllegalArgumentException("Unsupported sort: " + sort + ", expected id or lastName, optionally with ,asc or ,desc");
+            }
+            return new SortOrder(field, direction.equals("desc"));
+        }
+
+        Sort toSort() {
+            Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+            return field == SortField.ID
+                    ? Sort.by(direction, "id")
+                    : Sort.by(direction, field.property, "id");
+        }
+
+        /**
+         * @return The order of the sort in Java, for merging the pages of the shards
+         */
+        Comparator<ContactListDTO> comparator() {
+            Comparator<ContactListDTO> comparator = field == SortField.ID
+                    ? Comparator.comparing(ContactListDTO::getId)
+                    : Comparator.comparing(ContactListDTO::getLastName).thenComparing(ContactListDTO::getId);
+            return descending ? comparator.reversed() : comparator;
+        }
+    }
+
+    /**
+     * The indexes that answer the accepted filter and sort combinations, created by V15.
+     */
+    enum ListIndex {
+        PRIMARY_KEY("contact_pkey"),
+        LAST_NAME("idx_contact_last_name"),
+        OWNER("idx_contact_user_id"),
+        OWNER_LAST_NAME("idx_contact_user_last_name"),
+        ADDRESS_CITY("idx_address_city_zip_code"),
+        ADDRESS_ZIP_CODE("idx_address_zip_code");
+
+        private final String indexName;
+
+        ListIndex(String indexName) {
+            this.indexName = indexName;
+        }
+
+        @Override
+        public String toString() {
+            return indexName;
+        }
+    }
+}
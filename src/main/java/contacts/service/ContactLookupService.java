@@ -0,0 +1,213 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.domain.PhoneNumber;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactLookupRequestDTO;
+import contacts.dto.ContactLookupResponseDTO;
+import contacts.repository.ContactRepository;
+import contacts.repository.PhoneNumberRepository;
+import contacts.util.PhoneNumberUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Service for resolving exact identifiers (phone number, email, TAJ number, tax ID) to contacts.
+ * Every lookup is a single indexed equality query per identifier type, however many
+ * identifiers are requested. Results are restricted to contacts the caller may see:
+ * admins see every contact, other users only their own.
+ */
+@Service
+public class ContactLookupService {
+
+    /** Maximum number of identifiers accepted in one batched lookup */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final ContactRepository contactRepository;
+    private final PhoneNumberRepository phoneNumberRepository;
+
+    /**
+     * Constructor for ContactLookupService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param phoneNumberRepository Repository for phone number operations
+     */
+    public ContactLookupService(ContactRepository contactRepository, PhoneNumberRepository phoneNumberRepository) {
+        this.contactRepository = contactRepository;
+        this.phoneNumberRepository = phoneNumberRepository;
+    }
+
+    /**
+     * Find the contacts with the given phone number, in any format accepted by the phone number validator.
+     *
+     * @param phoneNumber The phone number
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @return The visible contacts with this phone number
+     */
+    @Transactional(readOnly = true)
+    public List<ContactListDTO> findByPhoneNumber(String phoneNumber, Long userId, boolean admin) {
+        return lookupPhoneNumbers(List.of(phoneNumber), userId, admin).get(phoneNumber);
+    }
+
+    /**
+     * Find the contacts with the given email address, ignoring case.
+     *
+     * @param email The email address
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @return The visible contacts with this email address
+     */
+    @Transactional(readOnly = true)
+    public List<ContactListDTO> findByEmail(String email, Long userId, boolean admin) {
+        return lookupEmails(List.of(email), userId, admin).get(email);
+    }
+
+    /**
+     * Find the contacts with the given TAJ number.
+     *
+     * @param tajNumber The TAJ number
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @return The visible contacts with this TAJ number
+     */
+    @Transactional(readOnly = true)
+    public List<ContactListDTO> findByTajNumber(String tajNumber, Long userId, boolean admin) {
+        return lookupBySingleKey(List.of(tajNumber), String::trim, contactRepository::findByTajNumberIn,
+                Contact::getTajNumber, userId, admin).get(tajNumber);
+    }
+
+    /**
+     * Find the contacts with the given tax ID.
+     *
+     * @param taxId The tax ID
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @return The visible contacts with this tax ID
+     */
+    @Transactional(readOnly = true)
+    public List<ContactListDTO> findByTaxId(String taxId, Long userId, boolean admin) {
+        return lookupBySingleKey(List.of(taxId), String::trim, contactRepository::findByTaxIdIn,
+                Contact::getTaxId, userId, admin).get(taxId);
+    }
+
+    /**
+     * Resolve many identifiers of different types in one call.
+     *
+     * @param request The identifiers to resolve
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin
+     * @return The visible contacts for each requested identifier
+     * @throws IllegalArgumentException if more than {@link #MAX_BATCH_SIZE} identifiers are requested
+     */
+    @Transactional(readOnly = true)
+    public ContactLookupResponseDTO lookup(ContactLookupRequestDTO request, Long userId, boolean admin) {
+        List<String> phoneNumbers = nonNull(request.getPhoneNumbers());
+        List<String> emails = nonNull(request.getEmails());
+        List<String> tajNumbers = nonNull(request.getTajNumbers());
+        List<String> taxIds = nonNull(request.getTaxIds());
+
+        int total = phoneNumbers.size() + emails.size() + tajNumbers.size() + taxIds.size();
+        if (total > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " identifiers can be looked up at once");
+        }
+
+        return new ContactLookupResponseDTO(
+                lookupPhoneNumbers(phoneNumbers, userId, admin),
+                lookupEmails(emails, userId, admin),
+                lookupBySingleKey(tajNumbers, String::trim, contactRepository::findByTajNumberIn,
+                        Contact::getTajNumber, userId, admin),
+                lookupBySingleKey(taxIds, String::trim, contactRepository::findByTaxIdIn,
+                        Contact::getTaxId, userId, admin));
+    }
+
+    private Map<String, List<ContactListDTO>> lookupPhoneNumbers(List<String> phoneNumbers, Long userId, boolean admin) {
+        // A contact can have several phone numbers, so it is matched against all of them
+        return lookupByKeys(phoneNumbers, PhoneNumberUtils::normalize,
+                numbers -> phoneNumberRepository.findWithContactByNormalizedNumberIn(numbers).stream()
+                        .map(PhoneNumber::getContact)
+                        .distinct()
+                        .toList(),
+                contact -> contact.getPhoneNumbers().stream().map(PhoneNumber::getNormalizedNumber).toList(),
+                userId, admin);
+    }
+
+    private Map<String, List<ContactListDTO>> lookupEmails(List<String> emails, Long userId, boolean admin) {
+        return lookupBySingleKey(emails, email -> email.trim().toLowerCase(Locale.ROOT),
+                contactRepository::findByLowerCaseEmailIn,
+                contact -> contact.getEmail() != null ? contact.getEmail().toLowerCase(Locale.ROOT) : null,
+                userId, admin);
+    }
+
+    private Map<String, List<ContactListDTO>> lookupBySingleKey(List<String> identifiers,
+                                                                Function<String, String> normalizer,
+                                                                Function<Collection<String>, List<Contact>> query,
+                                                                Function<Contact, String> keyExtractor,
+                                                                Long userId, boolean admin) {
+        return lookupByKeys(identifiers, normalizer, query, contact -> {
+            String key = keyExtractor.apply(contact);
+            return key != null ? List.of(key) : List.of();
+        }, userId, admin);
+    }
+
+    /**
+     * Runs one query for all normalized identifiers and maps the visible results back
+     * to the identifiers as they were requested.
+     */
+    private Map<String, List<ContactListDTO>> lookupByKeys(List<String> identifiers,
+                                                           Function<String, String> normalizer,
+                                                           Function<Collection<String>, List<Contact>> query,
+                                                           Function<Contact, List<String>> keysExtractor,
+                                                           Long userId, boolean admin) {
+        Map<String, List<ContactListDTO>> result = new LinkedHashMap<>();
+        Map<String, String> normalizedByIdentifier = new HashMap<>();
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String identifier : identifiers) {
+            result.put(identifier, new ArrayList<>());
+            String key = identifier != null ? normalizer.apply(identifier) : null;
+            if (key != null) {
+                normalizedByIdentifier.put(identifier, key);
+                normalized.add(key);
+            }
+        }
+        if (normalized.isEmpty() || (!admin && userId == null)) {
+            return result;
+        }
+
+        Map<String, List<ContactListDTO>> byKey = new HashMap<>();
+        for (Contact contact : query.apply(normalized)) {
+            if (!isVisible(contact, userId, admin)) {
+                continue;
+            }
+            ContactListDTO dto = ContactService.convertToContactListDTO(contact);
+            for (String key : keysExtractor.apply(contact)) {
+                if (key != null && normalized.contains(key)) {
+                    byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(dto);
+                }
+            }
+        }
+
+        normalizedByIdentifier.forEach((identifier, key) ->
+                result.get(identifier).addAll(byKey.getOrDefault(key, List.of())));
+        return result;
+    }
+
+    private static boolean isVisible(Contact contact, Long userId, boolean admin) {
+        return admin || (userId != null && contact.getUser() != null && userId.equals(contact.getUser().getId()));
+    }
+
+    private static List<String> nonNull(List<String> values) {
+        return values != null ? values : List.of();
+    }
+}
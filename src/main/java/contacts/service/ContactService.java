@@ -3,22 +3,44 @@ package contacts.service;
 import contacts.domain.Address;
 import contacts.domain.Contact;
 import contacts.domain.PhoneNumber;
-import contacts.domain.User;
 import contacts.dto.ContactListDTO;
 import contacts.dto.ContactRequestDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.event.UserChangedEvent;
+import contacts.exception.DuplicateContactException;
 import contacts.repository.ContactRepository;
 import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
+import contacts.util.PhoneNumberUtils;
+import contacts.util.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Service for managing contacts.
  * Provides methods for CRUD operations on contacts and related entities.
+ *
+ * Concurrent requests for the same contact list (all contacts, or one user's) share a single
+ * query and DTO conversion, see {@link #getAllContactsAsList()}. Exposes the metrics
+ * contacts.list.queries and contacts.list.coalesced.
  */
 @Service
 public class ContactService {
@@ -26,23 +48,65 @@ public class ContactService {
     private static final Logger logger = LoggerFactory.getLogger(ContactService.class);
     private final ContactRepository contactRepository;
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final ContactUniquenessService uniquenessService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouting shardRouting;
+    // Running list queries by the contacts they read
+    private final SingleFlight<ListScope, List<ContactListDTO>> listQueries;
+    private final ContactDirectorySnapshot directorySnapshot;
 
     /**
      * Constructor for ContactService.
      *
      * @param contactRepository Repository for contact operations
      * @param userRepository Repository for user operations
+     * @param userIdentityCache Cache of the existing users
+     * @param uniquenessService Service for TAJ number and tax ID uniqueness checks
+     * @param eventPublisher Publisher for contact change events
+     * @param shardRouting Routing of the reads that span all users' contacts
+     * @param listResultTtl How long a read list is also returned to later requests; zero to share only running reads
+     * @param directorySnapshot In-memory copy of all contacts, which serves the list of all contacts when loaded
      */
-    public ContactService(ContactRepository contactRepository, UserRepository userRepository) {
+    public ContactService(ContactRepository contactRepository, UserRepository userRepository,
+                          UserIdentityCache userIdentityCache, ContactUniquenessService uniquenessService,
+                          ApplicationEventPublisher eventPublisher, ShardRouting shardRouting,
+                          @Value("${contacts.list.coalescing.result-ttl:0ms}") Duration listResultTtl,
+                          ContactDirectorySnapshot directorySnapshot) {
         this.contactRepository = contactRepository;
         this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.uniquenessService = uniquenessService;
+        this.eventPublisher = eventPublisher;
+        this.shardRouting = shardRouting;
+        this.listQueries = new SingleFlight<>(listResultTtl);
+        this.directorySnapshot = directorySnapshot;
     }
 
     /**
-     * Get all contacts in the system.
+     * Registers the metrics of the list request coalescing.
+     *
+     * @param meterRegistry Registry for the metrics
+     */
+    @Autowired
+    void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("contacts.list.queries", listQueries, SingleFlight::getExecuted)
+                .register(meterRegistry);
+        FunctionCounter.builder("contacts.list.coalesced", listQueries, SingleFlight::getJoined)
+                .tag("source", "running")
+                .register(meterRegistry);
+        FunctionCounter.builder("contacts.list.coalesced", listQueries, SingleFlight::getReused)
+                .tag("source", "recent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get all contacts in the system. With sharding enabled, only the contacts of the current
+     * shard; use {@link #getAllContactsAsList()} for all of them.
      *
      * @return List of all contacts
      */
+    @Transactional(readOnly = true)
     public List<Contact> getAllContacts() {
         return contactRepository.findAll();
     }
@@ -53,6 +117,7 @@ public class ContactService {
      * @param id The ID of the contact to retrieve
      * @return The contact or null if not found
      */
+    @Transactional(readOnly = true)
     public Contact getContactById(Long id) {
         return contactRepository.findById(id).orElse(null);
     }
@@ -64,74 +129,156 @@ public class ContactService {
      * @return List of contacts belonging to the user
      * @throws RuntimeException if the user is not found
      */
+    @Transactional(readOnly = true)
     public List<Contact> getContactsByUserId(Long userId) {
-        // Find the user by ID
-        User user = userRepository.findById(userId)
+        // Make sure the user exists, usually without a query
+        userIdentityCache.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Return the user's contacts
-        return user.getContacts();
+        return contactRepository.findByUserId(userId);
     }
 
     /**
-     * Get a list of contacts for a specific user as DTOs.
+     * Get a list of contacts for a specific user as DTOs. Concurrent requests for the same user
+     * share one read, as in {@link #getAllContactsAsList()}.
      *
      * @param userId The ID of the user
-     * @return List of contact DTOs belonging to the user
+     * @return Unmodifiable list of contact DTOs belonging to the user
      * @throws RuntimeException if the user is not found
      */
     public List<ContactListDTO> getContactListByUserId(Long userId) {
         logger.debug("userId = {}", userId);
 
-        // Find the user by ID
-        User user = userRepository.findById(userId)
+        // Make sure the user exists, usually without a query
+        UserIdentityCache.UserIdentity user = userIdentityCache.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        logger.debug("found user = {}, role = {}", user.getUsername(), user.getRole());
+        logger.debug("found user = {}, role = {}", user.username(), user.role());
+
+        List<ContactListDTO> dtos = listQueries.execute(new ListScope(userId), () -> readContactList(userId));
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("returning {} DTOs", dtos.size());
+        }
+        return dtos;
+    }
 
-        // Get the user's contacts
-        List<Contact> contacts = user.getContacts();
-        logger.debug("found {} contacts for user", contacts.size());
+    private List<ContactListDTO> readContactList(Long userId) {
+        return shardRouting.query(shardRouting.shardForUser(userId), () -> {
+            // Get the user's contacts
+            List<Contact> contacts = contactRepository.findByUserId(userId);
+
+            // Log each contact (guarded, so nothing is boxed or iterated unless DEBUG is on)
+            if (logger.isDebugEnabled()) {
+                logger.debug("found {} contacts for user", contacts.size());
+                for (Contact contact : contacts) {
+                    logger.debug("contact id={}, firstName={}, lastName={}",
+                        contact.getId(), contact.getFirstName(), contact.getLastName());
+                }
+            }
 
-        // Log each contact
-        contacts.forEach(contact -> {
-            logger.debug("contact id={}, firstName={}, lastName={}",
-                contact.getId(), contact.getFirstName(), contact.getLastName());
+            // Convert to DTOs while the phone numbers and addresses can still be loaded
+            return Collections.unmodifiableList(contacts.stream()
+                    .map(ContactService::convertToContactListDTO)
+                    .collect(Collectors.toList()));
         });
+    }
 
-        // Convert to DTOs
-        List<ContactListDTO> dtos = contacts.stream()
-                .map(ContactService::convertToContactListDTO)
-                .collect(Collectors.toList());
+    /**
+     * Get a list of all contacts in the system as DTOs, in ID order.
+     * With sharding enabled, every shard is read in parallel and the lists are merged.
+     *
+     * While the {@link ContactDirectorySnapshot} is loaded and fresh, the list is served from it
+     * without reading the database. Otherwise, requests arriving while the list is being read wait
+     * for that read and return the same list, so a burst of identical requests costs one query and
+     * conversion. A request never joins a read that started before a contact change committed on
+     * this instance. With contacts.list.coalescing.result-ttl set, the list is also returned for
+     * that long afterwards.
+     *
+     * @return Unmodifiable list of all contact DTOs, shared with the other requests
+     */
+    public List<ContactListDTO> getAllContactsAsList() {
+        Optional<List<ContactListDTO>> snapshot = directorySnapshot.getContacts();
+        if (snapshot.isPresent()) {
+            return snapshot.get();
+        }
+        List<ContactListDTO> dtos = listQueries.execute(ListScope.ALL, this::readAllContacts);
 
-        logger.debug("returning {} DTOs", dtos.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("returning {} DTOs", dtos.size());
+        }
         return dtos;
     }
 
+    private List<ContactListDTO> readAllContacts() {
+        return Collections.unmodifiableList(shardRouting.scatterGather(() -> {
+            // Get all contacts of the shard
+            List<Contact> contacts = contactRepository.findAllByOrderById();
+
+            // Log each contact (guarded, so nothing is boxed or iterated unless DEBUG is on)
+            if (logger.isDebugEnabled()) {
+                logger.debug("found {} contacts", contacts.size());
+                for (Contact contact : contacts) {
+                    logger.debug("contact id={}, firstName={}, lastName={}, userId={}",
+                        contact.getId(), contact.getFirstName(), contact.getLastName(),
+                        (contact.getUser() != null ? contact.getUser().getId() : "null"));
+                }
+            }
+
+            // Convert to DTOs while the phone numbers and addresses can still be loaded
+            return contacts.stream()
+                    .map(ContactService::convertToContactListDTO)
+                    .collect(Collectors.toList());
+        }, Comparator.comparing(ContactListDTO::getId), Integer.MAX_VALUE));
+    }
+
     /**
-     * Get a list of all contacts in the system as DTOs.
+     * Get one page of contacts as DTOs, in ID order, starting after the given ID.
+     * Each page is read in its own short transaction, so a long export does not hold
+     * a database connection while the client is reading.
      *
-     * @return List of all contact DTOs
+     * @param userId The ID of the user whose contacts are read, or null for all contacts
+     * @param afterId Only contacts with a greater ID are returned; 0 for the first page
+     * @param size The maximum number of contacts to return
+     * @return The page of contact DTOs
      */
-    public List<ContactListDTO> getAllContactsAsList() {
-        // Get all contacts
-        List<Contact> contacts = contactRepository.findAll();
-        logger.debug("found {} contacts", contacts.size());
-
-        // Log each contact
-        contacts.forEach(contact -> {
-            logger.debug("contact id={}, firstName={}, lastName={}, userId={}",
-                contact.getId(), contact.getFirstName(), contact.getLastName(), 
-                (contact.getUser() != null ? contact.getUser().getId() : "null"));
-        });
+    public List<ContactListDTO> getContactPage(Long userId, long afterId, int size) {
+        PageRequest page = PageRequest.of(0, size);
+        if (userId != null) {
+            return shardRouting.query(shardRouting.shardForUser(userId), () ->
+                    contactRepository.findPageByUserIdAfter(userId, afterId, page).stream()
+                            .map(ContactService::convertToContactListDTO)
+                            .collect(Collectors.toList()));
+        }
+        // The first page of each shard, merged: the page of all shards is among them
+        return shardRouting.scatterGather(() ->
+                contactRepository.findPageAfter(afterId, page).stream()
+                        .map(ContactService::convertToContactListDTO)
+                        .collect(Collectors.toList()),
+                Comparator.comparing(ContactListDTO::getId), size);
+    }
 
-        // Convert to DTOs
-        List<ContactListDTO> dtos = contacts.stream()
-                .map(ContactService::convertToContactListDTO)
-                .collect(Collectors.toList());
+    /**
+     * Makes the lists read before a committed contact change unavailable to later requests.
+     *
+     * @param event The contact change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContactChanged(ContactChangedEvent event) {
+        listQueries.invalidate();
+    }
 
-        logger.debug("returning {} DTOs", dtos.size());
-        return dtos;
+    /**
+     * Makes the lists read before a user was deleted with their contacts unavailable to later requests.
+     *
+     * @param event The user change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            listQueries.invalidate();
+        }
     }
 
     /**
@@ -184,9 +331,13 @@ public class ContactService {
      * @param dto The contact data
      * @param userId The ID of the user who owns the contact
      * @return The saved contact
+     * @throws DuplicateContactException if another contact has the same TAJ number or tax ID
      * @throws RuntimeException if the user is not found
      */
+    @Transactional
     public Contact saveContact(ContactRequestDTO dto, Long userId) {
+        uniquenessService.checkAvailable(dto.getTajNumber(), dto.getTaxId(), null);
+
         Contact contact = new Contact();
         contact.setFirstName(dto.getFirstName());
         contact.setLastName(dto.getLastName());
@@ -198,10 +349,10 @@ public class ContactService {
 
         // Set the user if userId is provided
         if (userId != null) {
-            // Load the user from the database to ensure it exists
-            User user = userRepository.findById(userId)
+            // Check that the user exists, then attach it by reference instead of loading the row
+            userIdentityCache.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
-            contact.setUser(user);
+            contact.setUser(userRepository.getReferenceById(userId));
         }
 
         // phone numbers
@@ -209,6 +360,7 @@ public class ContactService {
             for (String number : dto.getPhoneNumbers()) {
                 PhoneNumber phoneNumber = new PhoneNumber();
                 phoneNumber.setPhoneNumber(number);
+                phoneNumber.setNormalizedNumber(PhoneNumberUtils.normalize(number));
                 phoneNumber.setContact(contact);
                 contact.getPhoneNumbers().add(phoneNumber);
             }
@@ -226,7 +378,9 @@ public class ContactService {
             }
         }
 
-        return contactRepository.save(contact);
+        Contact saved = contactRepository.save(contact);
+        publishChange(ContactChangedEvent.Type.CREATED, saved, null);
+        return saved;
     }
 
     /**
@@ -236,8 +390,10 @@ public class ContactService {
      * @param dto The updated contact data
      * @param userId The ID of the user who owns the contact
      * @return The updated contact
+     * @throws DuplicateContactException if another contact has the same TAJ number or tax ID
      * @throws RuntimeException if the contact is not found or doesn't belong to the user
      */
+    @Transactional
     public Contact updateContact(Long id, ContactRequestDTO dto, Long userId) {
         // Find the contact by ID
         Contact contact = contactRepository.findById(id)
@@ -246,6 +402,14 @@ public class ContactService {
         // Note: We're allowing both the owner and admin users to update contacts
         // No ownership check is performed here to allow admins to edit any contact
 
+        ContactListDTO previous = convertToContactListDTO(contact);
+
+        // Only changed identifiers need to be checked
+        uniquenessService.checkAvailable(
+                Objects.equals(dto.getTajNumber(), contact.getTajNumber()) ? null : dto.getTajNumber(),
+                Objects.equals(dto.getTaxId(), contact.getTaxId()) ? null : dto.getTaxId(),
+                id);
+
         // Update the contact fields
         contact.setFirstName(dto.getFirstName());
         contact.setLastName(dto.getLastName());
@@ -261,6 +425,7 @@ public class ContactService {
             for (String number : dto.getPhoneNumbers()) {
                 PhoneNumber phoneNumber = new PhoneNumber();
                 phoneNumber.setPhoneNumber(number);
+                phoneNumber.setNormalizedNumber(PhoneNumberUtils.normalize(number));
                 phoneNumber.setContact(contact);
                 contact.getPhoneNumbers().add(phoneNumber);
             }
@@ -279,7 +444,9 @@ public class ContactService {
             }
         }
 
-        return contactRepository.save(contact);
+        Contact saved = contactRepository.save(contact);
+        publishChange(ContactChangedEvent.Type.UPDATED, saved, previous);
+        return saved;
     }
 
     /**
@@ -289,6 +456,7 @@ public class ContactService {
      * @param userId The ID of the user who owns the contact
      * @throws RuntimeException if the contact is not found or doesn't belong to the user
      */
+    @Transactional
     public void deleteContact(Long id, Long userId) {
         // Find the contact by ID
         Contact contact = contactRepository.findById(id)
@@ -297,7 +465,33 @@ public class ContactService {
         // Note: We're allowing both the owner and admin users to delete contacts
         // No ownership check is performed here to allow admins to delete any contact
 
+        ContactListDTO previous = convertToContactListDTO(contact);
+
         // Delete the contact
         contactRepository.delete(contact);
+        publishChange(ContactChangedEvent.Type.DELETED, contact, previous);
+    }
+
+    /**
+     * Publish a change event for a contact. Listeners run either inside the current
+     * transaction or after it commits, depending on how they are declared.
+     *
+     * @param type The kind of change
+     * @param contact The changed contact
+     * @param previous The contact as it was before the change, or null for new contacts
+     */
+    private void publishChange(ContactChangedEvent.Type type, Contact contact, ContactListDTO previous) {
+        ContactListDTO current = type == ContactChangedEvent.Type.DELETED ? null : convertToContactListDTO(contact);
+        Long ownerId = contact.getUser() != null ? contact.getUser().getId() : null;
+        eventPublisher.publishEvent(new ContactChangedEvent(type, contact.getId(), ownerId, previous, current));
+    }
+
+    /**
+     * The contacts a list request reads, the key of the coalescing.
+     *
+     * @param userId The ID of the user whose contacts are read, or null for all contacts
+     */
+    private record ListScope(Long userId) {
+        static final ListScope ALL = new ListScope(null);
     }
 }
@@ -0,0 +1,257 @@
+package contacts.service;
+
+import contacts.domain.ContactStatisticDelta;
+import contacts.domain.ContactStatisticDelta.Dimension;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactStatisticsDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactStatisticRepository;
+import contacts.repository.ContactStatisticRepository.CountRow;
+import contacts.routing.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service for the contact statistics: contacts per user, per city and per birth decade.
+ *
+ * The counts are kept in the contact_statistic table, so reading them never scans the contacts.
+ * Every contact change inserts the changed counts as deltas in its own transaction; the deltas
+ * are only ever inserted, so concurrent changes of popular cities or decades do not wait for each
+ * other. A background job folds the deltas into the counts every few seconds, and a nightly
+ * reconciliation recounts everything, correcting changes made outside this service.
+ */
+@Service
+public class ContactStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactStatisticsService.class);
+
+    /** Bucket of the contacts without a birth date */
+    public static final String UNKNOWN_DECADE = "unknown";
+
+    /** Maximum number of users or cities returned */
+    public static final int MAX_TOP = 100;
+
+    /** Deltas folded in one transaction */
+    static final int FOLD_BATCH_SIZE = 10_000;
+
+    /** Batches folded in one run, so a backlog does not keep the job busy for long */
+    static final int MAX_FOLD_BATCHES = 100;
+
+    private final ContactStatisticRepository statisticRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final ShardRouting shardRouting;
+
+    /**
+     * Constructor for ContactStatisticsService.
+     *
+     * @param statisticRepository Repository for the counts and their deltas
+     * @param transactionManager Transaction manager, used for the folding and the reconciliation
+     * @param shardRouting Routing of the reads and background jobs over the shards
+     */
+    public ContactStatisticsService(ContactStatisticRepository statisticRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    ShardRouting shardRouting) {
+        this.statisticRepository = statisticRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // The recount and the deletion of the deltas it replaces must see the same snapshot
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.shardRouting = shardRouting;
+    }
+
+    /**
+     * Records the count changes of a contact change. The listener is synchronous, so the deltas
+     * commit or roll back with the change itself.
+     *
+     * @param event The contact change
+     */
+    @EventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        List<ContactStatisticDelta> deltas = deltas(event);
+        if (!deltas.isEmpty()) {
+            statisticRepository.saveAll(deltas);
+        }
+    }
+
+    /**
+     * Removes the contacts of a user from the counts. Must be called in the transaction that
+     * deletes the user, before the delete, as the database deletes the contacts with the user.
+     *
+     * @param userId The ID of the user
+     */
+    public void removeUser(Long userId) {
+        statisticRepository.insertUserRemovalDeltas(userId);
+    }
+
+    /**
+     * Get the number of contacts of a user.
+     *
+     * @param userId The ID of the user
+     * @return The number of contacts, as of the last time the deltas were folded
+     */
+    public long getContactCount(Long userId) {
+        Long count = shardRouting.query(shardRouting.shardForUser(userId),
+                () -> statisticRepository.findCount(Dimension.USER.name(), String.valueOf(userId)));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Get the contact counts of all users. With sharding enabled, the counts of every shard
+     * are added up; the top lists are then made of the top entries of each shard.
+     *
+     * @param limit The number of users and cities in the top lists
+     * @return The counts, as of the last time the deltas were folded
+     */
+    public ContactStatisticsDTO getStatistics(int limit) {
+        Map<String, Long> decades = sum(Dimension.BIRTH_DECADE);
+        Map<String, Long> byDecade = new TreeMap<>(Comparator
+                .comparing((String decade) -> decade.equals(UNKNOWN_DECADE))
+                .thenComparing(Comparator.naturalOrder()));
+        byDecade.putAll(decades);
+        long total = decades.values().stream().mapToLong(Long::longValue).sum();
+
+        List<ContactStatisticsDTO.UserCount> topUsers = top(sumTop(Dimension.USER, limit), limit).stream()
+                .map(entry -> new ContactStatisticsDTO.UserCount(Long.valueOf(entry.getKey()), entry.getValue()))
+                .toList();
+        List<ContactStatisticsDTO.CityCount> topCities = top(sumTop(Dimension.CITY, limit), limit).stream()
+                .map(entry -> new ContactStatisticsDTO.CityCount(entry.getKey(), entry.getValue()))
+                .toList();
+        return new ContactStatisticsDTO(total, byDecade, topUsers, topCities);
+    }
+
+    /**
+     * Folds the pending deltas into the counts, in batches of their own transactions.
+     */
+    @Scheduled(fixedDelayString = "${contacts.statistics.fold-interval-ms:5000}")
+    public void fold() {
+        shardRouting.forEachShard(() -> {
+            int batches = 0;
+            while (batches < MAX_FOLD_BATCHES && Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                statisticRepository.lockCounts();
+                return statisticRepository.foldDeltas(FOLD_BATCH_SIZE) > 0;
+            }))) {
+                batches++;
+            }
+            logger.debug("folded {} batches of contact statistic deltas", batches);
+        });
+    }
+
+    /**
+     * Recounts all contacts and replaces the counts. Deltas committed while the recount runs
+     * are not part of it and are kept for the next fold.
+     */
+    @Scheduled(cron = "${contacts.statistics.reconcile-cron:0 45 3 * * *}")
+    public void reconcile() {
+        shardRouting.forEachShard(() -> {
+            long start = System.currentTimeMillis();
+            snapshotTransaction.executeWithoutResult(status -> {
+                // The lock comes first, so the snapshot is taken after any running fold has committed
+                statisticRepository.lockCounts();
+                statisticRepository.deleteAllDeltas();
+                statisticRepository.deleteAllCounts();
+                statisticRepository.insertCountsFromContacts();
+            });
+            logger.info("contact statistics reconciled in {} ms", System.currentTimeMillis() - start);
+        });
+    }
+
+    /**
+     * The count changes of a contact change: -1 for each bucket of the previous state,
+     * +1 for each bucket of the current one, leaving out the buckets in both.
+     *
+     * @param event The contact change
+     * @return The deltas, empty if no count changed
+     */
+    static List<ContactStatisticDelta> deltas(ContactChangedEvent event) {
+        Map<Bucket, Integer> changes = new HashMap<>();
+        for (Bucket bucket : buckets(event.getUserId(), event.getPrevious())) {
+            changes.merge(bucket, -1, Integer::sum);
+        }
+        for (Bucket bucket : buckets(event.getUserId(), event.getCurrent())) {
+            changes.merge(bucket, 1, Integer::sum);
+        }
+
+        List<ContactStatisticDelta> deltas = new ArrayList<>();
+        changes.forEach((bucket, delta) -> {
+            if (delta != 0) {
+                deltas.add(new ContactStatisticDelta(bucket.dimension(), bucket.value(), delta));
+            }
+        });
+        return deltas;
+    }
+
+    /**
+     * The buckets a contact is counted in. Must match the queries of the reconciliation.
+     */
+    private static Set<Bucket> buckets(Long userId, ContactListDTO contact) {
+        Set<Bucket> buckets = new LinkedHashSet<>();
+        if (contact == null) {
+            return buckets;
+        }
+        if (userId != null) {
+            buckets.add(new Bucket(Dimension.USER, String.valueOf(userId)));
+        }
+        buckets.add(new Bucket(Dimension.BIRTH_DECADE, contact.getBirthDate() != null
+                ? String.valueOf(contact.getBirthDate().getYear() / 10 * 10)
+                : UNKNOWN_DECADE));
+        if (contact.getAddresses() != null) {
+            for (ContactListDTO.AddressDTO address : contact.getAddresses()) {
+                String city = address.getCity() != null ? address.getCity().trim() : "";
+                if (!city.isEmpty()) {
+                    buckets.add(new Bucket(Dimension.CITY, city));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * The counts of a dimension, added up over the shards.
+     */
+    private Map<String, Long> sum(Dimension dimension) {
+        return sum(shardRouting.scatterGather(() -> statisticRepository.findCounts(dimension.name()),
+                Comparator.comparing(CountRow::getBucket), Integer.MAX_VALUE));
+    }
+
+    /**
+     * The largest counts of a dimension on each shard, added up over the shards.
+     */
+    private Map<String, Long> sumTop(Dimension dimension, int limit) {
+        return sum(shardRouting.scatterGather(() -> statisticRepository.findTopCounts(dimension.name(), limit),
+                Comparator.comparingLong(CountRow::getContactCount).reversed(), Integer.MAX_VALUE));
+    }
+
+    private static Map<String, Long> sum(List<CountRow> rows) {
+        Map<String, Long> counts = new HashMap<>();
+        for (CountRow row : rows) {
+            counts.merge(row.getBucket(), row.getContactCount(), Long::sum);
+        }
+        return counts;
+    }
+
+    private static List<Map.Entry<String, Long>> top(Map<String, Long> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .toList();
+    }
+
+    private record Bucket(Dimension dimension, String value) {
+    }
+}
@@ -0,0 +1,106 @@
+package contacts.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import contacts.dto.ContactListDTO;
+import contacts.dto.UpcomingBirthdayDTO;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service for writing contact lists and birthday lists as newline-delimited JSON (one DTO per line).
+ *
+ * Contacts are read in keyset pages and each page is written and flushed before the next one
+ * is read. A slow client therefore slows down the reads instead of piling DTOs up in memory,
+ * and no database connection is held while the response is being written. Memory use is
+ * bounded by one page, however many contacts are exported.
+ */
+@Service
+public class ContactStreamingService {
+
+    /** Number of contacts read per query */
+    static final int PAGE_SIZE = 500;
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final ContactService contactService;
+    private final ContactBirthdayService birthdayService;
+    private final ObjectWriter writer;
+    private final ObjectWriter birthdayWriter;
+
+    /**
+     * Constructor for ContactStreamingService.
+     *
+     * @param contactService The service for contact operations, used for the paged reads
+     * @param birthdayService The service for birthdays, used for the paged birthday reads
+     * @param objectMapper The application's JSON mapper
+     */
+    public ContactStreamingService(ContactService contactService, ContactBirthdayService birthdayService,
+                                   ObjectMapper objectMapper) {
+        this.contactService = contactService;
+        this.birthdayService = birthdayService;
+        this.writer = objectMapper.writerFor(ContactListDTO.class);
+        this.birthdayWriter = objectMapper.writerFor(UpcomingBirthdayDTO.class);
+    }
+
+    /**
+     * Write contacts to the output as newline-delimited JSON.
+     *
+     * @param userId The ID of the user whose contacts are written, or null for all contacts
+     * @param output The stream to write to; it is flushed after every page but not closed
+     * @return The number of contacts written
+     * @throws IOException if the client goes away
+     */
+    public long writeContacts(Long userId, OutputStream output) throws IOException {
+        long afterId = 0;
+        long written = 0;
+        while (true) {
+            List<ContactListDTO> page = contactService.getContactPage(userId, afterId, PAGE_SIZE);
+            for (ContactListDTO dto : page) {
+                output.write(writer.writeValueAsBytes(dto));
+                output.write(NEWLINE);
+            }
+            output.flush();
+            written += page.size();
+            if (page.size() < PAGE_SIZE) {
+                return written;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Write the birthdays of all users in a window of days to the output as newline-delimited
+     * JSON, ordered by owner, so a reminder job can send each user one message.
+     *
+     * @param from The first day of the window
+     * @param days Number of days after the first day to include
+     * @param afterUserId Only the birthdays of owners with a greater ID are written; 0 for all
+     * @param output The stream to write to; it is flushed after every page but not closed
+     * @return The number of birthdays written
+     * @throws IOException if the client goes away
+     */
+    public long writeBirthdays(LocalDate from, int days, long afterUserId, OutputStream output) throws IOException {
+        long afterId = Long.MAX_VALUE;
+        long written = 0;
+        while (true) {
+            List<UpcomingBirthdayDTO> page = birthdayService.getBirthdayPageByOwner(from, days, afterUserId, afterId, PAGE_SIZE);
+            for (UpcomingBirthdayDTO dto : page) {
+                output.write(birthdayWriter.writeValueAsBytes(dto));
+                output.write(NEWLINE);
+            }
+            output.flush();
+            written += page.size();
+            if (page.size() < PAGE_SIZE) {
+                return written;
+            }
+            UpcomingBirthdayDTO last = page.get(page.size() - 1);
+            afterUserId = last.getUserId();
+            afterId = last.getContactId();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactSyncResponseDTO;
+import contacts.exception.SyncTokenExpiredException;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the delta sync API used by mobile and offline clients.
+ *
+ * Every contact carries the ID of the transaction that last changed it (row_version), and
+ * deleted contacts leave a tombstone with the ID of the deleting transaction. A sync returns
+ * the changes in (row_version, id) order through an index, so it costs O(changes) and not
+ * O(contacts). The token handed to the client holds the oldest transaction still running
+ * when its sync started: every change below it had committed, and the next sync restarts
+ * there. Changes committed during a sync are therefore returned again rather than missed.
+ *
+ * Tombstones are kept for a limited time, and tokens older than that are rejected.
+ */
+@Service
+public class ContactSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactSyncService.class);
+
+    /** Maximum number of changes returned in one page */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String TOKEN_VERSION = "1";
+
+    private final ContactRepository contactRepository;
+    private final ShardRouting shardRouting;
+    private final Duration tombstoneRetention;
+    private final Clock clock;
+
+    /**
+     * Constructor for ContactSyncService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param shardRouting Routing of the tombstone purge, which runs on every shard
+     * @param tombstoneRetention How long deleted contacts are remembered, the maximum age of a token
+     */
+    @Autowired
+    public ContactSyncService(ContactRepository contactRepository, ShardRouting shardRouting,
+                              @Value("${contacts.sync.tombstone-retention:30d}") Duration tombstoneRetention) {
+        this(contactRepository, shardRouting, tombstoneRetention, Clock.systemDefaultZone());
+    }
+
+    ContactSyncService(ContactRepository contactRepository, ShardRouting shardRouting, Duration tombstoneRetention,
+                       Clock clock) {
+        this.contactRepository = contactRepository;
+        this.shardRouting = shardRouting;
+        this.tombstoneRetention = tombstoneRetention;
+        this.clock = clock;
+    }
+
+    /**
+     * Get one page of the changes since a token.
+     *
+     * @param userId The ID of the requesting user
+     * @param admin Whether the requesting user is an admin and syncs every contact
+     * @param token The token returned by the previous sync, or null for a full sync
+     * @param limit Maximum number of changes to return
+     * @return The changed and deleted contacts and the token for the next sync
+     * @throws IllegalArgumentException if the token is malformed or the limit is out of range
+     * @throws SyncTokenExpiredException if the token is older than the tombstone retention
+     */
+    @Transactional(readOnly = true)
+    public ContactSyncResponseDTO sync(Long userId, boolean admin, String token, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Instant now = clock.instant();
+        SyncToken current = token == null || token.isBlank() ? SyncToken.initial() : SyncToken.decode(token);
+        if (current.issuedAt() != 0 && Instant.ofEpochSecond(current.issuedAt()).plus(tombstoneRetention).isBefore(now)) {
+            throw new SyncTokenExpiredException();
+        }
+        if (!admin && userId == null) {
+            return new ContactSyncResponseDTO(List.of(), List.of(), token, false);
+        }
+
+        // A new sync captures the horizon before reading, a continued page keeps its sync's horizon
+        if (current.horizon() == 0) {
+            current = current.start(contactRepository.currentSnapshotXmin(), now.getEpochSecond());
+        }
+
+        // A full sync does not need tombstones, deleted contacts are simply not returned
+        boolean includeDeleted = !current.full();
+        List<ContactRepository.ChangeRow> rows = admin
+                ? contactRepository.findChangesAfter(current.afterVersion(), current.afterId(), includeDeleted, limit + 1)
+                : contactRepository.findChangesByUserIdAfter(userId, current.afterVersion(), current.afterId(),
+                        includeDeleted, limit + 1);
+
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) {
+            rows = rows.subList(0, limit);
+        }
+
+        List<Long> changedIds = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (ContactRepository.ChangeRow row : rows) {
+            (row.isDeleted() ? deleted : changedIds).add(row.getId());
+        }
+        Map<Long, Contact> contacts = contactRepository.findAllById(changedIds).stream()
+                .collect(Collectors.toMap(Contact::getId, Function.identity()));
+        List<ContactListDTO> changed = new ArrayList<>(changedIds.size());
+        for (Long id : changedIds) {
+            Contact contact = contacts.get(id);
+            if (contact != null) {
+                changed.add(ContactService.convertToContactListDTO(contact));
+            }
+        }
+
+        SyncToken next;
+        if (hasMore) {
+            ContactRepository.ChangeRow last = rows.get(rows.size() - 1);
+            next = current.continueAfter(last.getRowVersion(), last.getId());
+        } else {
+            next = current.finish();
+        }
+        logger.debug("Sync of user {} returned {} changed and {} deleted contacts", userId, changed.size(), deleted.size());
+        return new ContactSyncResponseDTO(changed, deleted, next.encode(), hasMore);
+    }
+
+    /**
+     * Removes the tombstones older than the retention. Tokens from before that are rejected.
+     */
+    @Scheduled(cron = "${contacts.sync.tombstone-purge-cron:0 15 3 * * *}")
+    public void purgeTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(tombstoneRetention);
+        shardRouting.forEachShard(() -> {
+            int purged = contactRepository.deleteTombstonesBefore(cutoff);
+            logger.info("Purged {} contact tombstones older than {}", purged, cutoff);
+        });
+    }
+
+    /**
+     * Sync position. A finished sync only has a horizon: the next sync returns every change
+     * at or above it. While a sync is paged, the position after the last returned change is
+     * kept along with the horizon of the sync, which becomes the start of the next one.
+     *
+     * @param full Whether this is the first sync of the client
+     * @param afterVersion Row version of the last returned change
+     * @param afterId Contact ID of the last returned change
+     * @param horizon Oldest running transaction when the sync started, 0 before it starts
+     * @param issuedAt Epoch second the sync started, 0 before it starts
+     */
+    record SyncToken(boolean full, long afterVersion, long afterId, long horizon, long issuedAt) {
+
+        static SyncToken initial() {
+            return new SyncToken(true, 0, 0, 0, 0);
+        }
+
+        SyncToken start(long horizon, long issuedAt) {
+            return new SyncToken(full, afterVersion, afterId, horizon, issuedAt);
+        }
+
+        SyncToken continueAfter(long version, long id) {
+            return new SyncToken(full, version, id, horizon, issuedAt);
+        }
+
+        SyncToken finish() {
+            // Everything from the horizon on is read again, as it may have committed during this sync
+            return new SyncToken(false, horizon - 1, Long.MAX_VALUE, 0, issuedAt);
+        }
+
+        String encode() {
+            String value = String.join(":", TOKEN_VERSION, full ? "f" : "d", Long.toString(afterVersion),
+                    Long.toString(afterId), Long.toString(horizon), Long.toString(issuedAt));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        static SyncToken decode(String token) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII).split(":");
+                if (parts.length != 6 || !TOKEN_VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("Invalid sync token");
+                }
+                return new SyncToken("f".equals(parts[1]), Long.parseLong(parts[2]), Long.parseLong(parts[3]),
+                        Long.parseLong(parts[4]), Long.parseLong(parts[5]));
+            } catch (IllegalArgumentException e) {
+                // Also covers malformed Base64 and numbers
+                throw new IllegalArgumentException("Invalid sync token");
+            }
+        }
+    }
+}
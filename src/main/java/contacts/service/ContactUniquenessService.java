@@ -0,0 +1,180 @@
+package contacts.service;
+
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.exception.DuplicateContactException;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import contacts.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Service for checking that TAJ numbers and tax IDs are not taken before a contact is saved.
+ *
+ * Every TAJ number and tax ID in use is kept in a Bloom filter. A value the filter has never
+ * seen is new without asking the database; only values the filter may have seen are confirmed
+ * with an indexed query. Until the filters are loaded at startup every value is confirmed with
+ * a query. Values are added on every write and never removed, so the filters are rebuilt
+ * periodically to drop deleted values. The unique indexes stay the last line of defence for
+ * writes that race past the check. With sharding, the filters and queries cover every shard,
+ * but each shard's unique indexes only cover that shard.
+ */
+@Service
+public class ContactUniquenessService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactUniquenessService.class);
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 100_000;
+
+    private final ContactRepository contactRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardRouting shardRouting;
+
+    // Null until loaded; replaced as a whole by a rebuild
+    private volatile Filters filters;
+    // Filters under construction, so writes during a rebuild are not lost
+    private volatile Filters building;
+
+    /**
+     * Constructor for ContactUniquenessService.
+     *
+     * @param contactRepository Repository for contact operations
+     * @param transactionManager Transaction manager, used to stream the existing values
+     * @param shardRouting Routing of the queries, the values must be unique across all shards
+     */
+    public ContactUniquenessService(ContactRepository contactRepository, PlatformTransactionManager transactionManager,
+                                    ShardRouting shardRouting) {
+        this.contactRepository = contactRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shardRouting = shardRouting;
+    }
+
+    /**
+     * Check that the TAJ number and tax ID are not used by another contact.
+     *
+     * @param tajNumber The TAJ number, may be null
+     * @param taxId The tax ID, may be null
+     * @param contactId The ID of the contact being updated, or null for a new contact
+     * @throws DuplicateContactException if another contact already has one of the values
+     */
+    public void checkAvailable(String tajNumber, String taxId, Long contactId) {
+        Filters current = filters;
+        if (isTaken(tajNumber, current != null ? current.tajNumbers : null, this::findIdsByTajNumber, contactId)) {
+            throw new DuplicateContactException("tajNumber", tajNumber);
+        }
+        if (isTaken(taxId, current != null ? current.taxIds : null, this::findIdsByTaxId, contactId)) {
+            throw new DuplicateContactException("taxId", taxId);
+        }
+    }
+
+    /**
+     * Adds the identifiers of a created or updated contact to the filters.
+     * Runs inside the writing transaction; if it rolls back, the values only cause an extra query later.
+     *
+     * @param event The contact change
+     */
+    @EventListener
+    public void onContactChanged(ContactChangedEvent event) {
+        ContactListDTO contact = event.getCurrent();
+        if (contact != null) {
+            register(filters, contact);
+            register(building, contact);
+        }
+    }
+
+    /**
+     * Loads the filters once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the filters from the database, dropping deleted values and resizing them to the current data.
+     */
+    @Scheduled(initialDelayString = "${contacts.uniqueness.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${contacts.uniqueness.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long[] counts = new long[1];
+        shardRouting.forEachShard(() -> counts[0] += contactRepository.count());
+        long count = counts[0];
+        long capacity = Math.max(MIN_CAPACITY, count * 2);
+        Filters next = new Filters(new BloomFilter(capacity, FALSE_POSITIVE_RATE), new BloomFilter(capacity, FALSE_POSITIVE_RATE));
+        building = next;
+        try {
+            shardRouting.forEachShard(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> tajNumbers = contactRepository.streamAllTajNumbers()) {
+                    tajNumbers.forEach(next.tajNumbers::put);
+                }
+                try (Stream<String> taxIds = contactRepository.streamAllTaxIds()) {
+                    taxIds.forEach(next.taxIds::put);
+                }
+            }));
+            filters = next;
+            logger.info("uniqueness filters loaded for {} contacts in {} ms, {} bytes each",
+                    count, System.currentTimeMillis() - start, next.tajNumbers.sizeInBytes());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * @return Whether the filters have been loaded
+     */
+    public boolean isWarm() {
+        return filters != null;
+    }
+
+    private List<Long> findIdsByTajNumber(String tajNumber) {
+        return shardRouting.scatterGather(() -> contactRepository.findIdsByTajNumber(tajNumber),
+                Comparator.naturalOrder(), Integer.MAX_VALUE);
+    }
+
+    private List<Long> findIdsByTaxId(String taxId) {
+        return shardRouting.scatterGather(() -> contactRepository.findIdsByTaxId(taxId),
+                Comparator.naturalOrder(), Integer.MAX_VALUE);
+    }
+
+    private boolean isTaken(String value, BloomFilter filter, Function<String, List<Long>> query, Long contactId) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        // Definitely new, no query needed
+        if (filter != null && !filter.mightContain(value)) {
+            return false;
+        }
+        return query.apply(value).stream().anyMatch(id -> !Objects.equals(id, contactId));
+    }
+
+    private static void register(Filters target, ContactListDTO contact) {
+        if (target == null) {
+            return;
+        }
+        if (contact.getTajNumber() != null) {
+            target.tajNumbers.put(contact.getTajNumber());
+        }
+        if (contact.getTaxId() != null) {
+            target.taxIds.put(contact.getTaxId());
+        }
+    }
+
+    private record Filters(BloomFilter tajNumbers, BloomFilter taxIds) {
+    }
+}
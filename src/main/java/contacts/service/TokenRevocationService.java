@@ -0,0 +1,271 @@
+package contacts.service;
+
+import contacts.config.SecurityConstants;
+import contacts.domain.TokenRevocation;
+import contacts.event.UserChangedEvent;
+import contacts.repository.TokenRevocationRepository;
+import contacts.routing.ShardRouting;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for revoking login tokens before they expire: a single token on logout, and every
+ * token of a user whose username, password or role changes, or who is deleted.
+ *
+ * Every instance keeps the revocations in memory, so checking a request takes two map lookups:
+ * the ID (jti) of the token in the denylist, and the user's watermark, before which all of the
+ * user's tokens were issued. Entries are dropped once the tokens they revoke have expired.
+ * Revocations are stored in the token_revocation table. They take effect on this instance at once,
+ * and on the others at their next poll, which reads the rows added since the previous one on every
+ * shard. Until the revocations are loaded at startup, each check queries the database.
+ * The poll has its own scheduler thread, so a revocation reaches every instance within one poll
+ * interval plus the time of one poll; while a shard cannot be read, the poll is retried each interval.
+ *
+ * Watermarks are compared with the issue time of the token in milliseconds, so a token issued right
+ * after the change stays valid. Tokens issued before that claim existed only carry whole seconds,
+ * so for them a watermark also revokes the tokens issued later in the second of the change.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    /** User changes that invalidate the user's tokens, the claims of which they change */
+    private static final Set<String> TOKEN_FIELDS = Set.of("username", "password", "role");
+
+    private final TokenRevocationRepository revocationRepository;
+    private final ShardRouting shardRouting;
+    private final UserIdentityCache userIdentityCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Clock clock;
+
+    // Token ID -> expiry of the revoked token
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // User ID -> tokens of the user issued before the watermark are revoked
+    private final Map<Long, Watermark> watermarks = new ConcurrentHashMap<>();
+    // Per shard, the oldest transaction running at the previous poll; the next poll starts there
+    private final long[] horizons;
+    private volatile boolean loaded;
+
+    /**
+     * Constructor for TokenRevocationService.
+     *
+     * @param revocationRepository Repository for the stored revocations
+     * @param shardRouting Routing of the polls, revocations are stored on the shard of the request
+     * @param transactionManager Transaction manager, used for the polls
+     * @param userIdentityCache Cache of user identities, from which the polled user changes are dropped
+     */
+    @Autowired
+    public TokenRevocationService(TokenRevocationRepository revocationRepository, ShardRouting shardRouting,
+                                  PlatformTransactionManager transactionManager, UserIdentityCache userIdentityCache) {
+        this(revocationRepository, shardRouting, transactionManager, userIdentityCache, Clock.systemUTC());
+    }
+
+    TokenRevocationService(TokenRevocationRepository revocationRepository, ShardRouting shardRouting,
+                           PlatformTransactionManager transactionManager, UserIdentityCache userIdentityCache,
+                           Clock clock) {
+        this.revocationRepository = revocationRepository;
+        this.shardRouting = shardRouting;
+        this.userIdentityCache = userIdentityCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.clock = clock;
+        this.horizons = new long[shardRouting.getShardCount()];
+    }
+
+    /**
+     * Check a token whose signature and expiry are already verified.
+     *
+     * @param claims The claims of the token
+     * @return Whether the token has been revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        Long userId = userId(claims);
+        long issuedAt = issuedAtMillis(claims);
+        if (!loaded) {
+            return isRevokedInDatabase(jti, userId, issuedAt);
+        }
+        if (jti != null && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        Watermark watermark = userId != null ? watermarks.get(userId) : null;
+        return watermark != null && issuedAt < watermark.issuedBefore();
+    }
+
+    /**
+     * Revoke a single token, e.g. on logout.
+     *
+     * @param claims The claims of the token
+     */
+    @Transactional
+    public void revokeToken(Claims claims) {
+        Long userId = userId(claims);
+        if (userId == null) {
+            return;
+        }
+        if (claims.getId() == null) {
+            // Issued before tokens had an ID: only all of the user's tokens can be revoked
+            revokeAllTokens(userId);
+            return;
+        }
+        long expiresAt = epochSecond(claims.getExpiration(), now() + SecurityConstants.TOKEN_VALIDITY_SECONDS);
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(userId);
+        revocation.setJti(claims.getId());
+        revocation.setExpiresAt(expiresAt);
+        apply(revocationRepository.save(revocation));
+    }
+
+    /**
+     * Revoke every token of a user issued until now.
+     *
+     * @param userId The ID of the user
+     */
+    @Transactional
+    public void revokeAllTokens(Long userId) {
+        long nowMillis = clock.instant().toEpochMilli();
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(userId);
+        revocation.setIssuedBefore(nowMillis + 1);
+        revocation.setExpiresAt(nowMillis / 1000 + 1 + SecurityConstants.TOKEN_VALIDITY_SECONDS);
+        apply(revocationRepository.save(revocation));
+        logger.info("Revoked all tokens of user {}", userId);
+    }
+
+    /**
+     * Revokes the tokens of a deleted user, or of a user whose token claims changed.
+     * Runs inside the writing transaction, so the revocation is committed with the change.
+     *
+     * @param event The user change
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        boolean claimsChanged = event.getType() == UserChangedEvent.Type.UPDATED && event.getChangedFields() != null
+                && event.getChangedFields().stream().anyMatch(TOKEN_FIELDS::contains);
+        if (event.getType() == UserChangedEvent.Type.DELETED || claimsChanged) {
+            revokeAllTokens(event.getUserId());
+        }
+    }
+
+    /**
+     * Loads the revocations once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        poll();
+    }
+
+    /**
+     * Reads the revocations added on any instance since the previous poll, and drops the expired ones.
+     * A user whose tokens were all revoked may have been deleted or renamed on another instance,
+     * so the user is also dropped from the {@link UserIdentityCache}.
+     */
+    @Scheduled(fixedDelayString = "${contacts.auth.revocation-poll-interval-ms:1000}")
+    public synchronized void poll() {
+        long now = now();
+        try {
+            for (int shard = 0; shard < horizons.length; shard++) {
+                int current = shard;
+                shardRouting.onShard(shard, () -> readOnlyTransaction.executeWithoutResult(status -> {
+                    // Read first: rows of transactions still running at that point are read by the next poll
+                    long horizon = revocationRepository.currentSnapshotXmin();
+                    revocationRepository.findAddedSince(horizons[current], now).forEach(revocation -> {
+                        apply(revocation);
+                        if (revocation.getIssuedBefore() != null) {
+                            userIdentityCache.invalidate(revocation.getUserId());
+                        }
+                    });
+                    horizons[current] = horizon;
+                }));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Polling token revocations failed: {}", e.getMessage());
+            return;
+        }
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        watermarks.values().removeIf(watermark -> watermark.expiresAt() <= now);
+        if (!loaded) {
+            loaded = true;
+            logger.info("Loaded {} revoked tokens and {} user watermarks", revokedTokens.size(), watermarks.size());
+        }
+    }
+
+    /**
+     * Removes the stored revocations whose tokens have all expired.
+     */
+    @Scheduled(cron = "${contacts.auth.revocation-purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        long now = now();
+        shardRouting.forEachShard(() -> {
+            int purged = revocationRepository.deleteExpired(now);
+            logger.debug("Purged {} expired token revocations", purged);
+        });
+    }
+
+    int size() {
+        return revokedTokens.size() + watermarks.size();
+    }
+
+    private void apply(TokenRevocation revocation) {
+        if (revocation.getJti() != null) {
+            revokedTokens.merge(revocation.getJti(), revocation.getExpiresAt(), Math::max);
+        }
+        if (revocation.getIssuedBefore() != null) {
+            watermarks.merge(revocation.getUserId(),
+                    new Watermark(revocation.getIssuedBefore(), revocation.getExpiresAt()),
+                    (previous, next) -> previous.issuedBefore() >= next.issuedBefore() ? previous : next);
+        }
+    }
+
+    private boolean isRevokedInDatabase(String jti, Long userId, long issuedAt) {
+        long now = now();
+        boolean[] revoked = new boolean[1];
+        shardRouting.forEachShard(() -> revoked[0] |= Boolean.TRUE.equals(readOnlyTransaction.execute(status ->
+                revocationRepository.existsRevocation(jti, userId, issuedAt, now))));
+        return revoked[0];
+    }
+
+    private long now() {
+        return clock.instant().getEpochSecond();
+    }
+
+    private static Long userId(Claims claims) {
+        Number userId = claims.get("userId", Number.class);
+        return userId != null ? userId.longValue() : null;
+    }
+
+    private static long epochSecond(Date date, long fallback) {
+        return date != null ? date.getTime() / 1000 : fallback;
+    }
+
+    private static long issuedAtMillis(Claims claims) {
+        Number issuedAt = claims.get(SecurityConstants.ISSUED_AT_MILLIS_CLAIM, Number.class);
+        if (issuedAt != null) {
+            return issuedAt.longValue();
+        }
+        return epochSecond(claims.getIssuedAt(), 0) * 1000;
+    }
+
+    /**
+     * @param issuedBefore Tokens issued before this epoch millisecond are revoked
+     * @param expiresAt Epoch second by which all of those tokens have expired
+     */
+    record Watermark(long issuedBefore, long expiresAt) {
+    }
+}
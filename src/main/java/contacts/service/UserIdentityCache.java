@@ -0,0 +1,156 @@
+package contacts.service;
+
+import contacts.domain.User;
+import contacts.event.UserChangedEvent;
+import contacts.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of user identities (ID, username, role), so the contact paths can check that
+ * a user exists without selecting the user row on every request. Password hashes and contacts
+ * are never cached.
+ *
+ * Only existing users are cached; a miss always goes to the database, so new users are seen
+ * right away. Entries are dropped after a user update or delete commits on this instance, and
+ * when the token revocation poll reads a change committed on another one (deletes, username and
+ * role changes all revoke the user's tokens). Entries also expire after contacts.user-cache.ttl,
+ * which bounds how long a missed change is seen. A load that overlaps with an invalidation is
+ * not stored, so a stale row read before the change cannot end up in the cache after it.
+ * When the cache is full, an arbitrary entry makes room.
+ */
+@Component
+public class UserIdentityCache {
+
+    /**
+     * The cached identity of a user.
+     *
+     * @param id The ID of the user
+     * @param username The username
+     * @param role The role, ROLE_USER or ROLE_ADMIN
+     */
+    public record UserIdentity(Long id, String username, String role) {
+    }
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Clock clock;
+    private final Map<Long, Entry> identities = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructor for UserIdentityCache.
+     *
+     * @param userRepository Repository the identities are loaded from
+     * @param maxSize Maximum number of cached users
+     * @param ttl Time after which a cached user is read again
+     */
+    @Autowired
+    public UserIdentityCache(UserRepository userRepository,
+                             @Value("${contacts.user-cache.max-size:10000}") int maxSize,
+                             @Value("${contacts.user-cache.ttl:60s}") Duration ttl) {
+        this(userRepository, maxSize, ttl.toMillis(), Clock.systemUTC());
+    }
+
+    UserIdentityCache(UserRepository userRepository, int maxSize, long ttlMillis, Clock clock) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the identity of a user, loading it on a miss.
+     *
+     * @param userId The ID of the user
+     * @return The identity, or empty if the user does not exist
+     */
+    public Optional<UserIdentity> findById(Long userId) {
+        Entry entry = identities.get(userId);
+        if (entry != null) {
+            if (clock.millis() < entry.expiresAt()) {
+                return Optional.of(entry.identity());
+            }
+            identities.remove(userId, entry);
+        }
+        long generation = invalidations.get();
+        Optional<UserIdentity> loaded = userRepository.findById(userId).map(UserIdentityCache::toIdentity);
+        loaded.ifPresent(value -> store(value, generation));
+        return loaded;
+    }
+
+    /**
+     * Cache a user that has just been read, e.g. on login.
+     *
+     * @param user The user
+     */
+    public void put(User user) {
+        if (user.getId() != null) {
+            store(toIdentity(user), invalidations.get());
+        }
+    }
+
+    /**
+     * Drop a user from the cache.
+     *
+     * @param userId The ID of the user
+     */
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        identities.remove(userId);
+    }
+
+    /**
+     * Drop a changed user once the change is committed.
+     *
+     * @param event The user change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.getType() != UserChangedEvent.Type.CREATED) {
+            invalidate(event.getUserId());
+        }
+    }
+
+    int size() {
+        return identities.size();
+    }
+
+    private void store(UserIdentity identity, long generation) {
+        if (identities.size() >= maxSize) {
+            Iterator<Long> keys = identities.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        Entry entry = new Entry(identity, clock.millis() + ttlMillis);
+        identities.put(identity.id(), entry);
+        // Invalidated while loading: the loaded row may predate the change
+        if (invalidations.get() != generation) {
+            identities.remove(identity.id(), entry);
+        }
+    }
+
+    private static UserIdentity toIdentity(User user) {
+        return new UserIdentity(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    /**
+     * @param identity The cached identity
+     * @param expiresAt Epoch millisecond after which the user is read again
+     */
+    private record Entry(UserIdentity identity, long expiresAt) {
+    }
+}
@@ -3,11 +3,18 @@ package contacts.service;
 import contacts.domain.User;
 import contacts.dto.UserListDTO;
 import contacts.dto.UserRequestDTO;
+import contacts.event.UserChangedEvent;
 import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -17,17 +24,26 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouting shardRouting;
+    private final ContactStatisticsService statisticsService;
 
     @Autowired
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher, ShardRouting shardRouting,
+                       ContactStatisticsService statisticsService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
+        this.shardRouting = shardRouting;
+        this.statisticsService = statisticsService;
     }
 
     /**
      * Get all users from the database
      * @return List of all users
      */
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -37,6 +53,7 @@ public class UserService {
      * @param id User ID
      * @return User if found, null otherwise
      */
+    @Transactional(readOnly = true)
     public User getUserById(Long id) {
         return userRepository.findById(id).orElse(null);
     }
@@ -46,6 +63,7 @@ public class UserService {
      * @param username Username
      * @return Optional containing the user if found
      */
+    @Transactional(readOnly = true)
     public Optional<User> getUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
@@ -55,6 +73,7 @@ public class UserService {
      * @param userDTO User request data transfer object
      * @return Created user
      */
+    @Transactional
     public User createUser(UserRequestDTO userDTO) {
         // Check if username already exists
         if (userRepository.findByUsername(userDTO.getUsername()).isPresent()) {
@@ -72,7 +91,10 @@ public class UserService {
         }
         user.setRole(role);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED, saved.getId(),
+                saved.getUsername(), saved.getRole(), List.of()));
+        return saved;
     }
 
     /**
@@ -82,6 +104,7 @@ public class UserService {
      * @param adminUsername Username of the admin performing the update (null if not admin)
      * @return Updated user
      */
+    @Transactional
     public User updateUser(Long id, UserRequestDTO userDTO, String adminUsername) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -115,6 +138,8 @@ public class UserService {
             }
         }
 
+        List<String> changedFields = new ArrayList<>();
+
         // Update username if provided and not already taken by another user
         if (isChangingUsername) {
             Optional<User> existingUser = userRepository.findByUsername(userDTO.getUsername());
@@ -122,27 +147,39 @@ public class UserService {
                 throw new RuntimeException("Username already exists");
             }
             user.setUsername(userDTO.getUsername());
+            changedFields.add("username");
         }
 
         // Update password if provided
         if (isChangingPassword) {
             user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+            changedFields.add("password");
         }
 
         // Update role if provided
         if (userDTO.getRole() != null && !userDTO.getRole().isEmpty()) {
+            if (!userDTO.getRole().equals(user.getRole())) {
+                changedFields.add("role");
+            }
             user.setRole(userDTO.getRole());
         }
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED, saved.getId(),
+                saved.getUsername(), saved.getRole(), changedFields));
+        return saved;
     }
 
     /**
      * Delete a user
      * @param id User ID
      */
+    @Transactional
     public void deleteUser(Long id) {
+        // The user's contacts are deleted with it, without a change event for each
+        statisticsService.removeUser(id);
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, id, null, null, List.of()));
     }
 
     // Add these methods to UserService
@@ -162,9 +199,16 @@ public class UserService {
         return dto;
     }
 
+    /**
+     * Get all users with their contacts. Every shard has all users, but only its own users' contacts,
+     * so each shard converts its own users and the lists are merged.
+     * @return List of all users, in ID order
+     */
     public List<UserListDTO> getAllUsersAsList() {
-        return userRepository.findAll().stream()
-                .map(this::convertToUserListDTO)
-                .collect(Collectors.toList());
+        return shardRouting.scatterGather(() -> userRepository.findAll(Sort.by("id")).stream()
+                        .filter(user -> shardRouting.shardForUser(user.getId()) == ShardRouting.currentShard())
+                        .map(this::convertToUserListDTO)
+                        .collect(Collectors.toList()),
+                Comparator.comparing(UserListDTO::getId), Integer.MAX_VALUE);
     }
 }
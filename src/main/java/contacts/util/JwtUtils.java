@@ -15,6 +15,32 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    /**
+     * Extracts all claims from the JWT token in the request.
+     *
+     * @param request The HTTP request containing the JWT token
+     * @return The claims or null if not found or token is invalid
+     */
+    public static Claims getClaimsFromToken(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7); // Remove "Bearer " prefix
+
+            try {
+                return Jwts.parser()
+                        .setSigningKey(SecurityConstants.SECRET_KEY)
+                        .parseClaimsJws(token)
+                        .getBody();
+            } catch (Exception e) {
+                // Token validation failed
+                logger.debug("Token validation failed: {}", e.getMessage());
+                return null;
+            }
+        }
+        return null;
+    }
+
     /**
      * Extracts the user ID from the JWT token in the request.
      *
@@ -0,0 +1,93 @@
+package contacts.util;
+
+/**
+ * Utility class for phone number validation and normalization.
+ * Both operations scan the input once and do not use regular expressions.
+ */
+public class PhoneNumberUtils {
+
+    private static final String HUNGARIAN_COUNTRY_CODE = "36";
+
+    /**
+     * Checks whether the value is a valid phone number: an optional leading '+',
+     * followed by digits and spaces only, with 10 or 11 digits in total.
+     * Does not allocate.
+     *
+     * @param value The phone number to check
+     * @return true if the phone number is valid
+     */
+    public static boolean isValid(String value) {
+        if (value == null) {
+            return false;
+        }
+        int length = value.length();
+        int start = length > 0 && value.charAt(0) == '+' ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+
+        int digitCount = 0;
+        for (int i = start; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitCount++;
+            } else if (c != ' ') {
+                return false;
+            }
+        }
+        return digitCount == 10 || digitCount == 11;
+    }
+
+    /**
+     * Converts a phone number to its canonical E.164 form, e.g. "06 30 315 9270" to "+36303159270".
+     * Numbers starting with '+' keep their country code, numbers starting with the domestic
+     * prefix "06" get the Hungarian country code, and any other number is assumed to already
+     * start with its country code.
+     *
+     * @param value The phone number to normalize
+     * @return The normalized phone number or null if the phone number is not valid
+     */
+    public static String normalize(String value) {
+        if (!isValid(value)) {
+            return null;
+        }
+
+        // At most "+36" followed by 11 digits
+        char[] buffer = new char[14];
+        int length = 0;
+        buffer[length++] = '+';
+
+        boolean international = value.charAt(0) == '+';
+        int digitIndex = 0;
+        for (int i = international ? 1 : 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ') {
+                continue;
+            }
+            if (!international && digitIndex == 0 && c == '0' && startsWithDomesticPrefix(value, i)) {
+                buffer[length++] = HUNGARIAN_COUNTRY_CODE.charAt(0);
+                buffer[length++] = HUNGARIAN_COUNTRY_CODE.charAt(1);
+                // Skip the second digit of the "06" prefix as well
+                i = nextDigit(value, i + 1);
+                digitIndex = 2;
+                continue;
+            }
+            buffer[length++] = c;
+            digitIndex++;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private static boolean startsWithDomesticPrefix(String value, int zeroIndex) {
+        int next = nextDigit(value, zeroIndex + 1);
+        return next < value.length() && value.charAt(next) == '6';
+    }
+
+    private static int nextDigit(String value, int from) {
+        int i = from;
+        while (i < value.length() && value.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,176 @@
+package contacts.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the work, the callers that
+ * arrive while it is running wait for it and get the same result (or exception) instead of running
+ * it again. Optionally, a result is also handed to the callers of the next few milliseconds.
+ *
+ * {@link #invalidate()} starts a new generation: callers arriving afterwards never get a result
+ * whose work started before, so a caller always sees the changes committed before its call.
+ * The results are shared, so they must not be modified by the callers.
+ *
+ * @param <K> The type of the keys, which need equals and hashCode
+ * @param <V> The type of the results
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long resultTtlNanos;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    /**
+     * Creates a coalescer.
+     *
+     * @param resultTtl How long a result is handed to later callers; zero to share only running work
+     */
+    public SingleFlight(Duration resultTtl) {
+        this(resultTtl, System::nanoTime);
+    }
+
+    SingleFlight(Duration resultTtl, LongSupplier nanoClock) {
+        this.resultTtlNanos = Math.max(0, resultTtl.toNanos());
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Runs the work, or waits for the same key's running work, or returns its recent result.
+     *
+     * @param key The key of the work; equal keys must do the same work
+     * @param work The work, run on the calling thread
+     * @return The result of the work
+     */
+    public V execute(K key, Supplier<V> work) {
+        long currentGeneration = generation.get();
+        long now = nanoClock.getAsLong();
+        Flight<V> existing = flights.get(key);
+        if (existing == null || !existing.canJoin(currentGeneration, now)) {
+            Flight<V> created = new Flight<>(currentGeneration);
+            existing = flights.compute(key, (k, flight) ->
+                    flight != null && flight.canJoin(currentGeneration, now) ? flight : created);
+            if (existing == created) {
+                return run(key, created, work);
+            }
+        }
+        (existing.result.isDone() ? reused : joined).increment();
+        return existing.await();
+    }
+
+    /**
+     * Drops the recent results, and makes the running work unavailable to later callers.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        flights.clear();
+    }
+
+    /**
+     * @return The number of times the work was run
+     */
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    /**
+     * @return The number of callers that waited for running work instead of running it
+     */
+    public long getJoined() {
+        return joined.sum();
+    }
+
+    /**
+     * @return The number of callers that got a recent result
+     */
+    public long getReused() {
+        return reused.sum();
+    }
+
+    int size() {
+        return flights.size();
+    }
+
+    private V run(K key, Flight<V> flight, Supplier<V> work) {
+        executed.increment();
+        try {
+            V value = work.get();
+            flight.expiresAt = nanoClock.getAsLong() + resultTtlNanos;
+            flight.result.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (resultTtlNanos == 0 || flight.result.isCompletedExceptionally()) {
+                flights.remove(key, flight);
+            } else {
+                // Results are only looked up by key, so expired ones of keys not asked for again are swept here
+                long now = nanoClock.getAsLong();
+                flights.values().removeIf(other -> other.result.isDone() && now - other.expiresAt >= 0);
+            }
+        }
+    }
+
+    private static final class Flight<V> {
+
+        private final long generation;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private volatile long expiresAt;
+
+        private Flight(long generation) {
+            this.generation = generation;
+        }
+
+        private boolean canJoin(long currentGeneration, long now) {
+            if (generation != currentGeneration) {
+                return false;
+            }
+            // A failure is shared with the callers already waiting, but not with later ones
+            return !result.isDone() || (!result.isCompletedExceptionally() && now - expiresAt < 0);
+        }
+
+        private V await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return result.get();
+                    } catch (InterruptedException e) {
+                        // The work runs on another caller's thread and cannot be abandoned half way
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        throw rethrow(e.getCause());
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private static RuntimeException rethrow(Throwable cause) {
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package contacts.util;
+
+import java.text.Normalizer;
+
+/**
+ * Utility class for phonetic name keys.
+ * Names that sound alike get the same Soundex code, e.g. "Kovács", "Kovacs" and "Kowacs".
+ */
+public class SoundexUtils {
+
+    // Soundex digit for each letter A-Z, '0' for vowels and ignored letters.
+    // Unlike classic Soundex, W is coded like V, as the two are interchangeable in Hungarian names.
+    private static final String CODES = "01230120022455012623011202";
+
+    /**
+     * Computes the Soundex code of a name.
+     * Accents are removed first, so Hungarian names are coded like their unaccented form.
+     *
+     * @param name The name to encode
+     * @return The four character Soundex code, or null if the name contains no letters
+     */
+    public static String soundex(String name) {
+        if (name == null) {
+            return null;
+        }
+        String plain = Normalizer.normalize(name, Normalizer.Form.NFD);
+
+        char[] code = new char[4];
+        int length = 0;
+        char lastDigit = 0;
+        for (int i = 0; i < plain.length() && length < 4; i++) {
+            char c = Character.toUpperCase(plain.charAt(i));
+            if (c < 'A' || c > 'Z') {
+                continue;
+            }
+            char digit = CODES.charAt(c - 'A');
+            if (length == 0) {
+                code[length++] = c;
+            } else if (digit != '0' && digit != lastDigit) {
+                code[length++] = digit;
+            }
+            // H does not separate letters with the same code, vowels do
+            if (c != 'H') {
+                lastDigit = digit;
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        while (length < 4) {
+            code[length++] = '0';
+        }
+        return new String(code);
+    }
+}
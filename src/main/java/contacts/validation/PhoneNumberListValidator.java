@@ -1,20 +1,12 @@
 package contacts.validation;
 
+import contacts.util.PhoneNumberUtils;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import java.util.List;
-import java.util.regex.Pattern;
 
 public class PhoneNumberListValidator implements ConstraintValidator<PhoneNumberList, List<String>> {
 
-    private static final Pattern PHONE_PATTERN = Pattern.compile("^(\\+)?[0-9 ]+$");
-
-    // Count the number of digits in the phone number
-    private boolean isValidDigitCount(String value) {
-        int digitCount = value.replaceAll("[^0-9]", "").length();
-        return digitCount == 10 || digitCount == 11;
-    }
-
     @Override
     public void initialize(PhoneNumberList constraintAnnotation) {
         // No initialization needed
@@ -34,10 +26,8 @@ public class PhoneNumberListValidator implements ConstraintValidator<PhoneNumber
         for (int i = 0; i < values.size(); i++) {
             String value = values.get(i);
             if (value != null && !value.isEmpty()) {
-                boolean matchesPattern = PHONE_PATTERN.matcher(value).matches();
-                boolean hasValidDigitCount = isValidDigitCount(value);
-
-                if (!matchesPattern || !hasValidDigitCount) {
+                // Single pass over the characters: format and digit count together
+                if (!PhoneNumberUtils.isValid(value)) {
                     // Add a custom error message for each invalid phone number
                     context.buildConstraintViolationWithTemplate("Phone number should be 10 or 11 digits")
                            .addPropertyNode("phoneNumbers")
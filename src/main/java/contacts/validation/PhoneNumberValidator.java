@@ -1,19 +1,11 @@
 package contacts.validation;
 
+import contacts.util.PhoneNumberUtils;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
-import java.util.regex.Pattern;
 
 public class PhoneNumberValidator implements ConstraintValidator<PhoneNumber, String> {
 
-    private static final Pattern PHONE_PATTERN = Pattern.compile("^(\\+)?[0-9 ]+$");
-
-    // Count the number of digits in the phone number
-    private boolean isValidDigitCount(String value) {
-        int digitCount = value.replaceAll("[^0-9]", "").length();
-        return digitCount == 10 || digitCount == 11;
-    }
-
     @Override
     public void initialize(PhoneNumber constraintAnnotation) {
         // No initialization needed
@@ -25,10 +17,8 @@ public class PhoneNumberValidator implements ConstraintValidator<PhoneNumber, St
             return true; // Let @NotBlank handle empty values
         }
 
-        boolean matchesPattern = PHONE_PATTERN.matcher(value).matches();
-        boolean hasValidDigitCount = isValidDigitCount(value);
-
-        if (!matchesPattern || !hasValidDigitCount) {
+        // Single pass over the characters: format and digit count together
+        if (!PhoneNumberUtils.isValid(value)) {
             context.disableDefaultConstraintViolation();
             context.buildConstraintViolationWithTemplate("Phone number should be 10 or 11 digits")
                    .addConstraintViolation();
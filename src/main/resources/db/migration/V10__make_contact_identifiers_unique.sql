@@ -0,0 +1,7 @@
+-- Contact.tajNumber and Contact.taxId are unique in the entity, enforce it in the database as well.
+-- Fails if duplicates already exist, they have to be resolved by hand first.
+DROP INDEX idx_contact_taj_number;
+DROP INDEX idx_contact_tax_id;
+
+CREATE UNIQUE INDEX uq_contact_taj_number ON contact (taj_number);
+CREATE UNIQUE INDEX uq_contact_tax_id ON contact (tax_id);
@@ -0,0 +1,76 @@
+-- Change tracking for the delta sync API.
+-- row_version is the ID of the transaction that last changed the contact or one of its phone
+-- numbers and addresses. Unlike a timestamp, it can be compared with the oldest transaction
+-- still running (txid_snapshot_xmin), so a change committed late is never skipped.
+ALTER TABLE contact
+    ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT now(),
+    ADD COLUMN updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    ADD COLUMN row_version BIGINT NOT NULL DEFAULT txid_current();
+
+CREATE INDEX idx_contact_user_row_version ON contact (user_id, row_version, id);
+CREATE INDEX idx_contact_row_version ON contact (row_version, id);
+
+CREATE TABLE contact_tombstone (
+    contact_id BIGINT PRIMARY KEY,
+    user_id BIGINT,
+    row_version BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_contact_tombstone_user_row_version ON contact_tombstone (user_id, row_version, contact_id);
+CREATE INDEX idx_contact_tombstone_row_version ON contact_tombstone (row_version, contact_id);
+CREATE INDEX idx_contact_tombstone_deleted_at ON contact_tombstone (deleted_at);
+
+CREATE FUNCTION contact_touch() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        NEW.created_at := now();
+    ELSE
+        NEW.created_at := OLD.created_at;
+    END IF;
+    NEW.updated_at := now();
+    NEW.row_version := txid_current();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_contact_touch
+    BEFORE INSERT OR UPDATE ON contact
+    FOR EACH ROW EXECUTE FUNCTION contact_touch();
+
+CREATE FUNCTION contact_tombstone_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO contact_tombstone (contact_id, user_id, row_version, deleted_at)
+    VALUES (OLD.id, OLD.user_id, txid_current(), now())
+    ON CONFLICT (contact_id) DO NOTHING;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_contact_tombstone
+    AFTER DELETE ON contact
+    FOR EACH ROW EXECUTE FUNCTION contact_tombstone_insert();
+
+-- A changed phone number or address changes its contact. The contact row is touched only
+-- once per transaction, however many of its children change.
+CREATE FUNCTION contact_child_touch() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE contact SET updated_at = now()
+        WHERE id = OLD.contact_id AND row_version <> txid_current();
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE contact SET updated_at = now()
+        WHERE id = NEW.contact_id AND row_version <> txid_current();
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_phone_number_touch_contact
+    AFTER INSERT OR UPDATE OR DELETE ON phone_number
+    FOR EACH ROW EXECUTE FUNCTION contact_child_touch();
+
+CREATE TRIGGER trg_address_touch_contact
+    AFTER INSERT OR UPDATE OR DELETE ON address
+    FOR EACH ROW EXECUTE FUNCTION contact_child_touch();
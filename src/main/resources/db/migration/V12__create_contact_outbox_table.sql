@@ -0,0 +1,11 @@
+-- Contact change events waiting to be relayed to downstream systems.
+-- Written in the same transaction as the change, deleted once the relay has delivered them.
+-- No foreign key to contact: the events of deleted contacts have to be delivered as well.
+CREATE TABLE contact_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    contact_id BIGINT NOT NULL,
+    user_id BIGINT,
+    event_type VARCHAR(20) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,31 @@
+-- Contact statistics for the dashboards: contacts per user, per city and per birth decade.
+-- contact_statistic holds the counts; the bucket is the user ID, the city, or the first year of
+-- the decade ('unknown' without a birth date). A contact with several addresses in the same city
+-- counts once for that city. The birth decades together give the total.
+CREATE TABLE contact_statistic (
+    dimension VARCHAR(20) NOT NULL,
+    bucket VARCHAR(50) NOT NULL,
+    contact_count BIGINT NOT NULL,
+    PRIMARY KEY (dimension, bucket)
+);
+
+CREATE INDEX idx_contact_statistic_dimension_count ON contact_statistic (dimension, contact_count DESC);
+
+-- Changes to the counts, written in the transaction of each contact change and folded into
+-- contact_statistic in batches. Only ever inserted, so concurrent changes never wait for each other.
+CREATE TABLE contact_statistic_delta (
+    id BIGSERIAL PRIMARY KEY,
+    dimension VARCHAR(20) NOT NULL,
+    bucket VARCHAR(50) NOT NULL,
+    delta INTEGER NOT NULL
+);
+
+-- The counts of the existing contacts, the same query as the nightly reconciliation
+INSERT INTO contact_statistic (dimension, bucket, contact_count)
+SELECT 'USER', user_id::text, count(*) FROM contact WHERE user_id IS NOT NULL GROUP BY user_id
+UNION ALL
+SELECT 'BIRTH_DECADE', coalesce((extract(year FROM birth_date)::int / 10 * 10)::text, 'unknown'), count(*)
+FROM contact GROUP BY 2
+UNION ALL
+SELECT 'CITY', city, count(DISTINCT contact_id)
+FROM (SELECT contact_id, trim(city) AS city FROM address) a WHERE city <> '' GROUP BY city;
@@ -0,0 +1,10 @@
+-- Month and day of a date as one number, e.g. 1231 for December 31, so a range of days of the
+-- year is a range of keys whatever the year of birth. Immutable, so it can be indexed.
+CREATE FUNCTION birthday_key(d DATE) RETURNS INTEGER AS $$
+    SELECT (extract(month FROM d) * 100 + extract(day FROM d))::int
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE;
+
+-- Upcoming birthdays of one user, and of all users. Not partial, because the planner only
+-- keeps statistics on the key for indexes without a WHERE clause.
+CREATE INDEX idx_contact_user_birthday ON contact (user_id, birthday_key(birth_date), id);
+CREATE INDEX idx_contact_birthday ON contact (birthday_key(birth_date), id);
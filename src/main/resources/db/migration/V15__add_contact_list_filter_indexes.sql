@@ -0,0 +1,20 @@
+-- Filters and sorts of the contact list, see ContactListQueryService for the combinations they answer
+CREATE INDEX idx_contact_last_name ON contact (last_name, id);
+CREATE INDEX idx_contact_user_id ON contact (user_id, id);
+CREATE INDEX idx_contact_user_last_name ON contact (user_id, last_name, id);
+
+-- In the partitioned layout the addresses and phone numbers are stored in the *_by_owner tables,
+-- which already have the contact indexes
+DO $$
+BEGIN
+    IF to_regclass('address_by_owner') IS NULL THEN
+        CREATE INDEX idx_address_city_zip_code ON address (city, zip_code, contact_id);
+        CREATE INDEX idx_address_zip_code ON address (zip_code, contact_id);
+        -- The addresses and phone numbers of a page are loaded by contact ID
+        CREATE INDEX idx_address_contact ON address (contact_id);
+        CREATE INDEX idx_phone_number_contact ON phone_number (contact_id);
+    ELSE
+        CREATE INDEX idx_address_city_zip_code ON address_by_owner (city, zip_code, contact_id);
+        CREATE INDEX idx_address_zip_code ON address_by_owner (zip_code, contact_id);
+    END IF;
+END $$;
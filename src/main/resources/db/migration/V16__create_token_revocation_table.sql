@@ -0,0 +1,16 @@
+-- Revoked login tokens, see TokenRevocationService. A row revokes either one token (jti) or every
+-- token of a user issued before a point in time (issued_before). Times are epoch seconds, like the
+-- claims of the token. A row is no longer needed once the tokens it revokes have expired.
+-- row_version is the ID of the inserting transaction, so every instance can poll the rows added
+-- since its previous poll without skipping one committed late.
+CREATE TABLE token_revocation (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    jti VARCHAR(36),
+    issued_before BIGINT,
+    expires_at BIGINT NOT NULL,
+    row_version BIGINT NOT NULL DEFAULT txid_current()
+);
+
+CREATE INDEX idx_token_revocation_row_version ON token_revocation (row_version);
+CREATE INDEX idx_token_revocation_expires_at ON token_revocation (expires_at);
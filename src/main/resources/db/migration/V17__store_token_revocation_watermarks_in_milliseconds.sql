@@ -0,0 +1,3 @@
+-- issued_before is compared with the millisecond issue time of the token from now on, see
+-- TokenRevocationService; expires_at stays in epoch seconds
+UPDATE token_revocation SET issued_before = issued_before * 1000 WHERE issued_before IS NOT NULL;
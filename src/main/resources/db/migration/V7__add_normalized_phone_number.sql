@@ -0,0 +1,15 @@
+ALTER TABLE phone_number
+    ADD COLUMN normalized_number VARCHAR(16);
+
+-- Same rules as PhoneNumberUtils.normalize: '+' keeps the country code,
+-- the domestic "06" prefix becomes +36, anything else already has a country code
+UPDATE phone_number p
+SET normalized_number = CASE
+        WHEN p.phone_number LIKE '+%' THEN '+' || d.digits
+        WHEN d.digits LIKE '06%' THEN '+36' || substr(d.digits, 3)
+        ELSE '+' || d.digits
+    END
+FROM (SELECT id, regexp_replace(phone_number, '[^0-9]', '', 'g') AS digits FROM phone_number) d
+WHERE d.id = p.id
+  AND p.phone_number ~ '^\+?[0-9 ]+$'
+  AND length(d.digits) BETWEEN 10 AND 11;
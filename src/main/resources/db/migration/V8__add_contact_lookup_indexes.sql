@@ -0,0 +1,7 @@
+CREATE INDEX idx_phone_number_normalized_number ON phone_number (normalized_number);
+
+CREATE INDEX idx_contact_taj_number ON contact (taj_number);
+
+CREATE INDEX idx_contact_tax_id ON contact (tax_id);
+
+CREATE INDEX idx_contact_email_lower ON contact (lower(email));
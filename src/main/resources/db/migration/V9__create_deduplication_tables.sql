@@ -0,0 +1,22 @@
+CREATE TABLE contact_blocking_key (
+    id BIGSERIAL PRIMARY KEY,
+    contact_id BIGINT NOT NULL REFERENCES contact(id) ON DELETE CASCADE,
+    user_id BIGINT NOT NULL,
+    blocking_key VARCHAR(120) NOT NULL
+);
+
+CREATE INDEX idx_contact_blocking_key_bucket ON contact_blocking_key (user_id, blocking_key);
+CREATE INDEX idx_contact_blocking_key_contact ON contact_blocking_key (contact_id);
+
+CREATE TABLE duplicate_candidate (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    contact_id BIGINT NOT NULL REFERENCES contact(id) ON DELETE CASCADE,
+    other_contact_id BIGINT NOT NULL REFERENCES contact(id) ON DELETE CASCADE,
+    score DOUBLE PRECISION NOT NULL,
+    detected_at TIMESTAMP NOT NULL,
+    CONSTRAINT uq_duplicate_candidate_pair UNIQUE (contact_id, other_contact_id)
+);
+
+CREATE INDEX idx_duplicate_candidate_user_score ON duplicate_candidate (user_id, score DESC);
+CREATE INDEX idx_duplicate_candidate_other ON duplicate_candidate (other_contact_id);
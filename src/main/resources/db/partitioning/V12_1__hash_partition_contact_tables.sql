@@ -0,0 +1,269 @@
+-- Optional: hash-partitions contact, phone_number and address by the owning user, enabled by the
+-- "partitioned" profile. Queries on contact.user_id read a single partition, and vacuum and index
+-- maintenance work on partitions instead of the whole tables.
+--
+-- Versioned between V12 and V13, so it can only be applied to a database that is not past V12
+-- yet; later migrations run on top of either layout and must not use CREATE INDEX CONCURRENTLY
+-- on these tables. The number of partitions comes from spring.flyway.placeholders.contactPartitions
+-- and cannot be changed later without rebuilding the tables.
+--
+-- What changes compared to the plain layout:
+-- * contact is partitioned by user_id, its primary key is (id, user_id) and user_id is required.
+-- * phone_number and address are stored in phone_number_by_owner and address_by_owner, which
+--   carry the user_id of their contact and are partitioned the same way. The old names are views
+--   with INSTEAD OF triggers, so the entities keep their mapping.
+-- * A unique index cannot span partitions, so the email, TAJ number and tax ID of every contact
+--   are kept unique in contact_identifier by a trigger.
+-- * Foreign keys to contact include user_id, and follow the contact when its owner changes.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM contact WHERE user_id IS NULL) THEN
+        RAISE EXCEPTION 'Contacts without a user cannot be partitioned, assign or delete them first';
+    END IF;
+END $$;
+
+-- The sequences stay, so IDs keep growing where they were
+ALTER SEQUENCE contact_id_seq OWNED BY NONE;
+ALTER SEQUENCE phone_number_id_seq OWNED BY NONE;
+ALTER SEQUENCE address_id_seq OWNED BY NONE;
+
+ALTER TABLE contact_blocking_key DROP CONSTRAINT contact_blocking_key_contact_id_fkey;
+ALTER TABLE duplicate_candidate DROP CONSTRAINT duplicate_candidate_contact_id_fkey;
+ALTER TABLE duplicate_candidate DROP CONSTRAINT duplicate_candidate_other_contact_id_fkey;
+
+ALTER TABLE contact RENAME TO contact_unpartitioned;
+ALTER TABLE phone_number RENAME TO phone_number_unpartitioned;
+ALTER TABLE address RENAME TO address_unpartitioned;
+
+CREATE TABLE contact (
+    id BIGINT NOT NULL DEFAULT nextval('contact_id_seq'),
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    email VARCHAR(100) NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES "user"(id) ON DELETE CASCADE,
+    taj_number VARCHAR(20),
+    tax_id VARCHAR(20),
+    birth_date DATE,
+    mother_name VARCHAR(100),
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    row_version BIGINT NOT NULL DEFAULT txid_current()
+) PARTITION BY HASH (user_id);
+
+CREATE TABLE phone_number_by_owner (
+    id BIGINT NOT NULL DEFAULT nextval('phone_number_id_seq'),
+    contact_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    phone_number VARCHAR(20) NOT NULL,
+    normalized_number VARCHAR(16)
+) PARTITION BY HASH (user_id);
+
+CREATE TABLE address_by_owner (
+    id BIGINT NOT NULL DEFAULT nextval('address_id_seq'),
+    contact_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    street VARCHAR(100) NOT NULL,
+    city VARCHAR(50) NOT NULL,
+    zip_code VARCHAR(20) NOT NULL
+) PARTITION BY HASH (user_id);
+
+-- Same modulus for all three tables: partition n of each holds the data of the same users
+DO $$
+BEGIN
+    FOR i IN 0 .. ${contactPartitions} - 1 LOOP
+        EXECUTE format('CREATE TABLE contact_p%s PARTITION OF contact
+                        FOR VALUES WITH (MODULUS %s, REMAINDER %s)', i, ${contactPartitions}, i);
+        EXECUTE format('CREATE TABLE phone_number_by_owner_p%s PARTITION OF phone_number_by_owner
+                        FOR VALUES WITH (MODULUS %s, REMAINDER %s)', i, ${contactPartitions}, i);
+        EXECUTE format('CREATE TABLE address_by_owner_p%s PARTITION OF address_by_owner
+                        FOR VALUES WITH (MODULUS %s, REMAINDER %s)', i, ${contactPartitions}, i);
+    END LOOP;
+END $$;
+
+-- Copied before the triggers exist, so the timestamps and row versions are kept.
+-- Phone numbers and addresses without a contact cannot be reached through the API and are dropped.
+INSERT INTO contact (id, first_name, last_name, email, user_id, taj_number, tax_id, birth_date,
+                     mother_name, created_at, updated_at, row_version)
+SELECT id, first_name, last_name, email, user_id, taj_number, tax_id, birth_date,
+       mother_name, created_at, updated_at, row_version
+FROM contact_unpartitioned;
+
+INSERT INTO phone_number_by_owner (id, contact_id, user_id, phone_number, normalized_number)
+SELECT p.id, p.contact_id, c.user_id, p.phone_number, p.normalized_number
+FROM phone_number_unpartitioned p
+JOIN contact_unpartitioned c ON c.id = p.contact_id;
+
+INSERT INTO address_by_owner (id, contact_id, user_id, street, city, zip_code)
+SELECT a.id, a.contact_id, c.user_id, a.street, a.city, a.zip_code
+FROM address_unpartitioned a
+JOIN contact_unpartitioned c ON c.id = a.contact_id;
+
+DROP TABLE phone_number_unpartitioned;
+DROP TABLE address_unpartitioned;
+DROP TABLE contact_unpartitioned;
+
+ALTER SEQUENCE contact_id_seq OWNED BY contact.id;
+ALTER SEQUENCE phone_number_id_seq OWNED BY phone_number_by_owner.id;
+ALTER SEQUENCE address_id_seq OWNED BY address_by_owner.id;
+
+ALTER TABLE contact ADD PRIMARY KEY (id, user_id);
+ALTER TABLE phone_number_by_owner ADD PRIMARY KEY (id, user_id);
+ALTER TABLE address_by_owner ADD PRIMARY KEY (id, user_id);
+
+ALTER TABLE phone_number_by_owner ADD FOREIGN KEY (contact_id, user_id)
+    REFERENCES contact (id, user_id) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE address_by_owner ADD FOREIGN KEY (contact_id, user_id)
+    REFERENCES contact (id, user_id) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE contact_blocking_key ADD FOREIGN KEY (contact_id, user_id)
+    REFERENCES contact (id, user_id) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE duplicate_candidate ADD FOREIGN KEY (contact_id, user_id)
+    REFERENCES contact (id, user_id) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE duplicate_candidate ADD FOREIGN KEY (other_contact_id, user_id)
+    REFERENCES contact (id, user_id) ON DELETE CASCADE ON UPDATE CASCADE;
+
+-- The indexes of V8, V10 and V11, created on every partition
+CREATE INDEX idx_contact_email ON contact (email);
+CREATE INDEX idx_contact_email_lower ON contact (lower(email));
+CREATE INDEX idx_contact_taj_number ON contact (taj_number);
+CREATE INDEX idx_contact_tax_id ON contact (tax_id);
+CREATE INDEX idx_contact_user_row_version ON contact (user_id, row_version, id);
+CREATE INDEX idx_contact_row_version ON contact (row_version, id);
+CREATE INDEX idx_phone_number_contact ON phone_number_by_owner (contact_id);
+CREATE INDEX idx_phone_number_normalized_number ON phone_number_by_owner (normalized_number);
+CREATE INDEX idx_address_contact ON address_by_owner (contact_id);
+
+-- Globally unique contact identifiers
+CREATE TABLE contact_identifier (
+    kind VARCHAR(10) NOT NULL,
+    value VARCHAR(100) NOT NULL,
+    contact_id BIGINT NOT NULL,
+    PRIMARY KEY (kind, value)
+);
+
+INSERT INTO contact_identifier (kind, value, contact_id)
+SELECT 'email', email, id FROM contact
+UNION ALL
+SELECT 'taj_number', taj_number, id FROM contact WHERE taj_number IS NOT NULL
+UNION ALL
+SELECT 'tax_id', tax_id, id FROM contact WHERE tax_id IS NOT NULL;
+
+CREATE FUNCTION contact_identifier_sync() RETURNS trigger AS $$
+DECLARE
+    kinds TEXT[] := ARRAY['email', 'taj_number', 'tax_id'];
+    old_values TEXT[] := ARRAY[NULL, NULL, NULL];
+    new_values TEXT[] := ARRAY[NULL, NULL, NULL];
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        old_values := ARRAY[OLD.email, OLD.taj_number, OLD.tax_id];
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        new_values := ARRAY[NEW.email, NEW.taj_number, NEW.tax_id];
+    END IF;
+    FOR i IN 1 .. 3 LOOP
+        CONTINUE WHEN old_values[i] IS NOT DISTINCT FROM new_values[i];
+        IF old_values[i] IS NOT NULL THEN
+            DELETE FROM contact_identifier WHERE kind = kinds[i] AND value = old_values[i];
+        END IF;
+        IF new_values[i] IS NOT NULL THEN
+            -- Fails with a unique violation, like the unique indexes of the plain layout
+            INSERT INTO contact_identifier (kind, value, contact_id) VALUES (kinds[i], new_values[i], NEW.id);
+        END IF;
+    END LOOP;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_contact_identifier_sync
+    AFTER INSERT OR UPDATE OF email, taj_number, tax_id OR DELETE ON contact
+    FOR EACH ROW EXECUTE FUNCTION contact_identifier_sync();
+
+-- The change tracking triggers of V11
+CREATE TRIGGER trg_contact_touch
+    BEFORE INSERT OR UPDATE ON contact
+    FOR EACH ROW EXECUTE FUNCTION contact_touch();
+
+CREATE TRIGGER trg_contact_tombstone
+    AFTER DELETE ON contact
+    FOR EACH ROW EXECUTE FUNCTION contact_tombstone_insert();
+
+-- With user_id in the condition, touching the contact reads one partition
+CREATE OR REPLACE FUNCTION contact_child_touch() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        UPDATE contact SET updated_at = now()
+        WHERE id = OLD.contact_id AND user_id = OLD.user_id AND row_version <> txid_current();
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        UPDATE contact SET updated_at = now()
+        WHERE id = NEW.contact_id AND user_id = NEW.user_id AND row_version <> txid_current();
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_phone_number_touch_contact
+    AFTER INSERT OR UPDATE OR DELETE ON phone_number_by_owner
+    FOR EACH ROW EXECUTE FUNCTION contact_child_touch();
+
+CREATE TRIGGER trg_address_touch_contact
+    AFTER INSERT OR UPDATE OR DELETE ON address_by_owner
+    FOR EACH ROW EXECUTE FUNCTION contact_child_touch();
+
+-- The tables the entities are mapped to. Writes take the user_id from the contact.
+CREATE VIEW phone_number AS
+    SELECT id, contact_id, phone_number, normalized_number, user_id FROM phone_number_by_owner;
+
+CREATE VIEW address AS
+    SELECT id, contact_id, street, city, zip_code, user_id FROM address_by_owner;
+
+ALTER VIEW phone_number ALTER COLUMN id SET DEFAULT nextval('phone_number_id_seq');
+ALTER VIEW address ALTER COLUMN id SET DEFAULT nextval('address_id_seq');
+
+CREATE FUNCTION phone_number_write() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM phone_number_by_owner WHERE id = OLD.id AND user_id = OLD.user_id;
+        RETURN OLD;
+    END IF;
+    NEW.user_id := (SELECT user_id FROM contact WHERE id = NEW.contact_id);
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO phone_number_by_owner (id, contact_id, user_id, phone_number, normalized_number)
+        VALUES (NEW.id, NEW.contact_id, NEW.user_id, NEW.phone_number, NEW.normalized_number);
+    ELSE
+        UPDATE phone_number_by_owner
+        SET id = NEW.id, contact_id = NEW.contact_id, user_id = NEW.user_id,
+            phone_number = NEW.phone_number, normalized_number = NEW.normalized_number
+        WHERE id = OLD.id AND user_id = OLD.user_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION address_write() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM address_by_owner WHERE id = OLD.id AND user_id = OLD.user_id;
+        RETURN OLD;
+    END IF;
+    NEW.user_id := (SELECT user_id FROM contact WHERE id = NEW.contact_id);
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO address_by_owner (id, contact_id, user_id, street, city, zip_code)
+        VALUES (NEW.id, NEW.contact_id, NEW.user_id, NEW.street, NEW.city, NEW.zip_code);
+    ELSE
+        UPDATE address_by_owner
+        SET id = NEW.id, contact_id = NEW.contact_id, user_id = NEW.user_id,
+            street = NEW.street, city = NEW.city, zip_code = NEW.zip_code
+        WHERE id = OLD.id AND user_id = OLD.user_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_phone_number_write
+    INSTEAD OF INSERT OR UPDATE OR DELETE ON phone_number
+    FOR EACH ROW EXECUTE FUNCTION phone_number_write();
+
+CREATE TRIGGER trg_address_write
+    INSTEAD OF INSERT OR UPDATE OR DELETE ON address
+    FOR EACH ROW EXECUTE FUNCTION address_write();
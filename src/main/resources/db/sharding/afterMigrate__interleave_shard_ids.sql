@@ -0,0 +1,16 @@
+-- Runs after every migration of a shard, see ShardRoutingConfig.
+-- Shard i of n hands out the contact and user IDs i, i + n, i + 2n, ... so IDs are unique across
+-- the shards and the shard of a contact is its ID modulo n. Safe to run again: a sequence that is
+-- already interleaved keeps its value.
+DO $$
+DECLARE
+    seq TEXT;
+    last BIGINT;
+BEGIN
+    FOREACH seq IN ARRAY ARRAY['contact_id_seq', 'user_id_seq'] LOOP
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY %s', seq, ${shardCount});
+        EXECUTE format('SELECT last_value FROM %I', seq) INTO last;
+        -- Round up to the next value with the shard index as remainder, nextval adds n to it
+        PERFORM setval(seq, last + ((${shardIndex} - last) % ${shardCount} + ${shardCount}) % ${shardCount});
+    END LOOP;
+END $$;
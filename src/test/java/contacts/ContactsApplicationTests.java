@@ -1,13 +1,30 @@
 package contacts;
 
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
 
-@SpringBootTest
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "contacts.audit.directory=${java.io.tmpdir}/contacts-audit-test")
 class ContactsApplicationTests {
 
+	@Autowired
+	private ThreadPoolTaskScheduler taskScheduler;
+
+	@Autowired
+	private ScheduledTaskHolder scheduledTaskHolder;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void taskScheduler_ShouldHaveAThreadForEveryScheduledJob() {
+		// Otherwise a long job, like the nightly duplicate scan, holds up the revocation poll
+		assertTrue(taskScheduler.getPoolSize() >= scheduledTaskHolder.getScheduledTasks().size());
+	}
+
 }
@@ -0,0 +1,138 @@
+package contacts.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuditLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_ShouldBeSearchableByContactAndUser() throws Exception {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, 1 << 20, true, Clock.systemUTC())) {
+            CompletableFuture.allOf(
+                    writer.append(contactEntry(10L, 1L, "CREATED", "alice")),
+                    writer.append(contactEntry(11L, 2L, "CREATED", "bob")),
+                    writer.append(contactEntry(10L, 1L, "UPDATED", "admin")),
+                    writer.append(new AuditEntry(0, Instant.now(), "admin", AuditEntry.USER, 2L, 2L, "UPDATED", List.of("role")))
+            ).get(5, TimeUnit.SECONDS);
+        }
+
+        AuditLogReader reader = new AuditLogReader(directory);
+        List<AuditEntry> contact = reader.findByContactId(10L, 10);
+        assertEquals(List.of("UPDATED", "CREATED"), contact.stream().map(AuditEntry::getAction).toList());
+        assertTrue(contact.get(0).getSequence() > contact.get(1).getSequence());
+
+        List<AuditEntry> user = reader.findByUser(2L, null, 10);
+        assertEquals(2, user.size());
+        assertEquals(AuditEntry.USER, user.get(0).getEntityType());
+        assertEquals(List.of("role"), user.get(0).getChangedFields());
+        assertEquals(3, reader.findByUser(1L, "admin", 10).size());
+    }
+
+    @Test
+    void append_WhenSegmentIsFull_ShouldRotateAndKeepSequence() throws Exception {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, 1024, false, Clock.systemUTC())) {
+            for (long i = 0; i < 20; i++) {
+                writer.append(contactEntry(i, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        List<Path> segments = AuditSegments.list(directory);
+        assertTrue(segments.size() > 1);
+        for (Path segment : segments) {
+            // Closed segments are trimmed to their content
+            assertTrue(Files.size(segment) < 1024);
+        }
+        List<AuditEntry> all = new AuditLogReader(directory).search(entry -> true, 100);
+        assertEquals(20, all.size());
+        for (int i = 0; i < all.size(); i++) {
+            assertEquals(19 - i, all.get(i).getSequence());
+        }
+    }
+
+    @Test
+    void constructor_AfterCrash_ShouldContinueAfterLastEntry() throws Exception {
+        // The first writer is never closed, as if the process died
+        AuditLogWriter crashed = new AuditLogWriter(directory, 1 << 16, true, Clock.systemUTC());
+        crashed.append(contactEntry(1L, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+        crashed.append(contactEntry(2L, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+
+        try (AuditLogWriter writer = new AuditLogWriter(directory, 1 << 16, true, Clock.systemUTC())) {
+            writer.append(contactEntry(3L, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+        }
+
+        List<AuditEntry> all = new AuditLogReader(directory).search(entry -> true, 100);
+        assertEquals(List.of(2L, 1L, 0L), all.stream().map(AuditEntry::getSequence).toList());
+        assertEquals(3L, all.get(0).getEntityId());
+    }
+
+    @Test
+    void append_AfterAFailedRotation_ShouldOpenANewSegment() throws Exception {
+        try (AuditLogWriter writer = new AuditLogWriter(directory, 1024, false, Clock.systemUTC())) {
+            // Directories in place of the next segments make opening them fail
+            List<Path> blocked = new ArrayList<>();
+            for (long sequence = 1; sequence < 50; sequence++) {
+                blocked.add(Files.createDirectory(AuditSegments.segmentPath(directory, sequence)));
+            }
+            int written = 0;
+            while (true) {
+                CompletableFuture<Void> append = writer.append(contactEntry((long) written, 1L, "CREATED", "alice"));
+                try {
+                    append.get(5, TimeUnit.SECONDS);
+                    written++;
+                } catch (ExecutionException e) {
+                    break;
+                }
+            }
+            for (Path path : blocked) {
+                Files.delete(path);
+            }
+
+            writer.append(contactEntry(99L, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+
+            List<AuditEntry> all = new AuditLogReader(directory).search(entry -> true, 100);
+            assertEquals(written + 1, all.size());
+            assertEquals(99L, all.get(0).getEntityId());
+        }
+    }
+
+    @Test
+    void enforceRetention_ShouldDeleteOldClosedSegmentsOnly() throws Exception {
+        Instant now = Instant.parse("2025-06-01T00:00:00Z");
+        try (AuditLogWriter writer = new AuditLogWriter(directory, 512, false, Clock.fixed(now, java.time.ZoneOffset.UTC))) {
+            for (long i = 0; i < 10; i++) {
+                writer.append(contactEntry(i, 1L, "CREATED", "alice")).get(5, TimeUnit.SECONDS);
+            }
+            List<Path> segments = AuditSegments.list(directory);
+            assertTrue(segments.size() > 2);
+            Files.setLastModifiedTime(segments.get(0), FileTime.from(now.minus(Duration.ofDays(10))));
+
+            assertEquals(1, writer.enforceRetention(Duration.ofDays(5), Long.MAX_VALUE));
+            assertFalse(Files.exists(segments.get(0)));
+
+            // Over the size limit every closed segment goes, the current one stays
+            writer.enforceRetention(Duration.ofDays(5), 0);
+            assertEquals(1, AuditSegments.list(directory).size());
+        }
+    }
+
+    private static AuditEntry contactEntry(Long contactId, Long ownerId, String action, String actor) {
+        return new AuditEntry(0, Instant.now(), actor, AuditEntry.CONTACT, contactId, ownerId, action, List.of());
+    }
+}
@@ -0,0 +1,150 @@
+package contacts.benchmark;
+
+import ch.qos.logback.classic.Level;
+import contacts.domain.Contact;
+import contacts.domain.User;
+import contacts.dto.ContactListDTO;
+import contacts.repository.ContactRepository;
+import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
+import contacts.service.ContactDirectorySnapshot;
+import contacts.service.ContactService;
+import contacts.service.ContactUniquenessService;
+import contacts.service.UserIdentityCache;
+import contacts.testdata.ContactDataGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures the heap allocated by the contact list paths of {@link ContactService} at INFO level
+ * and compares it with the allocation of the DTO conversion alone. The difference is what the
+ * logging statements cost when DEBUG is off, and should be zero.
+ *
+ * Run with: mvn test -Dtest=ContactListLoggingBenchmark -Dbenchmark=true
+ * Add -DargLine=-XX:TieredStopAtLevel=1 to measure without C2 escape analysis, which can
+ * hide unguarded varargs and boxing allocations in steady state.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ContactListLoggingBenchmark {
+
+    private static final int CONTACTS = 5_000;
+    private static final int WARMUP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ch.qos.logback.classic.Logger serviceLogger;
+    private Level previousLevel;
+    private ContactService contactService;
+    private ContactRepository contactRepository;
+
+    @BeforeEach
+    void setUp() {
+        serviceLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(ContactService.class);
+        previousLevel = serviceLogger.getLevel();
+        serviceLogger.setLevel(Level.INFO);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setRole("ROLE_USER");
+
+        List<Contact> contacts = new ContactDataGenerator(42, 1, 0).contacts(1001, CONTACTS, user);
+        user.setContacts(contacts);
+
+        contactRepository = mock(ContactRepository.class, withSettings().stubOnly());
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(contactRepository.findAllByOrderById()).thenReturn(contacts);
+        when(contactRepository.findByUserId(1L)).thenReturn(contacts);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        ShardRouting shardRouting = new ShardRouting(1, new NoOpTransactionManager());
+        contactService = new ContactService(contactRepository, userRepository, new UserIdentityCache(userRepository, 100, Duration.ofMinutes(1)),
+                mock(ContactUniquenessService.class, withSettings().stubOnly()), event -> { },
+                shardRouting, Duration.ZERO, new ContactDirectorySnapshot(contactRepository, shardRouting, false, 1,
+                        DataSize.ofBytes(0), Duration.ZERO));
+    }
+
+    @AfterEach
+    void tearDown() {
+        serviceLogger.setLevel(previousLevel);
+    }
+
+    @Test
+    void listPaths_AtInfoLevel_ShouldNotAllocateForLogging() {
+        // Includes the repository call, so the cost of the mock is not counted as logging
+        Supplier<List<ContactListDTO>> conversionOnly = () -> contactRepository.findAllByOrderById().stream()
+                .map(ContactService::convertToContactListDTO)
+                .collect(Collectors.toList());
+
+        long baselineCall = bytesPerCall(conversionOnly);
+        long allContactsCall = bytesPerCall(contactService::getAllContactsAsList);
+        long userContactsCall = bytesPerCall(() -> contactService.getContactListByUserId(1L));
+        double baseline = (double) baselineCall / CONTACTS;
+        double allContacts = (double) allContactsCall / CONTACTS;
+        double userContacts = (double) userContactsCall / CONTACTS;
+
+        // Per call, so that a fixed cost such as a capturing lambda is not divided away
+        System.out.printf("conversion only:        %.1f bytes/contact, %d bytes/call%n", baseline, baselineCall);
+        System.out.printf("getAllContactsAsList:   %.1f bytes/contact (logging: %.1f), %d bytes/call (over conversion: %d)%n",
+                allContacts, allContacts - baseline, allContactsCall, allContactsCall - baselineCall);
+        System.out.printf("getContactListByUserId: %.1f bytes/contact (logging: %.1f), %d bytes/call (over conversion: %d)%n",
+                userContacts, userContacts - baseline, userContactsCall, userContactsCall - baselineCall);
+
+        // The fixed cost of the call itself is a fraction of a byte per contact, a logging
+        // statement in the loop costs at least an object per contact
+        assertTrue(allContacts - baseline < 1, "getAllContactsAsList allocates for logging at INFO level");
+        assertTrue(userContacts - baseline < 1, "getContactListByUserId allocates for logging at INFO level");
+    }
+
+    private long bytesPerCall(Supplier<List<ContactListDTO>> listPath) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            listPath.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            listPath.get();
+            best = Math.min(best, threadBean.getThreadAllocatedBytes(threadId) - before);
+        }
+        return best;
+    }
+
+    /**
+     * A transaction manager that does nothing; a Mockito mock would allocate for every call it records.
+     */
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
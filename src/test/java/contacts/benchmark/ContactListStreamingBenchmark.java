@@ -0,0 +1,185 @@
+package contacts.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the buffered /api/contacts/list endpoint with the streaming /api/contacts/list/stream
+ * endpoint under many concurrent clients, against a running application.
+ *
+ * While the clients run, the actuator metrics for busy Tomcat threads, live JVM threads and
+ * active Hikari connections are sampled, and their peaks are reported together with the
+ * latency of each endpoint and the number of rejected (503/429) requests.
+ *
+ * Run with: mvn test -Dtest=ContactListStreamingBenchmark -Dbenchmark=true
+ * Options: -Dbenchmark.url=http://localhost:8080 -Dbenchmark.user=admin -Dbenchmark.password=admin
+ *          -Dbenchmark.clients=64 -Dbenchmark.requests=20
+ * Start the application with server.tomcat.mbeanregistry.enabled=true to get the Tomcat thread metric,
+ * and with the limits raised if rejections should not cut the load short.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ContactListStreamingBenchmark {
+
+    private static final String BASE_URL = System.getProperty("benchmark.url", "http://localhost:8080");
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 64);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 20);
+
+    private static final String[] METRICS = {"tomcat.threads.busy", "jvm.threads.live", "hikaricp.connections.active"};
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareBufferedAndStreamingList() throws Exception {
+        String token = login();
+
+        // Warm up both paths
+        run("/api/contacts/list", token, 4, 5);
+        run("/api/contacts/list/stream", token, 4, 5);
+
+        Result buffered = run("/api/contacts/list", token, CLIENTS, REQUESTS_PER_CLIENT);
+        Result streaming = run("/api/contacts/list/stream", token, CLIENTS, REQUESTS_PER_CLIENT);
+
+        System.out.printf("%d clients x %d requests%n", CLIENTS, REQUESTS_PER_CLIENT);
+        System.out.println("buffered:  " + buffered);
+        System.out.println("streaming: " + streaming);
+    }
+
+    private Result run(String path, String token, int clients, int requestsPerClient) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        double[] peaks = new double[METRICS.length];
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                for (int i = 0; i < METRICS.length; i++) {
+                    peaks[i] = Math.max(peaks[i], readMetric(METRICS[i], token));
+                }
+                sleep(50);
+            }
+        });
+        sampler.start();
+
+        AtomicLong totalNanos = new AtomicLong();
+        AtomicLong maxNanos = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                futures.add(executor.submit(() -> {
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        long requestStart = System.nanoTime();
+                        HttpResponse<InputStream> response = client.send(request(path, token),
+                                HttpResponse.BodyHandlers.ofInputStream());
+                        try (InputStream body = response.body()) {
+                            bytes.addAndGet(body.transferTo(OutputStreamSink.INSTANCE));
+                        }
+                        if (response.statusCode() == 503 || response.statusCode() == 429) {
+                            rejected.incrementAndGet();
+                        }
+                        long elapsed = System.nanoTime() - requestStart;
+                        totalNanos.addAndGet(elapsed);
+                        maxNanos.accumulateAndGet(elapsed, Math::max);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            running.set(false);
+            sampler.join();
+        }
+        long requests = (long) clients * requestsPerClient;
+        return new Result(requests, (System.nanoTime() - start) / 1_000_000, totalNanos.get() / requests / 1_000_000,
+                maxNanos.get() / 1_000_000, bytes.get(), rejected.get(), peaks);
+    }
+
+    private record Result(long requests, long wallMillis, long meanMillis, long maxMillis, long bytes, long rejected,
+                          double[] peaks) {
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d ms, mean %d ms, max %d ms, %d bytes, %d rejected, "
+                            + "peak busy tomcat threads %.0f, peak live jvm threads %.0f, peak active connections %.0f",
+                    requests, wallMillis, meanMillis, maxMillis, bytes, rejected, peaks[0], peaks[1], peaks[2]);
+        }
+    }
+
+    private HttpRequest request(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofMinutes(2))
+                .build();
+    }
+
+    private double readMetric(String name, String token) {
+        try {
+            HttpResponse<String> response = client.send(request("/actuator/metrics/" + name, token),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return 0;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body()).path("measurements");
+            return measurements.isEmpty() ? 0 : measurements.get(0).path("value").asDouble();
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    private String login() throws Exception {
+        String credentials = objectMapper.writeValueAsString(Map.of(
+                "username", System.getProperty("benchmark.user", "admin"),
+                "password", System.getProperty("benchmark.password", "admin")));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(BASE_URL + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build();
+        return objectMapper.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                .path("token").asText();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Discards the response bodies, only their size matters */
+    private static final class OutputStreamSink extends OutputStream {
+        static final OutputStreamSink INSTANCE = new OutputStreamSink();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
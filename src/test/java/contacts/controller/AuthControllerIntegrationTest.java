@@ -1,11 +1,16 @@
 package contacts.controller;
 
+import contacts.config.SecurityConstants;
 import contacts.domain.User;
 import contacts.dto.UserListDTO;
 import contacts.dto.UserRequestDTO;
 import contacts.repository.UserRepository;
+import contacts.service.TokenRevocationService;
+import contacts.service.UserIdentityCache;
 import contacts.service.UserService;
 import contacts.util.JwtUtils;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -27,6 +32,8 @@ import java.util.Optional;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -47,6 +54,12 @@ public class AuthControllerIntegrationTest {
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @InjectMocks
     private AuthController authController;
 
@@ -110,7 +123,14 @@ public class AuthControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.token").exists())
                 .andExpect(jsonPath("$.userId").value(testUser.getId()))
-                .andExpect(jsonPath("$.role").value(testUser.getRole()));
+                .andExpect(jsonPath("$.role").value(testUser.getRole()))
+                .andExpect(result -> {
+                    // Every token has an ID, so it can be revoked on its own
+                    String token = objectMapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+                    Claims claims = Jwts.parser().setSigningKey(SecurityConstants.SECRET_KEY)
+                            .parseClaimsJws(token).getBody();
+                    assertNotNull(claims.getId());
+                });
     }
 
     @Test
@@ -139,6 +159,33 @@ public class AuthControllerIntegrationTest {
         }
     }
 
+    @Test
+    void logout_WithToken_ShouldRevokeIt() throws Exception {
+        // Arrange
+        Claims claims = Jwts.claims().setId("4f1c2a9e-0000-4000-8000-000000000001");
+        claims.put("userId", 1);
+
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getClaimsFromToken(any())).thenReturn(claims);
+
+            mockMvc.perform(post("/api/auth/logout")
+                    .header("Authorization", userToken))
+                    .andExpect(status().isNoContent());
+        }
+
+        verify(tokenRevocationService).revokeToken(claims);
+    }
+
+    @Test
+    void logout_WithoutValidToken_ShouldReturnUnauthorized() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/logout"))
+                .andExpect(status().isUnauthorized());
+
+        verify(tokenRevocationService, never()).revokeToken(any());
+    }
+
     @Test
     void createUser_AsAdmin_ShouldCreateUser() throws Exception {
         // Arrange
@@ -3,8 +3,18 @@ package contacts.controller;
 import contacts.domain.Contact;
 import contacts.domain.User;
 import contacts.dto.ContactListDTO;
+import contacts.dto.ContactListFilterDTO;
+import contacts.dto.ContactLookupRequestDTO;
+import contacts.dto.ContactLookupResponseDTO;
 import contacts.dto.ContactRequestDTO;
+import contacts.service.ContactBirthdayService;
+import contacts.service.ContactChangeFeedService;
+import contacts.service.ContactDeduplicationService;
+import contacts.service.ContactListQueryService;
+import contacts.service.ContactLookupService;
 import contacts.service.ContactService;
+import contacts.service.ContactStreamingService;
+import contacts.service.ContactSyncService;
 import contacts.util.JwtUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,9 +32,12 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,6 +53,27 @@ public class ContactControllerIntegrationTest {
     @Mock
     private ContactService contactService;
 
+    @Mock
+    private ContactLookupService contactLookupService;
+
+    @Mock
+    private ContactDeduplicationService contactDeduplicationService;
+
+    @Mock
+    private ContactStreamingService contactStreamingService;
+
+    @Mock
+    private ContactChangeFeedService contactChangeFeedService;
+
+    @Mock
+    private ContactSyncService contactSyncService;
+
+    @Mock
+    private ContactBirthdayService contactBirthdayService;
+
+    @Mock
+    private ContactListQueryService contactListQueryService;
+
     @InjectMocks
     private ContactController contactController;
 
@@ -201,6 +235,51 @@ public class ContactControllerIntegrationTest {
         }
     }
 
+    @Test
+    void getContactList_AsAdminWithFilter_ShouldReturnFilteredPage() throws Exception {
+        // Arrange
+        when(contactListQueryService.findContacts(any())).thenReturn(testContactListDTOs);
+
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getUserIdFromToken(any())).thenReturn(2L);
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_ADMIN");
+
+            mockMvc.perform(get("/api/contacts/list")
+                    .param("city", "Budapest")
+                    .param("sort", "lastName,desc")
+                    .param("limit", "20")
+                    .header("Authorization", "Bearer adminToken"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(testContactListDTOs.get(0).getId()));
+        }
+
+        verify(contactListQueryService).findContacts(eq(new ContactListFilterDTO(null, "Budapest", null, null, null,
+                "lastName,desc", null, null, 20)));
+        verify(contactService, never()).getAllContactsAsList();
+    }
+
+    @Test
+    void getContactList_AsUserWithFilter_ShouldOnlyFilterOwnContacts() throws Exception {
+        // Arrange
+        when(contactListQueryService.findContacts(any())).thenReturn(testContactListDTOs);
+
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getUserIdFromToken(any())).thenReturn(1L);
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_USER");
+
+            mockMvc.perform(get("/api/contacts/list")
+                    .param("ownerId", "5")
+                    .param("lastNameFrom", "D")
+                    .header("Authorization", "Bearer userToken"))
+                    .andExpect(status().isOk());
+        }
+
+        verify(contactListQueryService).findContacts(eq(new ContactListFilterDTO(1L, null, null, "D", null,
+                null, null, null, null)));
+    }
+
     @Test
     void createContact_WithValidData_ShouldCreateContact() throws Exception {
         // Arrange
@@ -255,4 +334,83 @@ public class ContactControllerIntegrationTest {
                     .andExpect(status().isNoContent());
         }
     }
+
+    @Test
+    void lookupContacts_ByPhone_ShouldReturnMatchingContacts() throws Exception {
+        // Arrange
+        when(contactLookupService.findByPhoneNumber("06 30 315 9270", 1L, false)).thenReturn(testContactListDTOs);
+
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getUserIdFromToken(any())).thenReturn(1L);
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_USER");
+
+            mockMvc.perform(get("/api/contacts/lookup")
+                    .param("phone", "06 30 315 9270")
+                    .header("Authorization", "Bearer token"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").value(testContactListDTOs.get(0).getId()));
+        }
+    }
+
+    @Test
+    void lookupContacts_WithTwoIdentifiers_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/contacts/lookup")
+                .param("email", "john.doe@example.com")
+                .param("taxId", "1234567890")
+                .header("Authorization", "Bearer token"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void lookupContactsBatch_AsAdmin_ShouldReturnMatchesPerIdentifier() throws Exception {
+        // Arrange
+        ContactLookupRequestDTO lookupRequest = new ContactLookupRequestDTO();
+        lookupRequest.setTaxIds(Arrays.asList("1234567890", "0000000000"));
+        ContactLookupResponseDTO lookupResponse = new ContactLookupResponseDTO(Map.of(), Map.of(), Map.of(),
+                Map.of("1234567890", testContactListDTOs, "0000000000", List.of()));
+        when(contactLookupService.lookup(any(ContactLookupRequestDTO.class), eq(2L), eq(true))).thenReturn(lookupResponse);
+
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getUserIdFromToken(any())).thenReturn(2L);
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_ADMIN");
+
+            mockMvc.perform(post("/api/contacts/lookup")
+                    .header("Authorization", "Bearer adminToken")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(lookupRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.taxIds['1234567890'][0].id").value(testContactListDTOs.get(0).getId()))
+                    .andExpect(jsonPath("$.taxIds['0000000000']").isEmpty());
+        }
+    }
+
+    @Test
+    void scanDuplicates_AsAdmin_ShouldStartScan() throws Exception {
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_ADMIN");
+
+            mockMvc.perform(post("/api/contacts/duplicates/scan")
+                    .header("Authorization", "Bearer adminToken"))
+                    .andExpect(status().isAccepted());
+        }
+
+        verify(contactDeduplicationService).requestFullScan();
+    }
+
+    @Test
+    void scanDuplicates_AsUser_ShouldReturnForbidden() throws Exception {
+        // Act & Assert
+        try (MockedStatic<JwtUtils> jwtUtils = Mockito.mockStatic(JwtUtils.class)) {
+            jwtUtils.when(() -> JwtUtils.getRoleFromToken(any())).thenReturn("ROLE_USER");
+
+            mockMvc.perform(post("/api/contacts/duplicates/scan")
+                    .header("Authorization", "Bearer token"))
+                    .andExpect(status().isForbidden());
+        }
+
+        verify(contactDeduplicationService, never()).requestFullScan();
+    }
 }
@@ -0,0 +1,71 @@
+package contacts.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AimdConcurrencyLimiterTest {
+
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 5_000_000_000L;
+
+    @Test
+    void tryAcquire_OverLimit_ShouldRejectImmediately() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 10, 100);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void release_WithFastRequestsAtFullUse_ShouldGrowLimitUpToMax() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(2, 1, 3, 100);
+
+        for (int i = 0; i < 5; i++) {
+            int admitted = 0;
+            while (limiter.tryAcquire()) {
+                admitted++;
+            }
+            for (int j = 0; j < admitted; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void release_WithSlowOrFailedRequests_ShouldShrinkLimitDownToMin() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(20, 5, 50, 100);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW, false);
+        assertEquals(18, limiter.getLimit());
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+        assertEquals(16, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW, false);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void release_WithLowUse_ShouldNotGrowLimit() {
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 50, 100);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+}
@@ -0,0 +1,28 @@
+package contacts.limit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EndpointClassTest {
+
+    @Test
+    void of_WithStreamingExports_ShouldBeBulkRead() {
+        assertEquals(EndpointClass.BULK_READ, EndpointClass.of(new MockHttpServletRequest("GET", "/api/contacts/list/stream")));
+        assertEquals(EndpointClass.BULK_READ,
+                EndpointClass.of(new MockHttpServletRequest("GET", "/api/contacts/birthdays/stream")));
+    }
+
+    @Test
+    void of_WithSingleUserReads_ShouldBeInteractive() {
+        assertEquals(EndpointClass.INTERACTIVE_READ, EndpointClass.of(new MockHttpServletRequest("GET", "/api/contacts/birthdays")));
+        assertEquals(EndpointClass.INTERACTIVE_READ, EndpointClass.of(new MockHttpServletRequest("GET", "/api/contacts/11")));
+    }
+
+    @Test
+    void of_WithWritesAndLogin_ShouldUseTheirOwnClasses() {
+        assertEquals(EndpointClass.WRITE, EndpointClass.of(new MockHttpServletRequest("PUT", "/api/contacts/11")));
+        assertEquals(EndpointClass.LOGIN, EndpointClass.of(new MockHttpServletRequest("POST", "/api/auth/login")));
+    }
+}
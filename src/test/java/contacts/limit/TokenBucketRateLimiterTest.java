@@ -0,0 +1,73 @@
+package contacts.limit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void tryConsume_WithinBurst_ShouldAllowAndCountDown() {
+        TokenBucketRateLimiter limiter = createLimiter(10, 3, 100);
+
+        TokenBucketRateLimiter.Decision first = limiter.tryConsume(1L, "ROLE_USER", 0);
+        TokenBucketRateLimiter.Decision second = limiter.tryConsume(1L, "ROLE_USER", 0);
+        TokenBucketRateLimiter.Decision third = limiter.tryConsume(1L, "ROLE_USER", 0);
+
+        assertTrue(first.allowed());
+        assertEquals(3, first.limit());
+        assertEquals(2, first.remaining());
+        assertEquals(1, second.remaining());
+        assertTrue(third.allowed());
+        assertEquals(0, third.remaining());
+    }
+
+    @Test
+    void tryConsume_OverBurst_ShouldRejectUntilRefilled() {
+        TokenBucketRateLimiter limiter = createLimiter(10, 3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryConsume(1L, "ROLE_USER", 0).allowed());
+        }
+
+        TokenBucketRateLimiter.Decision rejected = limiter.tryConsume(1L, "ROLE_USER", 0);
+        assertFalse(rejected.allowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+
+        // One token comes back every 100 ms
+        assertTrue(limiter.tryConsume(1L, "ROLE_USER", SECOND / 10).allowed());
+        assertFalse(limiter.tryConsume(1L, "ROLE_USER", SECOND / 10).allowed());
+    }
+
+    @Test
+    void tryConsume_ShouldKeepUsersApartAndApplyRoleQuota() {
+        TokenBucketRateLimiter limiter = createLimiter(10, 1, 100);
+
+        assertTrue(limiter.tryConsume(1L, "ROLE_USER", 0).allowed());
+        assertFalse(limiter.tryConsume(1L, "ROLE_USER", 0).allowed());
+        assertTrue(limiter.tryConsume(2L, "ROLE_USER", 0).allowed());
+
+        TokenBucketRateLimiter.Decision admin = limiter.tryConsume(3L, "ROLE_ADMIN", 0);
+        assertEquals(5, admin.limit());
+    }
+
+    @Test
+    void tryConsume_WithFullMap_ShouldEvictIdleBuckets() {
+        TokenBucketRateLimiter limiter = createLimiter(10, 3, 2);
+        limiter.tryConsume(1L, "ROLE_USER", 0);
+        limiter.tryConsume(2L, "ROLE_USER", 0);
+
+        // Both buckets have refilled after a second
+        assertTrue(limiter.tryConsume(3L, "ROLE_USER", SECOND).allowed());
+        assertEquals(1, limiter.size());
+    }
+
+    private static TokenBucketRateLimiter createLimiter(double ratePerSecond, int burst, int maxTrackedUsers) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxTrackedUsers(maxTrackedUsers);
+        properties.setDefaultQuota(new RateLimitProperties.Quota(ratePerSecond, burst));
+        properties.getQuotas().put("ROLE_ADMIN", new RateLimitProperties.Quota(ratePerSecond, 5));
+        return new TokenBucketRateLimiter(properties);
+    }
+}
@@ -0,0 +1,86 @@
+package contacts.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SlowQueryDataSourceTest {
+
+    @Mock
+    private DataSource targetDataSource;
+
+    @Mock
+    private Connection targetConnection;
+
+    @Mock
+    private PreparedStatement targetStatement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SlowQueryDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SlowQueryDataSource(targetDataSource, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestTimings.clear();
+    }
+
+    @Test
+    void executeQuery_ShouldBeRecordedInRequestTimings() throws Exception {
+        // Arrange
+        String sql = "select * from contact where id = ?";
+        when(targetDataSource.getConnection()).thenReturn(targetConnection);
+        when(targetConnection.prepareStatement(sql)).thenReturn(targetStatement);
+        when(targetStatement.executeQuery()).thenReturn(resultSet);
+        RequestTimings timings = RequestTimings.start("GET", "/api/contacts/1");
+
+        // Act
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, 1L);
+            assertSame(resultSet, statement.executeQuery());
+        }
+
+        // Assert
+        assertEquals(1, timings.getStatementCount());
+        verify(targetStatement, times(1)).setLong(1, 1L);
+        verify(targetStatement, times(1)).executeQuery();
+        verify(targetConnection, times(1)).close();
+    }
+
+    @Test
+    void executeQuery_WithoutRequest_ShouldStillExecute() throws Exception {
+        // Arrange
+        String sql = "select 1";
+        when(targetDataSource.getConnection()).thenReturn(targetConnection);
+        when(targetConnection.prepareStatement(sql)).thenReturn(targetStatement);
+        when(targetStatement.executeQuery()).thenReturn(resultSet);
+
+        // Act
+        ResultSet result;
+        try (Connection connection = dataSource.getConnection()) {
+            result = connection.prepareStatement(sql).executeQuery();
+        }
+
+        // Assert
+        assertSame(resultSet, result);
+        assertNull(RequestTimings.current());
+    }
+}
@@ -0,0 +1,123 @@
+package contacts.outbox;
+
+import contacts.domain.ContactOutboxEvent;
+import contacts.repository.ContactOutboxEventRepository;
+import contacts.routing.ShardRouting;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private ContactOutboxEventRepository outboxRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void relay_ShouldDeliverAndDeleteBatchesUntilOutboxIsEmpty() {
+        InMemoryOutboxSink sink = new InMemoryOutboxSink();
+        OutboxRelay relay = new OutboxRelay(outboxRepository, sink, transactionManager,
+                new ShardRouting(1, transactionManager), meterRegistry, 2, 10);
+        when(outboxRepository.lockNextBatch(2))
+                .thenReturn(List.of(event(1L), event(2L)))
+                .thenReturn(List.of(event(3L)));
+        when(outboxRepository.findOldestCreatedAt(any())).thenReturn(List.of());
+
+        relay.relay();
+
+        assertEquals(List.of(1L, 2L, 3L), sink.getEvents().stream().map(ContactOutboxEvent::getId).toList());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(3L));
+        // The short second batch means the outbox is drained
+        verify(outboxRepository, times(2)).lockNextBatch(2);
+        assertEquals(3.0, meterRegistry.get("contacts.outbox.published").counter().count());
+        assertEquals(0L, relay.getLagSeconds());
+    }
+
+    @Test
+    void relay_WhenSinkFails_ShouldKeepBatchInOutbox() {
+        OutboxSink failingSink = events -> {
+            throw new IOException("downstream unavailable");
+        };
+        OutboxRelay relay = new OutboxRelay(outboxRepository, failingSink, transactionManager,
+                new ShardRouting(1, transactionManager), meterRegistry, 2, 10);
+        when(outboxRepository.lockNextBatch(2)).thenReturn(List.of(event(1L)));
+        when(outboxRepository.findOldestCreatedAt(any())).thenReturn(List.of(LocalDateTime.now().minusSeconds(30)));
+
+        relay.relay();
+
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(transactionManager).rollback(any());
+        assertEquals(1.0, meterRegistry.get("contacts.outbox.failures").counter().count());
+        assertTrue(relay.getLagSeconds() >= 30);
+    }
+
+    @Test
+    void relay_ShouldStopAfterMaxBatchesPerPoll() {
+        List<ContactOutboxEvent> delivered = new ArrayList<>();
+        OutboxRelay relay = new OutboxRelay(outboxRepository, delivered::addAll, transactionManager,
+                new ShardRouting(1, transactionManager), meterRegistry, 1, 3);
+        when(outboxRepository.lockNextBatch(1)).thenAnswer(invocation -> List.of(event((long) delivered.size() + 1)));
+        when(outboxRepository.findOldestCreatedAt(any())).thenReturn(List.of());
+
+        relay.relay();
+
+        assertEquals(3, delivered.size());
+    }
+
+    @Test
+    void relay_WithoutSink_ShouldLeaveTheEventsInTheOutbox() {
+        OutboxRelay relay = new OutboxRelay(outboxRepository, null, transactionManager,
+                new ShardRouting(1, transactionManager), meterRegistry, 2, 10);
+        when(outboxRepository.findOldestCreatedAt(any())).thenReturn(List.of(LocalDateTime.now().minusSeconds(30)));
+
+        relay.relay();
+
+        verify(outboxRepository, never()).lockNextBatch(anyInt());
+        assertTrue(relay.getLagSeconds() >= 30);
+    }
+
+    @Test
+    void publish_OverCapacity_ShouldKeepTheNewestEvents() {
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(2);
+
+        sink.publish(List.of(event(1L), event(2L), event(3L)));
+
+        assertEquals(List.of(2L, 3L), sink.getEvents().stream().map(ContactOutboxEvent::getId).toList());
+    }
+
+    private static ContactOutboxEvent event(Long id) {
+        ContactOutboxEvent event = new ContactOutboxEvent();
+        event.setId(id);
+        event.setContactId(100 + id);
+        event.setUserId(1L);
+        event.setEventType("UPDATED");
+        event.setPayload("{}");
+        event.setCreatedAt(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,94 @@
+package contacts.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private ReadYourWritesTracker tracker;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+        routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class),
+                List.of(mock(DataSource.class), mock(DataSource.class)), tracker);
+        routingDataSource.setHealthy(0, true);
+        routingDataSource.setHealthy(1, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadYourWritesTracker.setCurrentUser(null);
+    }
+
+    @Test
+    void determineCurrentLookupKey_OutsideReadOnlyTransaction_ShouldUsePrimary() {
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void determineCurrentLookupKey_InReadOnlyTransaction_ShouldAlternateReplicas() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Object first = routingDataSource.determineCurrentLookupKey();
+        Object second = routingDataSource.determineCurrentLookupKey();
+
+        assertNotEquals(ReplicaRoutingDataSource.PRIMARY, first);
+        assertNotEquals(ReplicaRoutingDataSource.PRIMARY, second);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void determineCurrentLookupKey_AfterOwnWrite_ShouldUsePrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadYourWritesTracker.setCurrentUser("test1");
+        tracker.recordWrite("test1");
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        // Other users still read from the replicas
+        ReadYourWritesTracker.setCurrentUser("test2");
+        assertNotEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void getConnection_WhenReplicaRefuses_ShouldFallBackToPrimary() throws Exception {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(replica.getConnection()).thenThrow(new SQLException("refused"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), tracker);
+        routingDataSource.setHealthy(0, true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+        assertFalse(routingDataSource.isHealthy(0));
+    }
+
+    @Test
+    void determineCurrentLookupKey_WithoutHealthyReplica_ShouldUsePrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        routingDataSource.setHealthy(0, false);
+        routingDataSource.setHealthy(1, false);
+
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routingDataSource.determineCurrentLookupKey());
+
+        routingDataSource.setHealthy(1, true);
+        assertEquals(1, routingDataSource.determineCurrentLookupKey());
+    }
+}
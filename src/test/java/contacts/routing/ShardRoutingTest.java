@@ -0,0 +1,96 @@
+package contacts.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class ShardRoutingTest {
+
+    private ShardRouting shardRouting;
+
+    @BeforeEach
+    void setUp() {
+        shardRouting = new ShardRouting(3, mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRouting.shutdown();
+        ShardRouting.setCurrentShard(null);
+    }
+
+    @Test
+    void shardForUser_ShouldBeStableAndSpreadConsecutiveIds() {
+        int[] users = new int[3];
+        for (long userId = 1; userId <= 3000; userId++) {
+            int shard = shardRouting.shardForUser(userId);
+            assertEquals(shard, shardRouting.shardForUser(userId));
+            users[shard]++;
+        }
+
+        for (int count : users) {
+            assertTrue(count > 900 && count < 1100, "uneven spread: " + count);
+        }
+        assertEquals(0, shardRouting.shardForUser(null));
+    }
+
+    @Test
+    void shardForContact_ShouldUseIdRemainder() {
+        assertEquals(0, shardRouting.shardForContact(9L));
+        assertEquals(1, shardRouting.shardForContact(10L));
+        assertEquals(2, shardRouting.shardForContact(11L));
+    }
+
+    @Test
+    void onShard_ShouldRestorePreviousShard() {
+        ShardRouting.setCurrentShard(1);
+        List<Integer> seen = new ArrayList<>();
+
+        shardRouting.onShard(2, () -> seen.add(ShardRouting.currentShard()));
+
+        assertEquals(List.of(2), seen);
+        assertEquals(1, ShardRouting.currentShard());
+    }
+
+    @Test
+    void scatterGather_ShouldQueryEveryShardAndMergeInOrder() {
+        List<Integer> merged = shardRouting.scatterGather(() -> {
+            int shard = ShardRouting.currentShard();
+            return List.of(shard, shard + 3, shard + 6);
+        }, Comparator.naturalOrder(), 7);
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), merged);
+        assertEquals(0, ShardRouting.currentShard());
+    }
+
+    @Test
+    void query_ShouldRunOnGivenShard() {
+        assertEquals(2, shardRouting.query(2, ShardRouting::currentShard));
+    }
+
+    @Test
+    void merge_ShouldKeepOrderAndLimit() {
+        List<Integer> merged = ShardRouting.merge(List.of(List.of(1, 4, 9), List.of(), List.of(2, 3, 10)),
+                Comparator.naturalOrder(), 5);
+
+        assertEquals(List.of(1, 2, 3, 4, 9), merged);
+    }
+
+    @Test
+    void filter_ShouldRouteByContactIdOrUserId() {
+        ShardRoutingFilter filter = new ShardRoutingFilter(shardRouting);
+
+        assertEquals(2, filter.shardFor(new MockHttpServletRequest("GET", "/api/contacts/11")));
+        assertEquals(shardRouting.shardForUser(7L), filter.shardFor(new MockHttpServletRequest("PUT", "/api/auth/users/7")));
+        assertEquals(0, filter.shardFor(new MockHttpServletRequest("GET", "/api/contacts/list")));
+    }
+}
@@ -0,0 +1,124 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.domain.User;
+import contacts.dto.UpcomingBirthdayDTO;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import contacts.service.ContactBirthdayService.BirthdayWindow;
+import contacts.service.ContactBirthdayService.KeyRange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactBirthdayServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 12, 28);
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactBirthdayService birthdayService;
+
+    @BeforeEach
+    void setUp() {
+        birthdayService = new ContactBirthdayService(contactRepository, new ShardRouting(1, transactionManager),
+                Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void ranges_WithinYear_ShouldBeOneRange() {
+        assertEquals(List.of(new KeyRange(501, 508)), BirthdayWindow.of(LocalDate.of(2025, 5, 1), 7).ranges());
+    }
+
+    @Test
+    void ranges_AcrossNewYear_ShouldBeSplit() {
+        assertEquals(List.of(new KeyRange(1228, 1231), new KeyRange(101, 104)),
+                BirthdayWindow.of(TODAY, 7).ranges());
+    }
+
+    @Test
+    void ranges_EndingOnFebruary28InCommonYear_ShouldIncludeLeapDay() {
+        assertEquals(List.of(new KeyRange(228, 229)), BirthdayWindow.of(LocalDate.of(2025, 2, 28), 0).ranges());
+        assertEquals(List.of(new KeyRange(228, 228)), BirthdayWindow.of(LocalDate.of(2028, 2, 28), 0).ranges());
+    }
+
+    @Test
+    void ranges_ForWholeYear_ShouldCoverEveryDayOnce() {
+        // There are no keys between 229 and 301
+        assertEquals(List.of(new KeyRange(301, 1231), new KeyRange(101, 300)),
+                BirthdayWindow.of(LocalDate.of(2025, 3, 1), ContactBirthdayService.MAX_DAYS).ranges());
+        assertEquals(List.of(new KeyRange(229, 1231), new KeyRange(101, 228)),
+                BirthdayWindow.of(LocalDate.of(2028, 2, 29), ContactBirthdayService.MAX_DAYS).ranges());
+    }
+
+    @Test
+    void nextBirthday_ShouldMoveLeapDayAndWrapToNextYear() {
+        assertEquals(LocalDate.of(2025, 2, 28), ContactBirthdayService.nextBirthday(LocalDate.of(2000, 2, 29), LocalDate.of(2025, 2, 1)));
+        assertEquals(LocalDate.of(2026, 1, 2), ContactBirthdayService.nextBirthday(LocalDate.of(1990, 1, 2), TODAY));
+        assertEquals(TODAY, ContactBirthdayService.nextBirthday(LocalDate.of(1990, 12, 28), TODAY));
+    }
+
+    @Test
+    void getUpcomingBirthdays_AcrossNewYear_ShouldReturnThisYearFirst() {
+        Contact december = contact(1L, LocalDate.of(1980, 12, 30));
+        Contact january = contact(2L, LocalDate.of(1990, 1, 3));
+        when(contactRepository.findBirthdaysByUserId(7L, 1228, 1231, PageRequest.of(0, 10))).thenReturn(List.of(december));
+        when(contactRepository.findBirthdaysByUserId(7L, 101, 104, PageRequest.of(0, 9))).thenReturn(List.of(january));
+
+        List<UpcomingBirthdayDTO> birthdays = birthdayService.getUpcomingBirthdays(7L, 7, 10);
+
+        assertEquals(List.of(1L, 2L), birthdays.stream().map(UpcomingBirthdayDTO::getContactId).toList());
+        assertEquals(LocalDate.of(2026, 1, 3), birthdays.get(1).getNextBirthday());
+        assertEquals(36, birthdays.get(1).getAge());
+        assertEquals(7L, birthdays.get(0).getUserId());
+    }
+
+    @Test
+    void getUpcomingBirthdays_WhenFirstRangeFillsLimit_ShouldNotReadSecondRange() {
+        when(contactRepository.findBirthdays(1228, 1231, PageRequest.of(0, 1)))
+                .thenReturn(List.of(contact(1L, LocalDate.of(1980, 12, 30))));
+
+        List<UpcomingBirthdayDTO> birthdays = birthdayService.getUpcomingBirthdays(null, 7, 1);
+
+        assertEquals(1, birthdays.size());
+        verify(contactRepository, never()).findBirthdays(eq(101), anyInt(), any());
+    }
+
+    @Test
+    void getBirthdayPageByOwner_WithinYear_ShouldPassEmptySecondRange() {
+        when(contactRepository.findBirthdayPageByOwner(501, 501, 1, 0, 3L, 9L, PageRequest.of(0, 50)))
+                .thenReturn(List.of(contact(10L, LocalDate.of(1970, 5, 1))));
+
+        List<UpcomingBirthdayDTO> page = birthdayService.getBirthdayPageByOwner(LocalDate.of(2025, 5, 1), 0, 3L, 9L, 50);
+
+        assertEquals(1, page.size());
+        assertEquals(55, page.get(0).getAge());
+    }
+
+    private static Contact contact(Long id, LocalDate birthDate) {
+        User user = new User();
+        user.setId(7L);
+        Contact contact = new Contact();
+        contact.setId(id);
+        contact.setBirthDate(birthDate);
+        contact.setUser(user);
+        return contact;
+    }
+}
@@ -0,0 +1,143 @@
+package contacts.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContactChangeFeedServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void onContactChanged_ShouldReachOwnerAndAdminsOnly() {
+        ContactChangeFeedService service = new ContactChangeFeedService(objectMapper, Runnable::run, 8, 100, 60_000, 60_000);
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter otherUser = new RecordingEmitter();
+        RecordingEmitter admin = new RecordingEmitter();
+        assertTrue(service.register(owner, 1L, false));
+        assertTrue(service.register(otherUser, 2L, false));
+        assertTrue(service.register(admin, 99L, true));
+
+        service.onContactChanged(event(ContactChangedEvent.Type.CREATED, 10L, 1L));
+
+        assertEquals(1, owner.messages.size());
+        assertTrue(owner.messages.get(0).contains("\"contactId\":10"));
+        assertTrue(owner.messages.get(0).contains("event:contact"));
+        assertEquals(owner.messages, admin.messages);
+        assertTrue(otherUser.messages.isEmpty());
+    }
+
+    @Test
+    void offer_WhenBufferIsFull_ShouldEvictSubscriber() {
+        List<Runnable> pending = new ArrayList<>();
+        ContactChangeFeedService service = new ContactChangeFeedService(objectMapper, pending::add, 2, 100, 60_000, 60_000);
+        RecordingEmitter slow = new RecordingEmitter();
+        service.register(slow, 1L, false);
+
+        // The dispatcher never runs, so the queue fills up
+        for (long id = 1; id <= 3; id++) {
+            service.onContactChanged(event(ContactChangedEvent.Type.UPDATED, id, 1L));
+        }
+        assertEquals(0, service.getSubscriberCount());
+
+        pending.forEach(Runnable::run);
+        assertTrue(slow.completed);
+        assertTrue(slow.messages.isEmpty());
+    }
+
+    @Test
+    void checkWriteDeadlines_WhenASendBlocks_ShouldEvictItAndKeepServingTheOthers() throws Exception {
+        ExecutorService dispatcher = Executors.newFixedThreadPool(1);
+        try {
+            ContactChangeFeedService service = new ContactChangeFeedService(objectMapper, dispatcher, 8, 100, 60_000, 50);
+            BlockingEmitter stalled = new BlockingEmitter();
+            RecordingEmitter healthy = new RecordingEmitter();
+            service.register(stalled, 1L, false);
+            service.register(healthy, 2L, false);
+
+            // The only dispatcher thread blocks in the stalled write, so the other event has to wait
+            service.onContactChanged(event(ContactChangedEvent.Type.UPDATED, 10L, 1L));
+            assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+            service.onContactChanged(event(ContactChangedEvent.Type.UPDATED, 20L, 2L));
+            Thread.sleep(100);
+            service.checkWriteDeadlines();
+
+            assertEquals(1, service.getSubscriberCount());
+            assertTrue(healthy.received.await(5, TimeUnit.SECONDS));
+            stalled.release.countDown();
+            assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.shutdownNow();
+        }
+    }
+
+    @Test
+    void register_OverMaxSubscribers_ShouldReject() {
+        ContactChangeFeedService service = new ContactChangeFeedService(objectMapper, Runnable::run, 8, 1, 60_000, 60_000);
+
+        assertTrue(service.register(new RecordingEmitter(), 1L, false));
+        assertFalse(service.register(new RecordingEmitter(), 2L, false));
+        assertEquals(1, service.getSubscriberCount());
+    }
+
+    private static ContactChangedEvent event(ContactChangedEvent.Type type, Long contactId, Long userId) {
+        ContactListDTO contact = new ContactListDTO();
+        contact.setId(contactId);
+        contact.setFirstName("John");
+        return new ContactChangedEvent(type, contactId, userId, null, contact);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<String> messages = new ArrayList<>();
+        private final CountDownLatch received = new CountDownLatch(1);
+        private boolean completed;
+
+        @Override
+        public synchronized void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+            messages.add(items.stream().map(item -> item.getData().toString()).collect(Collectors.joining()));
+            received.countDown();
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.domain.ContactBlockingKey;
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactBlockingKeyRepository;
+import contacts.repository.ContactRepository;
+import contacts.repository.DuplicateCandidateRepository;
+import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ContactDeduplicationServiceTest {
+
+    @Test
+    void blockingKeys_ShouldNormalizeIdentifiers() {
+        ContactListDTO contact = createContact("János", "Kovács", "Janos.Kovacs@Example.com", "06 30 315 9270");
+        contact.setTaxId(" 8123456789 ");
+
+        Set<String> keys = ContactDeduplicationService.blockingKeys(contact);
+
+        assertTrue(keys.contains("P:+36303159270"));
+        assertTrue(keys.contains("E:janos.kovacs@example.com"));
+        assertTrue(keys.contains("T:8123456789"));
+        assertTrue(keys.stream().anyMatch(key -> key.startsWith("N:")));
+    }
+
+    @Test
+    void blockingKeys_WithSwappedOrMisspelledName_ShouldShareNameKey() {
+        Set<String> keys = ContactDeduplicationService.blockingKeys(createContact("János", "Kovács", null, null));
+        Set<String> swapped = ContactDeduplicationService.blockingKeys(createContact("Kovacs", "Janos", null, null));
+        Set<String> misspelled = ContactDeduplicationService.blockingKeys(createContact("Janos", "Kowacs", null, null));
+
+        assertEquals(keys, swapped);
+        assertEquals(keys, misspelled);
+    }
+
+    @Test
+    void score_WithSameTaxId_ShouldBeCertain() {
+        ContactListDTO a = createContact("John", "Doe", null, null);
+        ContactListDTO b = createContact("Jane", "Smith", null, null);
+        a.setTaxId("8123456789");
+        b.setTaxId("8123456789");
+
+        assertEquals(1.0, ContactDeduplicationService.score(a, b));
+    }
+
+    @Test
+    void score_WithSameNameAndPhoneInDifferentFormat_ShouldBeCandidate() {
+        ContactListDTO a = createContact("John", "Doe", null, "+36 30 315 9270");
+        ContactListDTO b = createContact("john", "doe", null, "06303159270");
+
+        assertTrue(ContactDeduplicationService.score(a, b) >= ContactDeduplicationService.MIN_SCORE);
+    }
+
+    @Test
+    void score_WithSameNameButDifferentBirthDate_ShouldNotBeCandidate() {
+        ContactListDTO a = createContact("John", "Doe", null, null);
+        ContactListDTO b = createContact("John", "Doe", null, null);
+        a.setBirthDate(LocalDate.of(1980, 1, 1));
+        b.setBirthDate(LocalDate.of(1990, 5, 5));
+
+        assertTrue(ContactDeduplicationService.score(a, b) < ContactDeduplicationService.MIN_SCORE);
+    }
+
+    @Test
+    void onContactChanged_ShouldIndexTheLockedRowInsteadOfTheEventSnapshot() {
+        ContactRepository contactRepository = mock(ContactRepository.class);
+        ContactBlockingKeyRepository blockingKeyRepository = mock(ContactBlockingKeyRepository.class);
+        DuplicateCandidateRepository duplicateCandidateRepository = mock(DuplicateCandidateRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        ContactDeduplicationService service = new ContactDeduplicationService(contactRepository,
+                mock(UserRepository.class), blockingKeyRepository, duplicateCandidateRepository, transactionManager,
+                new ShardRouting(1, transactionManager));
+        // The event was published for an older version, the row has been changed again since
+        when(contactRepository.findByIdForUpdate(10L)).thenReturn(Optional.of(createEntity(10L, "john@example.com")));
+        when(blockingKeyRepository.findBucketMembers(eq(1L), any(), eq(10L), any())).thenReturn(List.of(5L));
+        when(contactRepository.findAllById(List.of(5L))).thenReturn(List.of(createEntity(5L, "john@example.com")));
+
+        service.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 10L, 1L, null,
+                createContact("John", "Doe", "old@example.com", null)));
+
+        verify(blockingKeyRepository).saveAll(argThat((List<ContactBlockingKey> rows) -> rows.stream()
+                .anyMatch(row -> row.getBlockingKey().equals("E:john@example.com"))));
+        verify(duplicateCandidateRepository).insertIfAbsent(eq(1L), eq(5L), eq(10L), anyDouble(), any());
+        verify(duplicateCandidateRepository, never()).saveAll(any());
+    }
+
+    private static Contact createEntity(Long id, String email) {
+        Contact contact = new Contact();
+        contact.setId(id);
+        contact.setFirstName("John");
+        contact.setLastName("Doe");
+        contact.setEmail(email);
+        contact.setPhoneNumbers(new ArrayList<>());
+        contact.setAddresses(new ArrayList<>());
+        return contact;
+    }
+
+    private static ContactListDTO createContact(String firstName, String lastName, String email, String phoneNumber) {
+        ContactListDTO contact = new ContactListDTO();
+        contact.setFirstName(firstName);
+        contact.setLastName(lastName);
+        contact.setEmail(email);
+        List<ContactListDTO.PhoneNumberDTO> phoneNumbers = new ArrayList<>();
+        if (phoneNumber != null) {
+            phoneNumbers.add(new ContactListDTO.PhoneNumberDTO(phoneNumber));
+        }
+        contact.setPhoneNumbers(phoneNumbers);
+        contact.setAddresses(new ArrayList<>());
+        return contact;
+    }
+}
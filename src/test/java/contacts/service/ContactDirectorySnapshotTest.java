@@ -0,0 +1,202 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactDirectorySnapshotTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Clock clock;
+
+    private ContactDirectorySnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenReturn(NOW);
+        lenient().when(contactRepository.currentSnapshotXmin()).thenReturn(100L);
+        lenient().when(contactRepository.findChangesAfter(anyLong(), anyLong(), anyBoolean(), anyInt())).thenReturn(List.of());
+        snapshot = new ContactDirectorySnapshot(contactRepository, new ShardRouting(1, transactionManager), true, 2,
+                1 << 20, 10_000, clock);
+    }
+
+    @Test
+    void build_ShouldLoadTheIdRangesInParallel() {
+        load(10, 1500, 2500);
+
+        assertEquals(List.of(10L, 1500L, 2500L), ids(snapshot.getContacts().orElseThrow()));
+        verify(contactRepository).findPageBetween(eq(0L), eq(2000L), any());
+        verify(contactRepository).findPageBetween(eq(2000L), eq(4000L), any());
+        // The changes committed while loading are read from the horizon taken before it
+        verify(contactRepository).findChangesAfter(99L, Long.MAX_VALUE, true, 1000);
+    }
+
+    @Test
+    void onContactChanged_ShouldBeMergedIntoANewCopyByTheNextRead() {
+        load(10, 1500, 2500);
+        List<ContactListDTO> before = snapshot.getContacts().orElseThrow();
+
+        snapshot.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 1500L, 1L,
+                dto(1500L, "Kiss"), dto(1500L, "Nagy")));
+        snapshot.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.DELETED, 10L, 1L, dto(10L, "Kiss"), null));
+        snapshot.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.CREATED, 3000L, 1L, null, dto(3000L, "Szabo")));
+        List<ContactListDTO> after = snapshot.getContacts().orElseThrow();
+
+        assertEquals(List.of(1500L, 2500L, 3000L), ids(after));
+        assertEquals("Nagy", after.get(0).getLastName());
+        assertEquals(List.of(10L, 1500L, 2500L), ids(before));
+        assertThrows(UnsupportedOperationException.class, () -> after.remove(0));
+    }
+
+    @Test
+    void poll_ShouldApplyChangesAndDeletionsButNotUndoANewerLocalChange() {
+        load(10, 1500, 2500);
+        when(contactRepository.findChangesAfter(99L, Long.MAX_VALUE, true, 1000)).thenAnswer(invocation -> {
+            // Committed on this instance while the poll is reading
+            snapshot.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 2500L, 1L,
+                    dto(2500L, "Kiss"), dto(2500L, "Local")));
+            return List.of(change(10L, 120L, true), change(2500L, 130L, false), change(4000L, 140L, false));
+        });
+        when(contactRepository.findAllById(List.of(2500L, 4000L))).thenReturn(List.of(contact(2500L, "Polled"),
+                contact(4000L, "Remote")));
+
+        snapshot.poll();
+        List<ContactListDTO> contacts = snapshot.getContacts().orElseThrow();
+
+        assertEquals(List.of(1500L, 2500L, 4000L), ids(contacts));
+        assertEquals("Local", contacts.get(1).getLastName());
+        assertEquals("Remote", contacts.get(2).getLastName());
+    }
+
+    @Test
+    void poll_WhenANewerRemoteChangeIsRead_ShouldWinOverTheQueuedLocalChange() {
+        load(10, 1500, 2500);
+        // Changed on this instance, then on another one before anything was read here
+        snapshot.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 1500L, 1L,
+                dto(1500L, "Kiss"), dto(1500L, "Local")));
+        when(contactRepository.findChangesAfter(99L, Long.MAX_VALUE, true, 1000))
+                .thenReturn(List.of(change(1500L, 150L, false)));
+        when(contactRepository.findAllById(List.of(1500L))).thenReturn(List.of(contact(1500L, "Remote")));
+
+        snapshot.poll();
+
+        assertEquals("Remote", snapshot.getContacts().orElseThrow().get(1).getLastName());
+    }
+
+    @Test
+    void getContacts_WhenNoPollSucceededForTooLong_ShouldReturnEmpty() {
+        load(10);
+        when(contactRepository.currentSnapshotXmin()).thenThrow(new IllegalStateException("database down"));
+        when(clock.millis()).thenReturn(NOW + 10_001);
+
+        snapshot.poll();
+
+        assertTrue(snapshot.getContacts().isEmpty());
+        assertTrue(snapshot.isLoaded());
+    }
+
+    @Test
+    void build_WhenOverTheMemoryBudget_ShouldTurnTheSnapshotOff() {
+        snapshot = new ContactDirectorySnapshot(contactRepository, new ShardRouting(1, transactionManager), true, 2,
+                1000, 10_000, clock);
+        load(LongStream.rangeClosed(1, 10).toArray());
+
+        assertTrue(snapshot.getContacts().isEmpty());
+        assertFalse(snapshot.isLoaded());
+        snapshot.build();
+        verify(contactRepository, times(1)).findMaxId();
+    }
+
+    @Test
+    void estimateBytes_ShouldGrowWithTheStringsAndLists() {
+        ContactListDTO small = dto(1L, "Kiss");
+        ContactListDTO large = dto(2L, "Kiss");
+        large.setAddresses(List.of(new ContactListDTO.AddressDTO("Fo utca 1", "Budapest", "1011")));
+
+        assertEquals(ContactDirectorySnapshot.estimateBytes(small) + 4 + 24 + 49 + 48 + 44,
+                ContactDirectorySnapshot.estimateBytes(large));
+    }
+
+    private void load(long... ids) {
+        when(contactRepository.findMaxId()).thenReturn(4000L);
+        lenient().when(contactRepository.findPageBetween(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            List<Contact> contacts = new ArrayList<>();
+            for (long id : ids) {
+                if (id > afterId && id <= toId) {
+                    contacts.add(contact(id, "Kiss"));
+                }
+            }
+            return contacts;
+        });
+        snapshot.build();
+    }
+
+    private static List<Long> ids(List<ContactListDTO> contacts) {
+        return contacts.stream().map(ContactListDTO::getId).toList();
+    }
+
+    private static Contact contact(long id, String lastName) {
+        Contact contact = new Contact();
+        contact.setId(id);
+        contact.setLastName(lastName);
+        contact.setPhoneNumbers(new ArrayList<>());
+        contact.setAddresses(new ArrayList<>());
+        return contact;
+    }
+
+    private static ContactListDTO dto(long id, String lastName) {
+        ContactListDTO dto = new ContactListDTO();
+        dto.setId(id);
+        dto.setLastName(lastName);
+        dto.setPhoneNumbers(List.of());
+        dto.setAddresses(List.of());
+        return dto;
+    }
+
+    private static ContactRepository.ChangeRow change(long id, long rowVersion, boolean deleted) {
+        return new ContactRepository.ChangeRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getRowVersion() {
+                return rowVersion;
+            }
+
+            @Override
+            public boolean isDeleted() {
+                return deleted;
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactListFilterDTO;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import contacts.service.ContactListQueryService.ListIndex;
+import contacts.service.ContactListQueryService.SortField;
+import contacts.service.ContactListQueryService.SortOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactListQueryServiceTest {
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactListQueryService listQueryService;
+
+    @BeforeEach
+    void setUp() {
+        listQueryService = new ContactListQueryService(contactRepository, new ShardRouting(1, transactionManager));
+    }
+
+    @Test
+    void indexFor_ShouldPickTheIndexOfEachAcceptedCombination() {
+        assertEquals(ListIndex.PRIMARY_KEY, ContactListQueryService.indexFor(filter(), SortField.ID));
+        assertEquals(ListIndex.LAST_NAME, ContactListQueryService.indexFor(filter(), SortField.LAST_NAME));
+
+        ContactListFilterDTO owner = filter();
+        owner.setOwnerId(3L);
+        assertEquals(ListIndex.OWNER, ContactListQueryService.indexFor(owner, SortField.ID));
+        assertEquals(ListIndex.OWNER_LAST_NAME, ContactListQueryService.indexFor(owner, SortField.LAST_NAME));
+        owner.setLastNameFrom("K");
+        assertEquals(ListIndex.OWNER_LAST_NAME, ContactListQueryService.indexFor(owner, SortField.ID));
+
+        ContactListFilterDTO address = filter();
+        address.setZipCode("1011");
+        assertEquals(ListIndex.ADDRESS_ZIP_CODE, ContactListQueryService.indexFor(address, SortField.LAST_NAME));
+        address.setCity("Budapest");
+        assertEquals(ListIndex.ADDRESS_CITY, ContactListQueryService.indexFor(address, SortField.ID));
+    }
+
+    @Test
+    void findContacts_LastNameRangeOfAllUsersSortedById_ShouldBeRejected() {
+        ContactListFilterDTO filter = filter();
+        filter.setLastNameFrom("K");
+        filter.setLastNameTo("L");
+
+        assertThrows(IllegalArgumentException.class, () -> listQueryService.findContacts(filter));
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    void findContacts_WithInvalidParameters_ShouldBeRejected() {
+        ContactListFilterDTO unknownSort = filter();
+        unknownSort.setSort("email");
+        ContactListFilterDTO tooMany = filter();
+        tooMany.setLimit(ContactListQueryService.MAX_LIMIT + 1);
+        ContactListFilterDTO halfCursor = filter();
+        halfCursor.setSort("lastName");
+        halfCursor.setAfterId(10L);
+
+        assertThrows(IllegalArgumentException.class, () -> listQueryService.findContacts(unknownSort));
+        assertThrows(IllegalArgumentException.class, () -> listQueryService.findContacts(tooMany));
+        assertThrows(IllegalArgumentException.class, () -> listQueryService.findContacts(halfCursor));
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findContacts_ShouldConvertTheMatchingContacts() {
+        Contact contact = new Contact();
+        contact.setId(4L);
+        contact.setLastName("Kiss");
+        contact.setPhoneNumbers(new ArrayList<>());
+        contact.setAddresses(new ArrayList<>());
+        when(contactRepository.findBy(any(Specification.class), any())).thenReturn(List.of(contact));
+        ContactListFilterDTO filter = filter();
+        filter.setCity("Budapest");
+        filter.setSort("lastName,desc");
+
+        List<ContactListDTO> contacts = listQueryService.findContacts(filter);
+
+        assertEquals(List.of(4L), contacts.stream().map(ContactListDTO::getId).toList());
+    }
+
+    @Test
+    void sortOrder_ShouldEndWithTheIdInTheSameDirection() {
+        SortOrder order = SortOrder.parse("lastName, DESC");
+
+        assertEquals(Sort.by(Sort.Direction.DESC, "lastName", "id"), order.toSort());
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), SortOrder.parse(null).toSort());
+
+        ContactListDTO kiss = dto(1L, "Kiss");
+        ContactListDTO nagy = dto(2L, "Nagy");
+        ContactListDTO nagy2 = dto(3L, "Nagy");
+        List<ContactListDTO> sorted = new ArrayList<>(List.of(kiss, nagy2, nagy));
+        sorted.sort(order.comparator());
+        assertEquals(List.of(nagy2, nagy, kiss), sorted);
+    }
+
+    private static ContactListFilterDTO filter() {
+        return new ContactListFilterDTO();
+    }
+
+    private static ContactListDTO dto(Long id, String lastName) {
+        ContactListDTO dto = new ContactListDTO();
+        dto.setId(id);
+        dto.setLastName(lastName);
+        return dto;
+    }
+}
@@ -6,15 +6,20 @@ import contacts.domain.PhoneNumber;
 import contacts.domain.User;
 import contacts.dto.ContactListDTO;
 import contacts.dto.ContactRequestDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.exception.DuplicateContactException;
 import contacts.repository.ContactRepository;
 import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -34,7 +39,18 @@ public class ContactServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private ContactUniquenessService uniquenessService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ContactDirectorySnapshot directorySnapshot;
+
     private ContactService contactService;
 
     private User testUser;
@@ -43,6 +59,10 @@ public class ContactServiceTest {
 
     @BeforeEach
     void setUp() {
+        contactService = new ContactService(contactRepository, userRepository,
+                new UserIdentityCache(userRepository, 100, Duration.ofMinutes(1)), uniquenessService, eventPublisher,
+                new ShardRouting(1, transactionManager), Duration.ZERO, directorySnapshot);
+
         // Setup test user
         testUser = new User();
         testUser.setId(1L);
@@ -148,6 +168,7 @@ public class ContactServiceTest {
     void getContactsByUserId_WhenUserExists_ShouldReturnUserContacts() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(contactRepository.findByUserId(1L)).thenReturn(List.of(testContact));
 
         // Act
         List<Contact> result = contactService.getContactsByUserId(1L);
@@ -175,6 +196,7 @@ public class ContactServiceTest {
     void getContactListByUserId_WhenUserExists_ShouldReturnContactDTOs() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(contactRepository.findByUserId(1L)).thenReturn(List.of(testContact));
 
         // Act
         List<ContactListDTO> result = contactService.getContactListByUserId(1L);
@@ -206,11 +228,29 @@ public class ContactServiceTest {
         verify(userRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getContactListByUserId_CalledTwice_ShouldLoadUserOnce() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(contactRepository.findByUserId(1L)).thenReturn(List.of(testContact));
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
+
+        // Act
+        contactService.getContactListByUserId(1L);
+        contactService.getContactListByUserId(1L);
+        contactService.saveContact(testContactDTO, 1L);
+
+        // Assert
+        verify(userRepository, times(1)).findById(1L);
+        verify(contactRepository, times(2)).findByUserId(1L);
+    }
+
     @Test
     void getAllContactsAsList_ShouldReturnAllContactsAsDTOs() {
         // Arrange
         List<Contact> contacts = Arrays.asList(testContact);
-        when(contactRepository.findAll()).thenReturn(contacts);
+        when(contactRepository.findAllByOrderById()).thenReturn(contacts);
 
         // Act
         List<ContactListDTO> result = contactService.getAllContactsAsList();
@@ -220,13 +260,50 @@ public class ContactServiceTest {
         assertEquals(testContact.getFirstName(), result.get(0).getFirstName());
         assertEquals(testContact.getLastName(), result.get(0).getLastName());
         assertEquals(testContact.getEmail(), result.get(0).getEmail());
-        verify(contactRepository, times(1)).findAll();
+        verify(contactRepository, times(1)).findAllByOrderById();
+    }
+
+    @Test
+    void getAllContactsAsList_WhenSnapshotIsLoaded_ShouldNotReadTheDatabase() {
+        // Arrange
+        List<ContactListDTO> snapshot = List.of(ContactService.convertToContactListDTO(testContact));
+        when(directorySnapshot.getContacts()).thenReturn(Optional.of(snapshot));
+
+        // Act
+        List<ContactListDTO> result = contactService.getAllContactsAsList();
+
+        // Assert
+        assertSame(snapshot, result);
+        verifyNoInteractions(contactRepository);
+    }
+
+    @Test
+    void getAllContactsAsList_WithResultTtl_ShouldReadAgainOnlyAfterAContactChange() {
+        // Arrange
+        contactService = new ContactService(contactRepository, userRepository,
+                new UserIdentityCache(userRepository, 100, Duration.ofMinutes(1)), uniquenessService, eventPublisher,
+                new ShardRouting(1, transactionManager), Duration.ofMinutes(1), directorySnapshot);
+        when(contactRepository.findAllByOrderById()).thenReturn(List.of(testContact));
+
+        // Act
+        List<ContactListDTO> first = contactService.getAllContactsAsList();
+        List<ContactListDTO> second = contactService.getAllContactsAsList();
+        contactService.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.DELETED, 1L, 1L,
+                first.get(0), null));
+        List<ContactListDTO> third = contactService.getAllContactsAsList();
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, third);
+        assertThrows(UnsupportedOperationException.class, () -> first.remove(0));
+        verify(contactRepository, times(2)).findAllByOrderById();
     }
 
     @Test
     void saveContact_WithValidData_ShouldSaveContact() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
         when(contactRepository.save(any(Contact.class))).thenReturn(testContact);
 
         // Act
@@ -254,6 +331,20 @@ public class ContactServiceTest {
         verify(contactRepository, never()).save(any(Contact.class));
     }
 
+    @Test
+    void saveContact_WithTakenTaxId_ShouldThrowDuplicateContactException() {
+        // Arrange
+        doThrow(new DuplicateContactException("taxId", testContactDTO.getTaxId()))
+                .when(uniquenessService).checkAvailable(testContactDTO.getTajNumber(), testContactDTO.getTaxId(), null);
+
+        // Act & Assert
+        DuplicateContactException exception = assertThrows(DuplicateContactException.class, () -> {
+            contactService.saveContact(testContactDTO, 1L);
+        });
+        assertEquals("taxId", exception.getField());
+        verify(contactRepository, never()).save(any(Contact.class));
+    }
+
     @Test
     void updateContact_WithValidData_ShouldUpdateContact() {
         // Arrange
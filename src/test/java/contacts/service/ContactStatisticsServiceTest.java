@@ -0,0 +1,148 @@
+package contacts.service;
+
+import contacts.domain.ContactStatisticDelta;
+import contacts.dto.ContactListDTO;
+import contacts.dto.ContactStatisticsDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.repository.ContactStatisticRepository;
+import contacts.repository.ContactStatisticRepository.CountRow;
+import contacts.routing.ShardRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactStatisticsServiceTest {
+
+    @Mock
+    private ContactStatisticRepository statisticRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactStatisticsService statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        statisticsService = new ContactStatisticsService(statisticRepository, transactionManager,
+                new ShardRouting(1, transactionManager));
+    }
+
+    @Test
+    void deltas_ForCreatedContact_ShouldCountEveryBucketOnce() {
+        ContactListDTO contact = contact(LocalDate.of(1987, 5, 1), "Budapest", " Budapest ", "Szeged");
+
+        Set<String> deltas = describe(ContactStatisticsService.deltas(
+                new ContactChangedEvent(ContactChangedEvent.Type.CREATED, 5L, 2L, null, contact)));
+
+        assertEquals(Set.of("USER:2:1", "BIRTH_DECADE:1980:1", "CITY:Budapest:1", "CITY:Szeged:1"), deltas);
+    }
+
+    @Test
+    void deltas_ForUpdatedContact_ShouldOnlyContainChangedBuckets() {
+        ContactListDTO previous = contact(LocalDate.of(1987, 5, 1), "Budapest");
+        ContactListDTO current = contact(null, "Budapest", "Debrecen");
+
+        Set<String> deltas = describe(ContactStatisticsService.deltas(
+                new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 5L, 2L, previous, current)));
+
+        assertEquals(Set.of("BIRTH_DECADE:1980:-1", "BIRTH_DECADE:unknown:1", "CITY:Debrecen:1"), deltas);
+    }
+
+    @Test
+    void deltas_ForDeletedContact_ShouldRemoveEveryBucket() {
+        ContactListDTO previous = contact(LocalDate.of(2001, 1, 1));
+
+        Set<String> deltas = describe(ContactStatisticsService.deltas(
+                new ContactChangedEvent(ContactChangedEvent.Type.DELETED, 5L, 2L, previous, null)));
+
+        assertEquals(Set.of("USER:2:-1", "BIRTH_DECADE:2000:-1"), deltas);
+    }
+
+    @Test
+    void onContactChanged_WithoutCountChange_ShouldNotWrite() {
+        ContactListDTO contact = contact(LocalDate.of(1987, 5, 1), "Budapest");
+
+        statisticsService.onContactChanged(
+                new ContactChangedEvent(ContactChangedEvent.Type.UPDATED, 5L, 2L, contact, contact));
+
+        verify(statisticRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void getStatistics_ShouldAddUpDecadesAndPutUnknownLast() {
+        when(statisticRepository.findCounts("BIRTH_DECADE"))
+                .thenReturn(List.of(row("1970", 3), row("1990", 4), row("unknown", 2)));
+        when(statisticRepository.findTopCounts("USER", 2)).thenReturn(List.of(row("7", 5), row("3", 4)));
+        when(statisticRepository.findTopCounts("CITY", 2)).thenReturn(List.of(row("Szeged", 6)));
+
+        ContactStatisticsDTO statistics = statisticsService.getStatistics(2);
+
+        assertEquals(9, statistics.getTotalContacts());
+        assertEquals(List.of("1970", "1990", "unknown"), List.copyOf(statistics.getContactsByBirthDecade().keySet()));
+        assertEquals(List.of(new ContactStatisticsDTO.UserCount(7L, 5), new ContactStatisticsDTO.UserCount(3L, 4)),
+                statistics.getTopUsers());
+        assertEquals(List.of(new ContactStatisticsDTO.CityCount("Szeged", 6)), statistics.getTopCities());
+    }
+
+    @Test
+    void getContactCount_WithoutRow_ShouldReturnZero() {
+        when(statisticRepository.findCount("USER", "9")).thenReturn(null);
+
+        assertEquals(0, statisticsService.getContactCount(9L));
+    }
+
+    @Test
+    void fold_ShouldFoldUntilNoDeltasAreLeft() {
+        when(statisticRepository.foldDeltas(ContactStatisticsService.FOLD_BATCH_SIZE)).thenReturn(3, 1, 0);
+
+        statisticsService.fold();
+
+        verify(statisticRepository, times(3)).lockCounts();
+        verify(statisticRepository, times(3)).foldDeltas(ContactStatisticsService.FOLD_BATCH_SIZE);
+    }
+
+    private static ContactListDTO contact(LocalDate birthDate, String... cities) {
+        ContactListDTO contact = new ContactListDTO();
+        contact.setBirthDate(birthDate);
+        contact.setAddresses(Arrays.stream(cities).map(city -> {
+            ContactListDTO.AddressDTO address = new ContactListDTO.AddressDTO();
+            address.setCity(city);
+            return address;
+        }).collect(Collectors.toList()));
+        return contact;
+    }
+
+    private static Set<String> describe(List<ContactStatisticDelta> deltas) {
+        return deltas.stream()
+                .map(delta -> delta.getDimension() + ":" + delta.getBucket() + ":" + delta.getDelta())
+                .collect(Collectors.toSet());
+    }
+
+    private static CountRow row(String bucket, long count) {
+        return new CountRow() {
+            @Override
+            public String getBucket() {
+                return bucket;
+            }
+
+            @Override
+            public long getContactCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package contacts.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import contacts.dto.ContactListDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactStreamingServiceTest {
+
+    @Mock
+    private ContactService contactService;
+
+    @Mock
+    private ContactBirthdayService birthdayService;
+
+    private ContactStreamingService contactStreamingService;
+
+    @BeforeEach
+    void setUp() {
+        contactStreamingService = new ContactStreamingService(contactService, birthdayService,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void writeContacts_ShouldWriteOneJsonLinePerContactAcrossPages() throws Exception {
+        // Arrange
+        int pageSize = ContactStreamingService.PAGE_SIZE;
+        when(contactService.getContactPage(1L, 0, pageSize)).thenReturn(createContacts(1, pageSize));
+        when(contactService.getContactPage(1L, pageSize, pageSize)).thenReturn(createContacts(pageSize + 1, 2));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        long written = contactStreamingService.writeContacts(1L, output);
+
+        // Assert
+        assertEquals(pageSize + 2, written);
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(pageSize + 2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[pageSize + 1].startsWith("{\"id\":" + (pageSize + 2) + ","));
+        verify(contactService, times(2)).getContactPage(eq(1L), anyLong(), eq(pageSize));
+    }
+
+    @Test
+    void writeContacts_WithNoContacts_ShouldWriteNothing() throws Exception {
+        // Arrange
+        when(contactService.getContactPage(null, 0, ContactStreamingService.PAGE_SIZE)).thenReturn(List.of());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act & Assert
+        assertEquals(0, contactStreamingService.writeContacts(null, output));
+        assertEquals(0, output.size());
+    }
+
+    private static List<ContactListDTO> createContacts(long firstId, int count) {
+        List<ContactListDTO> contacts = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            ContactListDTO dto = new ContactListDTO();
+            dto.setId(id);
+            dto.setFirstName("First" + id);
+            dto.setLastName("Last" + id);
+            contacts.add(dto);
+        }
+        return contacts;
+    }
+}
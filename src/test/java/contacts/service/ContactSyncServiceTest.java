@@ -0,0 +1,139 @@
+package contacts.service;
+
+import contacts.domain.Contact;
+import contacts.dto.ContactSyncResponseDTO;
+import contacts.exception.SyncTokenExpiredException;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactSyncServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactSyncService contactSyncService;
+
+    @BeforeEach
+    void setUp() {
+        contactSyncService = new ContactSyncService(contactRepository,
+                new ShardRouting(1, transactionManager), Duration.ofDays(30),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void sync_WithoutToken_ShouldReturnAllContactsAndRestartAtHorizon() {
+        when(contactRepository.currentSnapshotXmin()).thenReturn(500L);
+        when(contactRepository.findChangesByUserIdAfter(1L, 0, 0, false, 11))
+                .thenReturn(List.of(row(1L, 100L, false), row(2L, 600L, false)));
+        when(contactRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(contact(2L), contact(1L)));
+
+        ContactSyncResponseDTO result = contactSyncService.sync(1L, false, null, 10);
+
+        assertFalse(result.isHasMore());
+        assertEquals(List.of(1L, 2L), result.getChanged().stream().map(c -> c.getId()).toList());
+        assertTrue(result.getDeleted().isEmpty());
+
+        // The next sync asks for everything from the horizon on, deletions included
+        ContactSyncService.SyncToken next = ContactSyncService.SyncToken.decode(result.getToken());
+        assertFalse(next.full());
+        assertEquals(499L, next.afterVersion());
+        assertEquals(Long.MAX_VALUE, next.afterId());
+        assertEquals(0L, next.horizon());
+        assertEquals(NOW.getEpochSecond(), next.issuedAt());
+    }
+
+    @Test
+    void sync_WithMoreChangesThanLimit_ShouldPageWithinTheSameHorizon() {
+        String token = new ContactSyncService.SyncToken(false, 99, Long.MAX_VALUE, 0, NOW.getEpochSecond()).encode();
+        when(contactRepository.currentSnapshotXmin()).thenReturn(700L);
+        when(contactRepository.findChangesByUserIdAfter(1L, 99, Long.MAX_VALUE, true, 3))
+                .thenReturn(List.of(row(5L, 150L, false), row(6L, 160L, true), row(7L, 170L, false)));
+        when(contactRepository.findAllById(List.of(5L))).thenReturn(List.of(contact(5L)));
+
+        ContactSyncResponseDTO result = contactSyncService.sync(1L, false, token, 2);
+
+        assertTrue(result.isHasMore());
+        assertEquals(1, result.getChanged().size());
+        assertEquals(List.of(6L), result.getDeleted());
+        ContactSyncService.SyncToken next = ContactSyncService.SyncToken.decode(result.getToken());
+        assertEquals(160L, next.afterVersion());
+        assertEquals(6L, next.afterId());
+        assertEquals(700L, next.horizon());
+
+        // The continued page does not take a new horizon
+        when(contactRepository.findChangesByUserIdAfter(1L, 160, 6, true, 3)).thenReturn(List.of());
+        when(contactRepository.findAllById(List.of())).thenReturn(List.of());
+        ContactSyncResponseDTO last = contactSyncService.sync(1L, false, result.getToken(), 2);
+        assertFalse(last.isHasMore());
+        assertEquals(699L, ContactSyncService.SyncToken.decode(last.getToken()).afterVersion());
+        verify(contactRepository, times(1)).currentSnapshotXmin();
+    }
+
+    @Test
+    void sync_WithExpiredToken_ShouldThrow() {
+        long issuedAt = NOW.minus(Duration.ofDays(31)).getEpochSecond();
+        String token = new ContactSyncService.SyncToken(false, 99, Long.MAX_VALUE, 0, issuedAt).encode();
+
+        assertThrows(SyncTokenExpiredException.class, () -> contactSyncService.sync(1L, false, token, 10));
+        verify(contactRepository, never()).findChangesByUserIdAfter(anyLong(), anyLong(), anyLong(), anyBoolean(), anyInt());
+    }
+
+    @Test
+    void sync_WithMalformedToken_ShouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> contactSyncService.sync(1L, false, "not-a-token", 10));
+        assertThrows(IllegalArgumentException.class, () -> contactSyncService.sync(1L, false, null, 0));
+        verify(contactRepository, never()).findChangesAfter(anyLong(), anyLong(), eq(true), anyInt());
+    }
+
+    private static Contact contact(Long id) {
+        Contact contact = new Contact();
+        contact.setId(id);
+        contact.setFirstName("First" + id);
+        contact.setLastName("Last" + id);
+        return contact;
+    }
+
+    private static ContactRepository.ChangeRow row(Long id, Long rowVersion, boolean deleted) {
+        return new ContactRepository.ChangeRow() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getRowVersion() {
+                return rowVersion;
+            }
+
+            @Override
+            public boolean isDeleted() {
+                return deleted;
+            }
+        };
+    }
+}
@@ -0,0 +1,108 @@
+package contacts.service;
+
+import contacts.dto.ContactListDTO;
+import contacts.event.ContactChangedEvent;
+import contacts.exception.DuplicateContactException;
+import contacts.repository.ContactRepository;
+import contacts.routing.ShardRouting;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContactUniquenessServiceTest {
+
+    @Mock
+    private ContactRepository contactRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ContactUniquenessService uniquenessService;
+
+    @BeforeEach
+    void setUp() {
+        uniquenessService = new ContactUniquenessService(contactRepository, transactionManager,
+                new ShardRouting(1, transactionManager));
+    }
+
+    @Test
+    void checkAvailable_BeforeWarmUp_ShouldQueryDatabase() {
+        // Arrange
+        when(contactRepository.findIdsByTajNumber("123456789")).thenReturn(List.of());
+        when(contactRepository.findIdsByTaxId("1234567890")).thenReturn(List.of());
+
+        // Act
+        uniquenessService.checkAvailable("123456789", "1234567890", null);
+
+        // Assert
+        verify(contactRepository).findIdsByTajNumber("123456789");
+        verify(contactRepository).findIdsByTaxId("1234567890");
+    }
+
+    @Test
+    void checkAvailable_WithNewValuesAfterWarmUp_ShouldNotQueryDatabase() {
+        // Arrange
+        warmUp(Stream.of("111111111"), Stream.of("1111111111"));
+
+        // Act
+        uniquenessService.checkAvailable("123456789", "1234567890", null);
+
+        // Assert
+        verify(contactRepository, never()).findIdsByTajNumber(anyString());
+        verify(contactRepository, never()).findIdsByTaxId(anyString());
+    }
+
+    @Test
+    void checkAvailable_WithTakenTaxId_ShouldThrowException() {
+        // Arrange
+        warmUp(Stream.of(), Stream.of("1234567890"));
+        when(contactRepository.findIdsByTaxId("1234567890")).thenReturn(List.of(5L));
+
+        // Act & Assert
+        DuplicateContactException exception = assertThrows(DuplicateContactException.class, () ->
+                uniquenessService.checkAvailable(null, "1234567890", null));
+        assertEquals("taxId", exception.getField());
+    }
+
+    @Test
+    void checkAvailable_WithOwnTaxId_ShouldPass() {
+        // Arrange
+        warmUp(Stream.of(), Stream.of("1234567890"));
+        when(contactRepository.findIdsByTaxId("1234567890")).thenReturn(List.of(5L));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> uniquenessService.checkAvailable(null, "1234567890", 5L));
+    }
+
+    @Test
+    void onContactChanged_ShouldMakeValueLikelyTaken() {
+        // Arrange
+        warmUp(Stream.of(), Stream.of());
+        ContactListDTO contact = new ContactListDTO();
+        contact.setTaxId("1234567890");
+        uniquenessService.onContactChanged(new ContactChangedEvent(ContactChangedEvent.Type.CREATED, 1L, 1L, null, contact));
+        when(contactRepository.findIdsByTaxId("1234567890")).thenReturn(List.of(1L));
+
+        // Act & Assert
+        assertThrows(DuplicateContactException.class, () -> uniquenessService.checkAvailable(null, "1234567890", null));
+    }
+
+    private void warmUp(Stream<String> tajNumbers, Stream<String> taxIds) {
+        when(contactRepository.count()).thenReturn(1L);
+        when(contactRepository.streamAllTajNumbers()).thenReturn(tajNumbers);
+        when(contactRepository.streamAllTaxIds()).thenReturn(taxIds);
+        uniquenessService.warmUp();
+        assertTrue(uniquenessService.isWarm());
+    }
+}
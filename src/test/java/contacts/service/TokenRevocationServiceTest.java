@@ -0,0 +1,160 @@
+package contacts.service;
+
+import contacts.config.SecurityConstants;
+import contacts.domain.TokenRevocation;
+import contacts.event.UserChangedEvent;
+import contacts.repository.TokenRevocationRepository;
+import contacts.routing.ShardRouting;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenRevocationServiceTest {
+
+    private static final long NOW = 1_760_000_000L;
+
+    @Mock
+    private TokenRevocationRepository revocationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
+    @Mock
+    private Clock clock;
+
+    private TokenRevocationService revocationService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.instant()).thenReturn(Instant.ofEpochSecond(NOW));
+        lenient().when(revocationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        revocationService = new TokenRevocationService(revocationRepository, new ShardRouting(1, transactionManager),
+                transactionManager, userIdentityCache, clock);
+    }
+
+    @Test
+    void isRevoked_BeforeLoad_ShouldAskTheDatabase() {
+        when(revocationRepository.existsRevocation("a", 7L, (NOW - 60) * 1000, NOW)).thenReturn(true);
+
+        assertTrue(revocationService.isRevoked(token("a", 7L, NOW - 60)));
+    }
+
+    @Test
+    void revokeToken_ShouldOnlyRevokeThatToken() {
+        load();
+
+        revocationService.revokeToken(token("a", 7L, NOW - 60));
+
+        assertTrue(revocationService.isRevoked(token("a", 7L, NOW - 60)));
+        assertFalse(revocationService.isRevoked(token("b", 7L, NOW - 60)));
+        verify(revocationRepository).save(argThat(revocation -> "a".equals(revocation.getJti())
+                && revocation.getExpiresAt() == NOW - 60 + 86400 && revocation.getIssuedBefore() == null));
+        verify(revocationRepository, never()).existsRevocation(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void onUserChanged_WhenPasswordChanged_ShouldRevokeTokensIssuedBefore() {
+        load();
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(NOW * 1000 + 400));
+
+        revocationService.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 7L, "user", "ROLE_USER",
+                List.of("password")));
+
+        // A login later in the same second keeps its token
+        assertTrue(revocationService.isRevoked(tokenIssuedAtMillis("a", 7L, NOW * 1000 + 400)));
+        assertFalse(revocationService.isRevoked(tokenIssuedAtMillis("b", 7L, NOW * 1000 + 401)));
+        assertFalse(revocationService.isRevoked(token("c", 8L, NOW - 60)));
+        verify(revocationRepository).save(argThat(revocation -> revocation.getIssuedBefore() == NOW * 1000 + 401
+                && revocation.getExpiresAt() == NOW + 1 + 86400));
+    }
+
+    @Test
+    void isRevoked_WithoutMillisecondIssueTime_ShouldRevokeTheWholeSecondOfTheChange() {
+        load();
+        when(clock.instant()).thenReturn(Instant.ofEpochMilli(NOW * 1000 + 400));
+
+        revocationService.revokeAllTokens(7L);
+
+        Claims legacy = token("a", 7L, NOW);
+        legacy.remove(SecurityConstants.ISSUED_AT_MILLIS_CLAIM);
+        assertTrue(revocationService.isRevoked(legacy));
+    }
+
+    @Test
+    void onUserChanged_WhenClaimsUnchanged_ShouldNotRevoke() {
+        revocationService.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 7L, "user", "ROLE_USER",
+                List.of()));
+        revocationService.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, 7L, "user", "ROLE_USER",
+                List.of()));
+
+        verify(revocationRepository, never()).save(any());
+    }
+
+    @Test
+    void poll_ShouldReadFromThePreviousHorizonAndEvictExpiredEntries() {
+        when(revocationRepository.currentSnapshotXmin()).thenReturn(100L, 150L);
+        when(revocationRepository.findAddedSince(0L, NOW)).thenReturn(List.of(
+                revocation(7L, "a", null, NOW + 10),
+                revocation(8L, null, (NOW - 5) * 1000, NOW + 3600)));
+        revocationService.poll();
+
+        assertTrue(revocationService.isRevoked(token("a", 7L, NOW - 60)));
+        assertTrue(revocationService.isRevoked(token("b", 8L, NOW - 60)));
+        // User 8 may have been deleted or renamed on another instance, a logout says nothing about user 7
+        verify(userIdentityCache).invalidate(8L);
+        verify(userIdentityCache, never()).invalidate(7L);
+
+        when(clock.instant()).thenReturn(Instant.ofEpochSecond(NOW + 10));
+        revocationService.poll();
+
+        verify(revocationRepository).findAddedSince(100L, NOW + 10);
+        assertFalse(revocationService.isRevoked(token("a", 7L, NOW - 60)));
+        assertTrue(revocationService.isRevoked(token("b", 8L, NOW - 60)));
+        assertEquals(1, revocationService.size());
+    }
+
+    private void load() {
+        when(revocationRepository.findAddedSince(anyLong(), anyLong())).thenReturn(List.of());
+        revocationService.poll();
+    }
+
+    private static Claims token(String jti, Long userId, long issuedAt) {
+        return tokenIssuedAtMillis(jti, userId, issuedAt * 1000);
+    }
+
+    private static Claims tokenIssuedAtMillis(String jti, Long userId, long issuedAtMillis) {
+        Claims claims = Jwts.claims().setId(jti);
+        claims.setIssuedAt(new Date(issuedAtMillis));
+        claims.setExpiration(new Date(issuedAtMillis + 86400 * 1000));
+        claims.put("userId", userId.intValue());
+        claims.put(SecurityConstants.ISSUED_AT_MILLIS_CLAIM, issuedAtMillis);
+        return claims;
+    }
+
+    private static TokenRevocation revocation(Long userId, String jti, Long issuedBefore, long expiresAt) {
+        TokenRevocation revocation = new TokenRevocation();
+        revocation.setUserId(userId);
+        revocation.setJti(jti);
+        revocation.setIssuedBefore(issuedBefore);
+        revocation.setExpiresAt(expiresAt);
+        return revocation;
+    }
+}
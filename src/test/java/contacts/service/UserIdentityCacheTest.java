@@ -0,0 +1,99 @@
+package contacts.service;
+
+import contacts.domain.User;
+import contacts.event.UserChangedEvent;
+import contacts.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserIdentityCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private Clock clock;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(clock.millis()).thenReturn(1_000L);
+    }
+
+    @Test
+    void findById_AfterUpdate_ShouldReloadUser() {
+        UserIdentityCache cache = new UserIdentityCache(userRepository, 100, 60_000, clock);
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user(1L, "alice", "ROLE_USER")))
+                .thenReturn(Optional.of(user(1L, "alice", "ROLE_ADMIN")));
+
+        assertEquals("ROLE_USER", cache.findById(1L).orElseThrow().role());
+        assertEquals("ROLE_USER", cache.findById(1L).orElseThrow().role());
+
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED, 1L, "alice", "ROLE_ADMIN", List.of("role")));
+
+        assertEquals("ROLE_ADMIN", cache.findById(1L).orElseThrow().role());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void findById_AfterTtl_ShouldReloadUser() {
+        UserIdentityCache cache = new UserIdentityCache(userRepository, 100, 60_000, clock);
+        when(userRepository.findById(1L))
+                .thenReturn(Optional.of(user(1L, "alice", "ROLE_USER")))
+                .thenReturn(Optional.empty());
+
+        assertTrue(cache.findById(1L).isPresent());
+        when(clock.millis()).thenReturn(60_999L);
+        assertTrue(cache.findById(1L).isPresent());
+
+        // Deleted on another instance, without an invalidation reaching this one
+        when(clock.millis()).thenReturn(61_000L);
+        assertTrue(cache.findById(1L).isEmpty());
+        assertEquals(0, cache.size());
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void findById_UnknownUser_ShouldNotBeCached() {
+        UserIdentityCache cache = new UserIdentityCache(userRepository, 100, 60_000, clock);
+        when(userRepository.findById(5L))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(user(5L, "bob", "ROLE_USER")));
+
+        assertTrue(cache.findById(5L).isEmpty());
+        assertEquals("bob", cache.findById(5L).orElseThrow().username());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void put_WhenFull_ShouldStayWithinMaxSize() {
+        UserIdentityCache cache = new UserIdentityCache(userRepository, 3, 60_000, clock);
+
+        for (long id = 1; id <= 10; id++) {
+            cache.put(user(id, "user" + id, "ROLE_USER"));
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals("user10", cache.findById(10L).orElseThrow().username());
+        verifyNoInteractions(userRepository);
+    }
+
+    private static User user(Long id, String username, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -2,13 +2,16 @@ package contacts.service;
 
 import contacts.domain.User;
 import contacts.dto.UserRequestDTO;
+import contacts.event.UserChangedEvent;
 import contacts.repository.UserRepository;
+import contacts.routing.ShardRouting;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.Arrays;
@@ -29,6 +32,15 @@ public class UserServiceTest {
     @Mock
     private BCryptPasswordEncoder passwordEncoder;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ShardRouting shardRouting;
+
+    @Mock
+    private ContactStatisticsService statisticsService;
+
     @InjectMocks
     private UserService userService;
 
@@ -279,6 +291,9 @@ public class UserServiceTest {
         userService.deleteUser(1L);
 
         // Assert
+        verify(statisticsService).removeUser(1L);
         verify(userRepository, times(1)).deleteById(1L);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof UserChangedEvent changed
+                && changed.getType() == UserChangedEvent.Type.DELETED && changed.getUserId().equals(1L)));
     }
 }
@@ -0,0 +1,379 @@
+package contacts.testdata;
+
+import contacts.domain.Address;
+import contacts.domain.Contact;
+import contacts.domain.PhoneNumber;
+import contacts.domain.User;
+import contacts.dto.ContactRequestDTO;
+import contacts.util.PhoneNumberUtils;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Generates realistic contacts for benchmarks and tests, without a database.
+ *
+ * Every contact is derived from its key alone (plus the seed for everything but the
+ * identifiers), so the same key always gives the same contact and contacts can be generated
+ * in any order or in parallel. The loader uses the contact ID as the key.
+ *
+ * <ul>
+ *   <li>Owners follow a Zipf distribution: a few users own most contacts, many own a few.</li>
+ *   <li>Names, cities and streets are common Hungarian ones, also Zipf-weighted, so the
+ *       duplicate detection's name buckets are as crowded as in real data.</li>
+ *   <li>TAJ numbers and tax IDs have valid check digits, the tax ID encodes the birth date,
+ *       and both are unique per key (up to {@link #MAX_KEY}).</li>
+ *   <li>Phone numbers use the formats users actually type and pass {@link PhoneNumberUtils#isValid}.</li>
+ * </ul>
+ */
+public class ContactDataGenerator {
+
+    private static final String[] LAST_NAMES = {
+            "Nagy", "Kovács", "Tóth", "Szabó", "Horváth", "Varga", "Kiss", "Molnár", "Németh", "Farkas",
+            "Balogh", "Papp", "Takács", "Juhász", "Lakatos", "Mészáros", "Oláh", "Simon", "Rácz", "Fekete",
+            "Szilágyi", "Török", "Fehér", "Balázs", "Gál", "Kis", "Szűcs", "Kocsis", "Pintér", "Fodor",
+            "Szalai", "Sipos", "Magyar", "Lukács", "Gulyás", "Biró", "Király", "Katona", "László", "Jakab",
+            "Bogdán", "Sándor", "Boros", "Fazekas", "Kelemen", "Antal", "Somogyi", "Orosz", "Vincze", "Hegedűs"};
+
+    private static final String[] MALE_FIRST_NAMES = {
+            "László", "István", "József", "János", "Zoltán", "Sándor", "Gábor", "Ferenc", "Attila", "Péter",
+            "Tamás", "Zsolt", "Tibor", "András", "Csaba", "Imre", "Lajos", "György", "Balázs", "Gyula",
+            "Mihály", "Károly", "Róbert", "Béla", "Dávid", "Dániel", "Ádám", "Krisztián", "Miklós", "Norbert",
+            "Bence", "Máté", "Levente", "Gergő", "Márk"};
+
+    private static final String[] FEMALE_FIRST_NAMES = {
+            "Mária", "Erzsébet", "Katalin", "Éva", "Ilona", "Anna", "Zsuzsanna", "Margit", "Judit", "Ágnes",
+            "Andrea", "Erika", "Krisztina", "Irén", "Eszter", "Tünde", "Mónika", "Edit", "Gabriella", "Szilvia",
+            "Anita", "Ildikó", "Rozália", "Viktória", "Julianna", "Anikó", "Piroska", "Melinda", "Klára", "Hajnalka",
+            "Nikolett", "Dóra", "Réka", "Petra", "Zsófia"};
+
+    private static final String[] CITIES = {
+            "Budapest", "Debrecen", "Szeged", "Miskolc", "Pécs", "Győr", "Nyíregyháza", "Kecskemét",
+            "Székesfehérvár", "Szombathely", "Szolnok", "Tatabánya", "Kaposvár", "Érd", "Veszprém",
+            "Békéscsaba", "Zalaegerszeg", "Sopron", "Eger", "Nagykanizsa"};
+
+    // Zip codes of the cities above, Budapest gets its district zip codes
+    private static final String[] ZIP_CODES = {
+            null, "4024", "6720", "3525", "7621", "9021", "4400", "6000",
+            "8000", "9700", "5000", "2800", "7400", "2030", "8200",
+            "5600", "8900", "9400", "3300", "8800"};
+
+    private static final String[] STREETS = {
+            "Petőfi Sándor utca", "Kossuth Lajos utca", "Rákóczi Ferenc utca", "Ady Endre utca", "Arany János utca",
+            "Dózsa György út", "Jókai Mór utca", "Széchenyi István tér", "Béke utca", "Fő utca",
+            "Deák Ferenc utca", "Bajcsy-Zsilinszky út", "Kölcsey Ferenc utca", "Táncsics Mihály utca",
+            "Vörösmarty Mihály utca", "Hunyadi János utca", "Bem József utca", "Szent István út", "Rózsa utca",
+            "Kinizsi Pál utca"};
+
+    private static final String[] MOBILE_PREFIXES = {"20", "30", "70", "31"};
+
+    // Keys are mapped onto the identifier spaces with a multiplier coprime to the size of the space,
+    // which is a permutation: distinct keys give distinct identifiers that do not look sequential.
+    private static final long TAJ_SPACE = 100_000_000L;
+    private static final long TAJ_MULTIPLIER = 48_271L;
+
+    private static final LocalDate TAX_EPOCH = LocalDate.of(1867, 1, 1);
+    private static final LocalDate OLDEST_BIRTH_DATE = LocalDate.of(1935, 1, 1);
+    private static final int BIRTH_DAYS = (int) ChronoUnit.DAYS.between(OLDEST_BIRTH_DATE, LocalDate.of(2007, 12, 31)) + 1;
+    // Per birth date: 100 two-digit prefixes times 9 last digits that give a valid check digit
+    private static final long TAX_SPACE = BIRTH_DAYS * 900L;
+    private static final long TAX_MULTIPLIER = 1_000_003L;
+
+    /**
+     * Largest key with unique identifiers; the tax ID space is the smaller one.
+     */
+    public static final long MAX_KEY = TAX_SPACE - 1;
+
+    private static final String[] LAST_NAMES_ASCII = ascii(LAST_NAMES);
+    private static final String[] MALE_FIRST_NAMES_ASCII = ascii(MALE_FIRST_NAMES);
+    private static final String[] FEMALE_FIRST_NAMES_ASCII = ascii(FEMALE_FIRST_NAMES);
+
+    private final long seed;
+    private final int users;
+    private final Zipf owners;
+    private final Zipf lastNames = new Zipf(LAST_NAMES.length, 0.9);
+    private final Zipf maleFirstNames = new Zipf(MALE_FIRST_NAMES.length, 0.8);
+    private final Zipf femaleFirstNames = new Zipf(FEMALE_FIRST_NAMES.length, 0.8);
+    private final Zipf cities = new Zipf(CITIES.length, 1.0);
+    private final Zipf streets = new Zipf(STREETS.length, 0.7);
+
+    /**
+     * Constructor for ContactDataGenerator.
+     *
+     * @param seed Seed for everything but the identifiers
+     * @param users Number of users the contacts are spread over
+     * @param userSkew Zipf exponent of the contacts per user, 0 for an even spread, around 1 for production-like skew
+     */
+    public ContactDataGenerator(long seed, int users, double userSkew) {
+        if (users < 1) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        this.seed = seed;
+        this.users = users;
+        this.owners = new Zipf(users, userSkew);
+    }
+
+    /**
+     * @return The number of users the contacts are spread over
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * The owner of a contact, as an index from 0 to users - 1. Low indexes own the most contacts.
+     *
+     * @param key The key of the contact
+     * @return The index of the owner
+     */
+    public int ownerIndex(long key) {
+        return owners.sample(random(key, 1));
+    }
+
+    /**
+     * Generate a contact with its phone numbers and addresses. The contact's ID is the key.
+     *
+     * @param key The key of the contact, from 0 to {@link #MAX_KEY}
+     * @param owner The owner, or null
+     * @return The contact
+     */
+    public Contact contact(long key, User owner) {
+        if (key < 0 || key > MAX_KEY) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+        SplittableRandom random = random(key, 2);
+
+        boolean female = random.nextBoolean();
+        int firstNameIndex = female ? femaleFirstNames.sample(random) : maleFirstNames.sample(random);
+        int lastNameIndex = lastNames.sample(random);
+        long taxIndex = Math.floorMod(key * TAX_MULTIPLIER, TAX_SPACE);
+
+        Contact contact = new Contact();
+        contact.setId(key);
+        contact.setFirstName(female ? FEMALE_FIRST_NAMES[firstNameIndex] : MALE_FIRST_NAMES[firstNameIndex]);
+        contact.setLastName(LAST_NAMES[lastNameIndex]);
+        contact.setMotherName(LAST_NAMES[lastNames.sample(random)] + " "
+                + FEMALE_FIRST_NAMES[femaleFirstNames.sample(random)]);
+        contact.setEmail(email(female ? FEMALE_FIRST_NAMES_ASCII[firstNameIndex] : MALE_FIRST_NAMES_ASCII[firstNameIndex],
+                LAST_NAMES_ASCII[lastNameIndex], key));
+        contact.setTajNumber(tajNumber(key));
+        contact.setBirthDate(birthDate(taxIndex));
+        contact.setTaxId(taxId(taxIndex));
+        contact.setUser(owner);
+
+        // 60% one phone number, 30% two, 10% three
+        int phoneNumbers = 1 + (random.nextInt(10) >= 6 ? 1 : 0) + (random.nextInt(10) == 0 ? 1 : 0);
+        for (int i = 0; i < phoneNumbers; i++) {
+            PhoneNumber phoneNumber = new PhoneNumber();
+            phoneNumber.setPhoneNumber(phoneNumber(random));
+            phoneNumber.setNormalizedNumber(PhoneNumberUtils.normalize(phoneNumber.getPhoneNumber()));
+            phoneNumber.setContact(contact);
+            contact.getPhoneNumbers().add(phoneNumber);
+        }
+
+        // 20% no address, 65% one, 15% two
+        int draw = random.nextInt(100);
+        int addresses = draw < 20 ? 0 : draw < 85 ? 1 : 2;
+        for (int i = 0; i < addresses; i++) {
+            int city = cities.sample(random);
+            Address address = new Address();
+            address.setStreet(STREETS[streets.sample(random)] + " " + (1 + random.nextInt(150)) + ".");
+            address.setCity(CITIES[city]);
+            address.setZipCode(ZIP_CODES[city] != null ? ZIP_CODES[city]
+                    : String.format("1%02d%d", 1 + random.nextInt(23), 1 + random.nextInt(9)));
+            address.setContact(contact);
+            contact.getAddresses().add(address);
+        }
+        return contact;
+    }
+
+    /**
+     * Generate a contact as the create request a client would send.
+     *
+     * @param key The key of the contact
+     * @return The request
+     */
+    public ContactRequestDTO request(long key) {
+        Contact contact = contact(key, null);
+        ContactRequestDTO dto = new ContactRequestDTO();
+        dto.setFirstName(contact.getFirstName());
+        dto.setLastName(contact.getLastName());
+        dto.setEmail(contact.getEmail());
+        dto.setMotherName(contact.getMotherName());
+        dto.setBirthDate(contact.getBirthDate());
+        dto.setTajNumber(contact.getTajNumber());
+        dto.setTaxId(contact.getTaxId());
+        dto.setPhoneNumbers(contact.getPhoneNumbers().stream().map(PhoneNumber::getPhoneNumber).toList());
+        dto.setAddresses(contact.getAddresses().stream()
+                .map(a -> new ContactRequestDTO.AddressDTO(a.getStreet(), a.getCity(), a.getZipCode()))
+                .toList());
+        return dto;
+    }
+
+    /**
+     * Generate a list of contacts with keys first, first + 1, ...
+     *
+     * @param first The first key
+     * @param count Number of contacts
+     * @param owner The owner of all of them, or null
+     * @return The contacts
+     */
+    public List<Contact> contacts(long first, int count, User owner) {
+        List<Contact> contacts = new ArrayList<>(count);
+        for (long key = first; key < first + count; key++) {
+            contacts.add(contact(key, owner));
+        }
+        return contacts;
+    }
+
+    /**
+     * The TAJ number of a key: 8 digits and a check digit, the digits weighted 3 and 7 alternately.
+     *
+     * @param key The key
+     * @return The TAJ number
+     */
+    public static String tajNumber(long key) {
+        long body = Math.floorMod(key * TAJ_MULTIPLIER, TAJ_SPACE);
+        char[] digits = String.format("%08d0", body).toCharArray();
+        digits[8] = (char) ('0' + tajCheckDigit(digits));
+        return new String(digits);
+    }
+
+    /**
+     * @param tajNumber The TAJ number to check
+     * @return Whether it has 9 digits and a correct check digit
+     */
+    public static boolean isValidTajNumber(String tajNumber) {
+        return tajNumber != null && tajNumber.matches("\\d{9}")
+                && tajNumber.charAt(8) - '0' == tajCheckDigit(tajNumber.toCharArray());
+    }
+
+    /**
+     * @param taxId The tax ID to check
+     * @param birthDate The birth date it should encode
+     * @return Whether it has 10 digits, starts with 8, encodes the birth date and has a correct check digit
+     */
+    public static boolean isValidTaxId(String taxId, LocalDate birthDate) {
+        if (taxId == null || !taxId.matches("8\\d{9}")) {
+            return false;
+        }
+        long days = Long.parseLong(taxId.substring(1, 6));
+        int check = taxWeightedSum(taxId.toCharArray()) % 11;
+        return TAX_EPOCH.plusDays(days).equals(birthDate) && check != 10 && check == taxId.charAt(9) - '0';
+    }
+
+    private static int tajCheckDigit(char[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 8; i++) {
+            sum += (digits[i] - '0') * (i % 2 == 0 ? 3 : 7);
+        }
+        return sum % 10;
+    }
+
+    private static int taxWeightedSum(char[] digits) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (digits[i] - '0') * (i + 1);
+        }
+        return sum;
+    }
+
+    private static LocalDate birthDate(long taxIndex) {
+        return OLDEST_BIRTH_DATE.plusDays(taxIndex % BIRTH_DAYS);
+    }
+
+    /**
+     * Tax ID: 8, the birth date as days since 1867-01-01, three more digits and a check digit,
+     * the sum of the first nine digits weighted by their position modulo 11. A last digit that
+     * would need check digit 10 is not issued, so 9 of the 10 are used per two-digit prefix.
+     */
+    private static String taxId(long taxIndex) {
+        long days = ChronoUnit.DAYS.between(TAX_EPOCH, birthDate(taxIndex));
+        long rest = taxIndex / BIRTH_DAYS;
+        char[] digits = String.format("8%05d%02d00", days, rest / 9).toCharArray();
+        int wanted = (int) (rest % 9);
+        for (int last = 0; last <= 9; last++) {
+            digits[8] = (char) ('0' + last);
+            int check = taxWeightedSum(digits) % 11;
+            if (check != 10 && wanted-- == 0) {
+                digits[9] = (char) ('0' + check);
+                return new String(digits);
+            }
+        }
+        throw new IllegalStateException("No valid tax ID for index " + taxIndex);
+    }
+
+    private static String phoneNumber(SplittableRandom random) {
+        int format = random.nextInt(20);
+        String prefix = MOBILE_PREFIXES[random.nextInt(MOBILE_PREFIXES.length)];
+        int subscriber = 1_000_000 + random.nextInt(9_000_000);
+        String number = String.valueOf(subscriber);
+        if (format < 10) {
+            return "+36 " + prefix + " " + number.substring(0, 3) + " " + number.substring(3);
+        } else if (format < 15) {
+            return "06 " + prefix + " " + number;
+        } else if (format < 18) {
+            return "+36" + prefix + number;
+        }
+        // Budapest landline
+        return "+36 1 " + number.substring(0, 3) + " " + number.substring(3);
+    }
+
+    private static String email(String firstName, String lastName, long key) {
+        return lastName + "." + firstName + "." + key + "@example.com";
+    }
+
+    private SplittableRandom random(long key, int stream) {
+        return new SplittableRandom(seed * 31 + key * 0x9E3779B97F4A7C15L + stream);
+    }
+
+    private static String[] ascii(String[] names) {
+        String[] result = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = Normalizer.normalize(names[i], Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT);
+        }
+        return result;
+    }
+
+    /**
+     * Zipf distribution over ranks 0 to n - 1, sampled by binary search in the cumulative weights.
+     */
+    private static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int rank = 0; rank < n; rank++) {
+                sum += 1.0 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < n; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double u = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] < u) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package contacts.testdata;
+
+import contacts.domain.Contact;
+import contacts.domain.PhoneNumber;
+import contacts.dto.ContactRequestDTO;
+import contacts.service.ContactService;
+import contacts.util.PhoneNumberUtils;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContactDataGeneratorTest {
+
+    private final ContactDataGenerator generator = new ContactDataGenerator(42, 1000, 1.0);
+
+    @Test
+    void contact_ShouldHaveValidIdentifiersAndPhoneNumbers() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        for (long key = 1; key <= 2000; key++) {
+            Contact contact = generator.contact(key, null);
+
+            assertTrue(ContactDataGenerator.isValidTajNumber(contact.getTajNumber()), contact.getTajNumber());
+            assertTrue(ContactDataGenerator.isValidTaxId(contact.getTaxId(), contact.getBirthDate()), contact.getTaxId());
+            assertFalse(contact.getPhoneNumbers().isEmpty());
+            for (PhoneNumber phoneNumber : contact.getPhoneNumbers()) {
+                assertEquals(PhoneNumberUtils.normalize(phoneNumber.getPhoneNumber()), phoneNumber.getNormalizedNumber());
+                assertNotNull(phoneNumber.getNormalizedNumber(), phoneNumber.getPhoneNumber());
+            }
+
+            ContactRequestDTO request = generator.request(key);
+            assertTrue(validator.validate(request).isEmpty(), () -> validator.validate(request).toString());
+        }
+    }
+
+    @Test
+    void isValidTajNumber_ShouldCheckTheCheckDigit() {
+        assertTrue(ContactDataGenerator.isValidTajNumber("111111110"));
+        assertFalse(ContactDataGenerator.isValidTajNumber("111111111"));
+        assertFalse(ContactDataGenerator.isValidTajNumber("11111111"));
+    }
+
+    @Test
+    void identifiers_ShouldBeUniqueAcrossKeys() {
+        Set<String> tajNumbers = new HashSet<>();
+        Set<String> taxIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (long key = 1; key <= 200_000; key++) {
+            assertTrue(tajNumbers.add(ContactDataGenerator.tajNumber(key)));
+        }
+        for (long key = 1; key <= 20_000; key++) {
+            Contact contact = generator.contact(key, null);
+            assertTrue(taxIds.add(contact.getTaxId()));
+            assertTrue(emails.add(contact.getEmail()));
+        }
+        // Keys far apart map onto the same tax ID space without collisions either
+        for (long key = ContactDataGenerator.MAX_KEY - 20_000; key <= ContactDataGenerator.MAX_KEY; key++) {
+            assertTrue(taxIds.add(generator.contact(key, null).getTaxId()));
+        }
+    }
+
+    @Test
+    void ownerIndex_ShouldBeSkewedTowardsFewUsers() {
+        int[] perUser = new int[generator.getUsers()];
+        for (long key = 0; key < 100_000; key++) {
+            perUser[generator.ownerIndex(key)]++;
+        }
+        int[] sorted = perUser.clone();
+        Arrays.sort(sorted);
+
+        // The busiest user has far more than the median one, and the top 1% own a large share
+        int median = sorted[sorted.length / 2];
+        long top = Arrays.stream(sorted, sorted.length - 10, sorted.length).sum();
+        assertTrue(sorted[sorted.length - 1] > 50 * Math.max(1, median));
+        assertTrue(top > 100_000 / 4);
+    }
+
+    @Test
+    void contact_SameKeyAndSeed_ShouldBeEqual() {
+        Contact first = generator.contact(12345, null);
+        Contact second = new ContactDataGenerator(42, 1000, 1.0).contact(12345, null);
+        Contact otherSeed = new ContactDataGenerator(7, 1000, 1.0).contact(12345, null);
+
+        assertEquals(ContactService.convertToContactListDTO(first), ContactService.convertToContactListDTO(second));
+        assertEquals(first.getTajNumber(), otherSeed.getTajNumber());
+        assertEquals(first.getTaxId(), otherSeed.getTaxId());
+    }
+}
@@ -0,0 +1,39 @@
+package contacts.testdata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * Loads a large synthetic dataset into a running database, e.g. the local development database,
+ * to reproduce production scale before running the benchmarks against it.
+ *
+ * Run with: mvn test -Dtest=ContactDataLoadRunner -Ddataset=true
+ * Options: -Ddataset.url=jdbc:postgresql://localhost:5432/contacts_db -Ddataset.user=user -Ddataset.password=password
+ *          -Ddataset.users=10000 -Ddataset.contacts=1000000 -Ddataset.skew=1.0 -Ddataset.seed=42
+ * The generated users are named perf-&lt;id&gt; and have the password 123456.
+ */
+@EnabledIfSystemProperty(named = "dataset", matches = "true")
+public class ContactDataLoadRunner {
+
+    private static final String URL = System.getProperty("dataset.url", "jdbc:postgresql://localhost:5432/contacts_db");
+    private static final String USER = System.getProperty("dataset.user", "user");
+    private static final String PASSWORD = System.getProperty("dataset.password", "password");
+    private static final int USERS = Integer.getInteger("dataset.users", 10_000);
+    private static final long CONTACTS = Long.getLong("dataset.contacts", 1_000_000L);
+    private static final double SKEW = Double.parseDouble(System.getProperty("dataset.skew", "1.0"));
+    private static final long SEED = Long.getLong("dataset.seed", 42L);
+
+    @Test
+    void load() throws Exception {
+        try (Connection connection = DriverManager.getConnection(URL, USER, PASSWORD)) {
+            ContactDataLoader.Result result = new ContactDataLoader(connection)
+                    .load(new ContactDataGenerator(SEED, USERS, SKEW), CONTACTS);
+            System.out.printf("Loaded %d users (IDs from %d), %d contacts, %d phone numbers, %d addresses in %d s%n",
+                    result.users(), result.firstUserId(), result.contacts(), result.phoneNumbers(),
+                    result.addresses(), result.elapsed().toSeconds());
+        }
+    }
+}
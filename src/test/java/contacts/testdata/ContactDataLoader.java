@@ -0,0 +1,285 @@
+package contacts.testdata;
+
+import contacts.domain.Address;
+import contacts.domain.Contact;
+import contacts.domain.PhoneNumber;
+import contacts.service.ContactDeduplicationService;
+import contacts.service.ContactService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Loads generated users and contacts into Postgres with COPY, in batches of one transaction each.
+ *
+ * The phone numbers, addresses and duplicate detection blocking keys of the contacts are loaded
+ * too, so the data looks as if it had been created through the API, but no events are published:
+ * restart a running application afterwards, so it reloads its uniqueness filters.
+ *
+ * IDs are reserved from the sequences up front, so the target database should not take other
+ * writes while loading. TAJ numbers and tax IDs already in the database are skipped.
+ */
+public class ContactDataLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContactDataLoader.class);
+
+    // Hash of "123456", the password of the dummy users of V6
+    private static final String PASSWORD_HASH = "$2a$10$BNMt.MEZJTE5i0DXh/mfQOOSLJvUhwgxuHOXTKiJQgAaxzF9fNili";
+
+    private static final int DEFAULT_BATCH_SIZE = 50_000;
+
+    private final Connection connection;
+    private final CopyManager copyManager;
+    private final int batchSize;
+
+    /**
+     * The outcome of a load.
+     *
+     * @param firstUserId ID of the first generated user, the users have consecutive IDs
+     * @param users Number of generated users
+     * @param contacts Number of loaded contacts
+     * @param phoneNumbers Number of loaded phone numbers
+     * @param addresses Number of loaded addresses
+     * @param elapsed Time taken
+     */
+    public record Result(long firstUserId, int users, long contacts, long phoneNumbers, long addresses, Duration elapsed) {
+    }
+
+    /**
+     * Constructor for ContactDataLoader. The caller owns the connection, its auto-commit
+     * setting is restored after each load.
+     *
+     * @param connection Connection to the contacts database
+     * @throws SQLException if the connection is not a Postgres connection
+     */
+    public ContactDataLoader(Connection connection) throws SQLException {
+        this(connection, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructor for ContactDataLoader.
+     *
+     * @param connection Connection to the contacts database
+     * @param batchSize Contacts per transaction
+     * @throws SQLException if the connection is not a Postgres connection
+     */
+    public ContactDataLoader(Connection connection, int batchSize) throws SQLException {
+        this.connection = connection;
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Create the generator's users and the given number of contacts spread over them.
+     *
+     * @param generator The generator
+     * @param contacts Number of contacts to load
+     * @return What was loaded
+     * @throws SQLException if a statement fails; the batches loaded so far stay committed
+     * @throws IOException if the data cannot be streamed
+     */
+    public Result load(ContactDataGenerator generator, long contacts) throws SQLException, IOException {
+        long start = System.nanoTime();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+
+            long[] existingTajNumbers = existingIdentifiers("taj_number");
+            long[] existingTaxIds = existingIdentifiers("tax_id");
+            long firstUserId = reserve("\"user\"", generator.getUsers());
+            // Keys whose identifiers are taken are skipped, so reserve enough IDs for the worst case
+            long firstKey = reserve("contact", contacts + existingTajNumbers.length + existingTaxIds.length);
+            if (firstKey + contacts + existingTajNumbers.length + existingTaxIds.length > ContactDataGenerator.MAX_KEY) {
+                throw new IllegalArgumentException("Too many contacts for unique identifiers");
+            }
+            connection.commit();
+
+            loadUsers(firstUserId, generator.getUsers());
+            connection.commit();
+
+            long key = firstKey;
+            long loaded = 0;
+            long phoneNumbers = 0;
+            long addresses = 0;
+            while (loaded < contacts) {
+                Batch batch = new Batch();
+                while (batch.contacts < batchSize && loaded + batch.contacts < contacts) {
+                    long candidate = key++;
+                    if (isTaken(ContactDataGenerator.tajNumber(candidate), existingTajNumbers)) {
+                        continue;
+                    }
+                    Contact contact = generator.contact(candidate, null);
+                    if (isTaken(contact.getTaxId(), existingTaxIds)) {
+                        continue;
+                    }
+                    batch.add(contact, firstUserId + generator.ownerIndex(candidate));
+                }
+                batch.copy();
+                connection.commit();
+
+                loaded += batch.contacts;
+                phoneNumbers += batch.phoneNumbers;
+                addresses += batch.addresses;
+                logger.info("Loaded {} of {} contacts ({} per second)", loaded, contacts,
+                        loaded * 1_000_000_000L / Math.max(1, System.nanoTime() - start));
+            }
+            return new Result(firstUserId, generator.getUsers(), loaded, phoneNumbers, addresses,
+                    Duration.ofNanos(System.nanoTime() - start));
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Buffers one batch as CSV for each table.
+     */
+    private final class Batch {
+
+        private final ByteArrayOutputStream contactRows = new ByteArrayOutputStream(1 << 20);
+        private final ByteArrayOutputStream phoneNumberRows = new ByteArrayOutputStream(1 << 20);
+        private final ByteArrayOutputStream addressRows = new ByteArrayOutputStream(1 << 20);
+        private final ByteArrayOutputStream blockingKeyRows = new ByteArrayOutputStream(1 << 20);
+        private final StringBuilder line = new StringBuilder(256);
+        private int contacts;
+        private int phoneNumbers;
+        private int addresses;
+
+        void add(Contact contact, long userId) {
+            row(contactRows, contact.getId(), contact.getFirstName(), contact.getLastName(), contact.getEmail(),
+                    userId, contact.getTajNumber(), contact.getTaxId(), contact.getBirthDate(), contact.getMotherName());
+            for (PhoneNumber phoneNumber : contact.getPhoneNumbers()) {
+                row(phoneNumberRows, contact.getId(), phoneNumber.getPhoneNumber(), phoneNumber.getNormalizedNumber());
+                phoneNumbers++;
+            }
+            for (Address address : contact.getAddresses()) {
+                row(addressRows, contact.getId(), address.getStreet(), address.getCity(), address.getZipCode());
+                addresses++;
+            }
+            for (String blockingKey : ContactDeduplicationService.blockingKeys(ContactService.convertToContactListDTO(contact))) {
+                row(blockingKeyRows, contact.getId(), userId, blockingKey);
+            }
+            contacts++;
+        }
+
+        void copy() throws SQLException, IOException {
+            // Parents first: phone numbers, addresses and blocking keys reference the contacts
+            copyIn("contact (id, first_name, last_name, email, user_id, taj_number, tax_id, birth_date, mother_name)", contactRows);
+            copyIn("phone_number (contact_id, phone_number, normalized_number)", phoneNumberRows);
+            copyIn("address (contact_id, street, city, zip_code)", addressRows);
+            copyIn("contact_blocking_key (contact_id, user_id, blocking_key)", blockingKeyRows);
+        }
+
+        private void row(ByteArrayOutputStream out, Object... values) {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendCsv(line, values[i]);
+            }
+            line.append('\n');
+            out.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void loadUsers(long firstUserId, int users) throws SQLException, IOException {
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        StringBuilder line = new StringBuilder();
+        for (long id = firstUserId; id < firstUserId + users; id++) {
+            line.setLength(0);
+            line.append(id).append(",perf-").append(id).append(',');
+            appendCsv(line, PASSWORD_HASH);
+            line.append(",ROLE_USER\n");
+            rows.writeBytes(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        copyIn("\"user\" (id, username, password, role)", rows);
+    }
+
+    private void copyIn(String table, ByteArrayOutputStream rows) throws SQLException, IOException {
+        if (rows.size() > 0) {
+            copyManager.copyIn("COPY " + table + " FROM STDIN (FORMAT csv)",
+                    new ByteArrayInputStream(rows.toByteArray()), 1 << 16);
+        }
+    }
+
+    /**
+     * Take a block of IDs from the table's sequence.
+     *
+     * @return The first ID of the block
+     */
+    private long reserve(String table, long count) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT setval(pg_get_serial_sequence(?, 'id'), nextval(pg_get_serial_sequence(?, 'id')) + ? - 1)")) {
+            statement.setString(1, table);
+            statement.setString(2, table);
+            statement.setLong(3, count);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1) - count + 1;
+            }
+        }
+    }
+
+    /**
+     * @return The numeric values of a contact column, sorted
+     */
+    private long[] existingIdentifiers(String column) throws SQLException {
+        long[] values = new long[1024];
+        int size = 0;
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(10_000);
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT " + column + " FROM contact WHERE " + column + " ~ '^[0-9]{1,18}$'")) {
+                while (resultSet.next()) {
+                    if (size == values.length) {
+                        values = Arrays.copyOf(values, size * 2);
+                    }
+                    values[size++] = Long.parseLong(resultSet.getString(1));
+                }
+            }
+        }
+        values = Arrays.copyOf(values, size);
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static boolean isTaken(String identifier, long[] existing) {
+        return existing.length > 0 && Arrays.binarySearch(existing, Long.parseLong(identifier)) >= 0;
+    }
+
+    private static void appendCsv(StringBuilder line, Object value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && !text.isEmpty()) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
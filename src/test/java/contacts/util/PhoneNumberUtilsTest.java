@@ -0,0 +1,45 @@
+package contacts.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhoneNumberUtilsTest {
+
+    @Test
+    void isValid_WithValidFormats_ShouldReturnTrue() {
+        assertTrue(PhoneNumberUtils.isValid("+36303159270"));
+        assertTrue(PhoneNumberUtils.isValid("06303159270"));
+        assertTrue(PhoneNumberUtils.isValid("+36 30 315 9270"));
+        assertTrue(PhoneNumberUtils.isValid("06 30 315 9270"));
+        assertTrue(PhoneNumberUtils.isValid("1234567890"));
+    }
+
+    @Test
+    void isValid_WithInvalidFormats_ShouldReturnFalse() {
+        assertFalse(PhoneNumberUtils.isValid(null));
+        assertFalse(PhoneNumberUtils.isValid(""));
+        assertFalse(PhoneNumberUtils.isValid("+"));
+        assertFalse(PhoneNumberUtils.isValid("12345678"));
+        assertFalse(PhoneNumberUtils.isValid("123456789012"));
+        assertFalse(PhoneNumberUtils.isValid("06-30-315-9270"));
+        assertFalse(PhoneNumberUtils.isValid("36+303159270"));
+        assertFalse(PhoneNumberUtils.isValid("0630315927a"));
+    }
+
+    @Test
+    void normalize_ShouldReturnE164Form() {
+        assertEquals("+36303159270", PhoneNumberUtils.normalize("+36303159270"));
+        assertEquals("+36303159270", PhoneNumberUtils.normalize("+36 30 315 9270"));
+        assertEquals("+36303159270", PhoneNumberUtils.normalize("06303159270"));
+        assertEquals("+36303159270", PhoneNumberUtils.normalize("06 30 315 9270"));
+        assertEquals("+3612345678", PhoneNumberUtils.normalize("0 6 1 234 5678"));
+        assertEquals("+1234567890", PhoneNumberUtils.normalize("1234567890"));
+    }
+
+    @Test
+    void normalize_WithInvalidNumber_ShouldReturnNull() {
+        assertNull(PhoneNumberUtils.normalize("12345678"));
+        assertNull(PhoneNumberUtils.normalize(null));
+    }
+}
@@ -0,0 +1,101 @@
+package contacts.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    void execute_WhileTheSameKeyIsRunning_ShouldWaitForItsResult() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>(Duration.ZERO);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> flights.execute("all", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "result";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> flights.execute("all", () -> {
+            runs.incrementAndGet();
+            return "other";
+        }));
+        while (flights.getJoined() == 0) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(1, flights.getExecuted());
+        assertEquals(0, flights.size());
+        // Nothing is running any more, and results are not kept
+        assertEquals("again", flights.execute("all", () -> "again"));
+    }
+
+    @Test
+    void execute_WithDifferentKeys_ShouldRunEach() {
+        SingleFlight<Long, Long> flights = new SingleFlight<>(Duration.ofMinutes(1));
+
+        assertEquals(1L, flights.execute(1L, () -> 1L));
+        assertEquals(2L, flights.execute(2L, () -> 2L));
+        assertEquals(2, flights.getExecuted());
+    }
+
+    @Test
+    void execute_WithResultTtl_ShouldReuseTheResultUntilItExpires() {
+        AtomicLong now = new AtomicLong();
+        SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofMillis(100), now::get);
+        AtomicInteger runs = new AtomicInteger();
+
+        assertEquals(1, flights.execute("all", runs::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(99));
+        assertEquals(1, flights.execute("all", runs::incrementAndGet));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(2, flights.execute("all", runs::incrementAndGet));
+
+        assertEquals(2, flights.getExecuted());
+        assertEquals(1, flights.getReused());
+    }
+
+    @Test
+    void invalidate_ShouldDropTheRecentResults() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+        flights.execute("all", runs::incrementAndGet);
+
+        flights.invalidate();
+
+        assertEquals(2, flights.execute("all", runs::incrementAndGet));
+    }
+
+    @Test
+    void execute_WhenTheWorkFails_ShouldNotKeepTheFailure() {
+        SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> flights.execute("all", () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertEquals(1, flights.execute("all", () -> 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}